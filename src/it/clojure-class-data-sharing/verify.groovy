@@ -0,0 +1,31 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+def buildLog = new File(basedir, "build.log")
+assert buildLog.exists()
+assert buildLog.text.contains("[INFO] BUILD SUCCESS")
+
+assert new File(basedir, "first.txt").isFile()
+assert new File(basedir, "second.txt").isFile()
+
+def javaVersion = Integer.parseInt(System.getProperty("java.specification.version").replaceFirst(/^1\./, ""))
+def cpcache = new File(basedir, "target/clojure-maven-plugin/cpcache")
+if (javaVersion >= 13) {
+    // One archive for the one classpath, created by the first execution and shared by the second
+    assert cpcache.listFiles().count { it.name.endsWith(".jsa") } == 1
+    assert cpcache.listFiles().count { it.name.endsWith(".jsa.ms") } == 1
+    assert !cpcache.listFiles().any { it.name.endsWith(".tmp") }
+} else {
+    assert buildLog.text.contains("Class data sharing requires classpathDelivery ARGFILE and Java 13 or later")
+}
@@ -0,0 +1,4 @@
+(ns hello-world)
+
+(defn -main [filename & _]
+  (spit filename "Hello World\n"))
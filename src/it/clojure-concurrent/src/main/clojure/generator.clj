@@ -0,0 +1,8 @@
+(ns generator)
+
+(defn -main [filename & _]
+  (println "Generating" filename)
+  ; Long enough for the executions to overlap
+  (Thread/sleep 2000)
+  (spit filename "Generated\n")
+  (println "Generated" filename))
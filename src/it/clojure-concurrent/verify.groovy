@@ -0,0 +1,26 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+def buildLog = new File(basedir, "build.log")
+assert buildLog.exists()
+def log = buildLog.text
+
+// Each execution's output forms a block of its own
+["a", "b"].each { id ->
+    assert log =~ /(?s)\[INFO\] --- clojure \(generate-$id\) ---\R\[INFO\] \[generate-$id\] Generating target\/${id}.txt\R\[INFO\] \[generate-$id\] Generated target\/${id}.txt\R\[INFO\] generate-$id succeeded in \d+ ms/
+    assert new File(basedir, "target/${id}.txt").isFile()
+}
+assert !log.contains("generate-c")
+assert !new File(basedir, "target/c.txt").exists()
+assert log.contains("[INFO] BUILD SUCCESS")
@@ -0,0 +1,7 @@
+(ns generator)
+
+(defn -main [filename & _]
+  (spit filename "Generated\n")
+  (println "Generated" filename)
+  ; Ends the run rather than the daemon
+  (System/exit 0))
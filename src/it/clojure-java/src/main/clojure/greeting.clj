@@ -0,0 +1,4 @@
+(ns greeting)
+
+(defn -main [filename & _]
+  (spit filename (str (System/getProperty "greeting") "\n")))
@@ -0,0 +1,5 @@
+(ns chatty)
+
+(defn -main [& _]
+  (dotimes [i 50]
+    (println "Line" i)))
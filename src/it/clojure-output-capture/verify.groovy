@@ -0,0 +1,32 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+import java.util.zip.GZIPInputStream
+
+def buildLog = new File(basedir, "build.log")
+assert buildLog.exists()
+assert buildLog.text.contains("[INFO] BUILD SUCCESS")
+
+// Logged with the execution ID, up to the console line limit
+assert buildLog.text.contains("[INFO] [chatty] Line 0")
+assert buildLog.text.contains("[INFO] [chatty] Line 9")
+assert !buildLog.text.contains("[chatty] Line 10")
+assert buildLog.text.contains("40 more lines")
+
+// Captured in full
+def captured = new File(basedir, "target/clojure-maven-plugin/output/chatty.log.gz")
+assert captured.isFile()
+def lines = new GZIPInputStream(new FileInputStream(captured)).getText("UTF-8").readLines()
+assert lines.size() == 50
+assert lines.last() == "Line 49"
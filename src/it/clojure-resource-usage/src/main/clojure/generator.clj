@@ -0,0 +1,4 @@
+(ns generator)
+
+(defn -main [filename & _]
+  (spit filename (apply str (map #(str % "\n") (range 100000)))))
@@ -0,0 +1,31 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+def buildLog = new File(basedir, "build.log")
+assert buildLog.exists()
+assert buildLog.text.contains("[INFO] BUILD SUCCESS")
+
+assert new File(basedir, "numbers.txt").readLines().size() == 100000
+assert new File(basedir, "numbers-cli.txt").readLines().size() == 100000
+
+assert buildLog.text =~ /\[INFO\] generate: \d+ ms wall, (\d+|\?) ms CPU, (\d+|\?) MiB peak RSS, \d+ ms GC/
+
+assert buildLog.text =~ /\[INFO\] generate-cli: \d+ ms wall, (\d+|\?) ms CPU, (\d+|\?) MiB peak RSS, \d+ ms GC/
+
+def json = new File(basedir, "target/clojure-maven-plugin/resource-usage/generate.json")
+assert json.isFile()
+def usage = new groovy.json.JsonSlurper().parse(json)
+assert usage.executionId == "generate"
+assert usage.wallMillis > 0
+assert usage.gcMillis >= 0
@@ -0,0 +1,7 @@
+(ns greeter)
+
+(defn greeting [who]
+  (str "Hello, " who))
+
+(defn -main [& _]
+  (println (greeting "timeline")))
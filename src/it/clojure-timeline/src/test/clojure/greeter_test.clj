@@ -0,0 +1,7 @@
+(ns greeter-test
+  (:require
+    [clojure.test :refer [deftest is]]
+    [greeter]))
+
+(deftest greeting
+  (is (= "Hello, timeline" (greeter/greeting "timeline"))))
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+def buildLog = new File(basedir, "build.log")
+assert buildLog.exists()
+assert buildLog.text.contains("[INFO] BUILD SUCCESS")
+
+def timeline = { String name ->
+    def json = new File(basedir, "target/clojure-maven-plugin/timeline/" + name + ".json")
+    assert json.isFile()
+    new groovy.json.JsonSlurper().parse(json)
+}
+
+def greet = timeline("clojure-greet")
+assert greet.goal == "clojure"
+assert greet.executionId == "greet"
+assert greet.spans*.name.containsAll(["goal", "execution", "resolve-dependencies", "sub-process"])
+assert greet.spans.every { it.durationMillis >= 0 }
+
+def test = timeline("clojure.test-test")
+assert test.goal == "clojure.test"
+assert test.spans*.name.containsAll(["goal", "configuration", "resolve-tool", "realm", "bootstrap", "require", "test-run"])
+assert test.spans.find { it.name == "require" && it.detail == "vivid.cmp.clojure-dot-test-runner" }
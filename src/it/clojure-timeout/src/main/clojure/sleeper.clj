@@ -0,0 +1,4 @@
+(ns sleeper)
+
+(defn -main [& _]
+  (Thread/sleep 60000))
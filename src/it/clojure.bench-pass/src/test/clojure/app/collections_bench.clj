@@ -0,0 +1,9 @@
+(ns ^:benchmark app.collections-bench)
+
+(defn sum-vector
+  []
+  (reduce + (vec (range 1000))))
+
+(defn sort-numbers
+  []
+  (sort (range 500 0 -1)))
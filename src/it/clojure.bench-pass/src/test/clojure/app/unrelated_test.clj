@@ -0,0 +1,4 @@
+(ns app.unrelated-test)
+
+; Having no benchmarks, this namespace is never loaded by the clojure.bench goal.
+(throw (IllegalStateException. "Loaded by the clojure.bench goal"))
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+def buildLog = new File(basedir, "build.log")
+assert buildLog.exists()
+assert buildLog.text.contains("[INFO] Benchmarking app.collections-bench/sort-numbers")
+assert buildLog.text.contains("[INFO] Benchmarking app.collections-bench/sum-vector")
+assert buildLog.text.contains("[INFO] Benchmarking app.strings-test/join-strings")
+assert !buildLog.text.contains("join-test")
+assert !buildLog.text.contains("Loaded by the clojure.bench goal")
+assert buildLog.text.contains("[INFO] app.collections-bench/sum-vector: median ")
+assert buildLog.text.contains("[INFO] app.collections-bench/sum-vector: -")
+assert buildLog.text.contains("[INFO] BUILD SUCCESS")
+
+def results = new File(basedir, "target/clojure-maven-plugin/clojure-bench.edn")
+assert results.exists()
+assert results.text.contains(":unit :nanoseconds-per-call")
+assert results.text.contains("app.strings-test/join-strings")
+assert results.text.contains(":outliers")
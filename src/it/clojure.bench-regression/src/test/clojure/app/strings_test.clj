@@ -0,0 +1,11 @@
+(ns app.strings-test
+  (:require
+    [clojure.string]
+    [clojure.test :refer [deftest is]]))
+
+(deftest join-test
+  (is (= "a,b" (clojure.string/join "," ["a" "b"]))))
+
+(defn ^:benchmark join-strings
+  []
+  (clojure.string/join "," (range 100)))
@@ -0,0 +1,14 @@
+(ns fixture-failure-test
+  "Passing tests whose :each fixture fails."
+  (:require [clojure.test :refer [deftest is use-fixtures]]))
+
+(use-fixtures :each
+  (fn [f]
+    (is (= :set-up :torn-down) "Failing fixture assertion")
+    (f)))
+
+(deftest passing-within-failing-fixture
+  (is (= 4 (+ 2 2))))
+
+(deftest also-passing-within-failing-fixture
+  (is (= 6 (+ 3 3))))
@@ -28,8 +28,18 @@ assert buildLog.text.contains("actual: :no")
 assert buildLog.text.contains("diff: - {:bar 2}")
 assert buildLog.text.contains("+ {:bar 3}")
 assert buildLog.text.contains("FAIL in failure-test/multiple-failing-assertions-with-template-expression")
-assert buildLog.text.contains("[ERROR] Tests run: 6, Assertions: 7, Failures: 6, Errors: 1, Time elapsed:")
+assert buildLog.text.contains("FAIL in fixture-failure-test/passing-within-failing-fixture")
+assert buildLog.text.contains("FAIL in fixture-failure-test/also-passing-within-failing-fixture")
+assert buildLog.text.contains("[ERROR] Tests run: 8, Assertions: 11, Failures: 8, Errors: 1, Time elapsed:")
 assert buildLog.text.contains("BUILD FAILURE")
 
-def junitReportXml = new File (basedir, "target/clojure-test-reports/all-tests.xml")
+def junitReportXml = new File (basedir, "target/clojure-test-reports/TEST-failure-test.xml")
 assert junitReportXml.exists()
+assert junitReportXml.text.contains("<testcase name=\"cause-arithmetic-exception\" classname=\"failure-test\"")
+assert junitReportXml.text.contains("type=\"java.lang.ArithmeticException\"")
+
+// Failures of an :each fixture are attributed to the test var it wraps
+def fixtureReportXml = new File (basedir, "target/clojure-test-reports/TEST-fixture-failure-test.xml")
+assert fixtureReportXml.exists()
+assert fixtureReportXml.text.contains("failures=\"2\"")
+assert fixtureReportXml.text.contains("<failure message=\"Failing fixture assertion\"")
@@ -0,0 +1,5 @@
+(ns change-source
+  "Changes a source file between incremental test runs.")
+
+(defn -main [filename & _]
+  (spit filename "\n; Changed since the prior test run\n" :append true))
@@ -0,0 +1,7 @@
+(ns app.core
+  (:require
+    [app.util]))
+
+(defn quadruple
+  [x]
+  (app.util/twice (app.util/twice x)))
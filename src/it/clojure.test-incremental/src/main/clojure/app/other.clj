@@ -0,0 +1,5 @@
+(ns app.other)
+
+(defn greeting
+  [who]
+  (str "Hello, " who))
@@ -0,0 +1,5 @@
+(ns app.util)
+
+(defn twice
+  [x]
+  (* 2 x))
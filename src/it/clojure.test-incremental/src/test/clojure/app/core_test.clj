@@ -0,0 +1,8 @@
+(ns app.core-test
+  "Depends on app.util only transitively, by way of app.core."
+  (:require
+    [app.core]
+    [clojure.test :refer [deftest is]]))
+
+(deftest quadruple
+  (is (= 8 (app.core/quadruple 2))))
@@ -0,0 +1,7 @@
+(ns app.other-test
+  (:require
+    [app.other]
+    [clojure.test :refer [deftest is]]))
+
+(deftest greeting
+  (is (= "Hello, world" (app.other/greeting "world"))))
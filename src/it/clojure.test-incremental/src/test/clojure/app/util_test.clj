@@ -0,0 +1,7 @@
+(ns app.util-test
+  (:require
+    [app.util]
+    [clojure.test :refer [deftest is]]))
+
+(deftest twice
+  (is (= 4 (app.util/twice 2))))
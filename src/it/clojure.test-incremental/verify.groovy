@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+def buildLog = new File(basedir, "build.log")
+assert buildLog.exists()
+// The first invocation runs all tests, after which nothing has changed
+assert buildLog.text.contains("[INFO] 6 of 6 test namespaces are affected by changes since the last run")
+assert buildLog.text.contains("[INFO] 0 of 6 test namespaces are affected by changes since the last run")
+assert buildLog.text.contains("[INFO] BUILD SUCCESS")
+
+// The third invocation changes app.util, on which app.util-test depends directly
+// and app.core-test transitively
+def marker = "[INFO] 2 of 6 test namespaces are affected by changes since the last run"
+assert buildLog.text.contains(marker)
+def thirdRun = buildLog.text.substring(buildLog.text.lastIndexOf(marker))
+assert thirdRun.contains("[INFO] Running app.util-test")
+assert thirdRun.contains("[INFO] Running app.core-test")
+["app.other-test", "clojure-test-api-sorezore-test", "nested.ns-test", "widget-test"].each {
+    assert !thirdRun.contains("[INFO] Running ${it}")
+}
+
+def incrementalState = new File(basedir, "target/clojure-maven-plugin/incremental/clojure-test.edn")
+assert incrementalState.exists()
+assert incrementalState.text.contains("nested.ns-test")
+assert incrementalState.text.contains("app.core-test")
@@ -0,0 +1,9 @@
+package sample;
+
+public class Widget {
+
+    public static int add(final int a, final int b) {
+        return a + b;
+    }
+
+}
@@ -19,5 +19,8 @@ assert buildLog.text.contains("[INFO] Running clojure-test-api-sorezore-test")
 assert buildLog.text.contains("[INFO] Tests run: 14, Assertions: 27, Failures: 0, Errors: 0, Time elapsed:")
 assert buildLog.text.contains("[INFO] BUILD SUCCESS")
 
-def junitReportXml = new File (basedir, "target/clojure-test-reports/all-tests.xml")
-assert junitReportXml.exists()
+["clojure-test-api-sorezore-test", "nested.ns-test", "widget-test"].each {
+    def junitReportXml = new File (basedir, "target/clojure-test-reports/TEST-${it}.xml")
+    assert junitReportXml.exists()
+    assert junitReportXml.text.contains("<testsuite name=\"${it}\"")
+}
@@ -0,0 +1,6 @@
+(ns module-a-test
+  (:require
+    [clojure.test :refer [deftest is]]))
+
+(deftest passing
+  (is (= 4 (+ 2 2))))
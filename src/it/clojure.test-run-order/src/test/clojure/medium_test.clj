@@ -0,0 +1,7 @@
+(ns medium-test
+  (:require
+    [clojure.test :refer [deftest is]]))
+
+(deftest medium
+  (Thread/sleep 1000)
+  (is true))
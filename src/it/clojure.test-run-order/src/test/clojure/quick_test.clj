@@ -0,0 +1,6 @@
+(ns quick-test
+  (:require
+    [clojure.test :refer [deftest is]]))
+
+(deftest quick
+  (is true))
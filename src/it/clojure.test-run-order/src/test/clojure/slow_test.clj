@@ -0,0 +1,7 @@
+(ns slow-test
+  (:require
+    [clojure.test :refer [deftest is]]))
+
+(deftest slow
+  (Thread/sleep 2000)
+  (is true))
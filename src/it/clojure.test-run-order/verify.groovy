@@ -0,0 +1,37 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+def buildLog = new File(basedir, "build.log")
+assert buildLog.exists()
+assert buildLog.text.contains("[INFO] BUILD SUCCESS")
+
+def history = new File(basedir, "target/clojure-maven-plugin/test-history.edn")
+assert history.exists()
+["slow-test", "medium-test", "quick-test", "failing-test"].each {
+    assert history.text.contains(it)
+}
+assert history.text.contains(":failed true")
+
+// The second run packs the longest namespace into a fork of its own,
+// and the rest, longest first, into the other
+def forks = new File(basedir, "target/clojure-maven-plugin/forks")
+assert new File(forks, "fork-0/options.edn").text.contains(':namespaces ["slow-test"]')
+assert new File(forks, "fork-1/options.edn").text.contains(':namespaces ["medium-test" ')
+
+// The third run, being the only one in-process, runs the failed namespace first, then the longest
+def running = { ns -> buildLog.text.indexOf("[INFO] Running ${ns}") }
+assert running("failing-test") >= 0
+assert running("failing-test") < running("slow-test")
+assert running("slow-test") < running("medium-test")
+assert running("medium-test") < running("quick-test")
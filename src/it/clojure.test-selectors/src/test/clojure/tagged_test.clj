@@ -0,0 +1,10 @@
+(ns ^:slow tagged-test
+  "A namespace whose tests are all in the slow group, some of them also in the integration group."
+  (:require
+    [clojure.test :refer [deftest is]]))
+
+(deftest tagged-unit
+  (is (= 4 (+ 2 2))))
+
+(deftest ^:integration tagged-integration
+  (is (= 4 (* 2 2))))
@@ -0,0 +1,12 @@
+(ns widget-test
+  "Exercises the Java class sample.Widget, whose .class file is available via the classpath in target/test-classes"
+  (:require
+    [clojure.test :refer [deftest is]])
+  (:import
+    (sample Widget)))
+
+(deftest widget-add
+  (is (= 7 (Widget/add 3 4))))
+
+(deftest ^:integration widget-add-integration
+  (is (= 12 (Widget/add 5 7))))
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+def buildLog = new File(basedir, "build.log")
+assert buildLog.exists()
+assert buildLog.text.contains("[INFO] Running nested.ns-test")
+assert buildLog.text.contains("[INFO] Running widget-test")
+assert buildLog.text.contains("[INFO] BUILD SUCCESS")
+
+def testcases = { reports, ns ->
+    def report = new File(basedir, "target/${reports}/TEST-${ns}.xml")
+    report.exists() ? (report.text =~ /<testcase name="([^"]+)"/).collect { it[1] }.toSet() : null
+}
+
+// By name pattern, including a test var by ns/var pattern
+assert testcases("clojure-test-reports", "nested.ns-test") == ["passing-test"] as Set
+assert testcases("clojure-test-reports", "widget-test") == ["widget-add"] as Set
+assert testcases("clojure-test-reports", "clojure-test-api-sorezore-test") == null
+assert testcases("clojure-test-reports", "tagged-test") == null
+
+// By the integration group, whether on the test var or, as with :slow, on the namespace
+assert testcases("clojure-test-reports-groups", "widget-test") == ["widget-add-integration"] as Set
+assert testcases("clojure-test-reports-groups", "tagged-test") == ["tagged-integration"] as Set
+assert testcases("clojure-test-reports-groups", "nested.ns-test") == null
+assert testcases("clojure-test-reports-groups", "clojure-test-api-sorezore-test") == null
+
+// Excluding the :slow group of the tagged-test namespace and the integration group of test vars
+assert testcases("clojure-test-reports-excluded-groups", "widget-test") == ["widget-add"] as Set
+assert testcases("clojure-test-reports-excluded-groups", "nested.ns-test") == ["passing-test"] as Set
+assert testcases("clojure-test-reports-excluded-groups", "clojure-test-api-sorezore-test") != null
+assert testcases("clojure-test-reports-excluded-groups", "tagged-test") == null
+
+// Excluding namespaces by ! patterns, and test vars by a ! ns/var pattern
+assert testcases("clojure-test-reports-var-patterns", "widget-test") == ["widget-add"] as Set
+assert testcases("clojure-test-reports-var-patterns", "tagged-test") == ["tagged-unit"] as Set
+assert testcases("clojure-test-reports-var-patterns", "nested.ns-test") == null
+assert testcases("clojure-test-reports-var-patterns", "clojure-test-api-sorezore-test") == null
@@ -17,5 +17,5 @@ assert buildLog.exists()
 
 assert buildLog.text.contains("BUILD SUCCESS")
 
-def junitReportXml = new File (basedir, "target/clojure-test-reports/all-tests.xml")
+def junitReportXml = new File (basedir, "target/clojure-test-reports/TEST-failing-test.xml")
 assert junitReportXml.exists()
@@ -0,0 +1,8 @@
+(ns app.core
+  (:require
+    [app.util :as util])
+  (:gen-class))
+
+(defn -main
+  [& _]
+  (println (util/greeting)))
@@ -0,0 +1,3 @@
+(ns app.dev
+  (:require
+    [app.core]))
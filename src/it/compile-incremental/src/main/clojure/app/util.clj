@@ -0,0 +1,5 @@
+(ns app.util)
+
+(defn greeting
+  []
+  "Hello")
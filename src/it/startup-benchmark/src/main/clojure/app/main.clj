@@ -0,0 +1,12 @@
+(ns app.main
+  (:require
+    [clojure.string]))
+
+(defn greeting
+  "A greeting to the world."
+  []
+  (clojure.string/join " " ["Hello," "world"]))
+
+(defn -main
+  [& _]
+  (println (greeting)))
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+def buildLog = new File(basedir, "build.log")
+assert buildLog.exists()
+assert buildLog.text.contains("[INFO] Start-up of app.main with the default compiler profile: p50 ")
+assert buildLog.text.contains("[INFO] Start-up of app.main with the production compiler profile: p50 ")
+assert buildLog.text.contains("[INFO] BUILD SUCCESS")
+
+assert new File(basedir, "target/clojure-maven-plugin/startup-benchmark/default/classes/app/main__init.class").exists()
+assert new File(basedir, "target/clojure-maven-plugin/startup-benchmark/production/classes/app/main__init.class").exists()
+
+def results = new File(basedir, "target/clojure-maven-plugin/startup-benchmark.edn")
+assert results.exists()
+assert results.text.contains(":main-namespace \"app.main\"")
+assert results.text.contains(":production")
+assert results.text.contains(":p99")
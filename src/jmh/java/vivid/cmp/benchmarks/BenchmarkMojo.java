@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.benchmarks;
+
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.project.MavenProject;
+import vivid.cmp.mojo.AbstractCMPMojo;
+
+import java.util.ArrayList;
+
+/**
+ * A mojo as Maven would inject it into a goal execution of the project, for benchmarks
+ * to hand to this plugin's functions. Executes nothing itself.
+ */
+final class BenchmarkMojo extends AbstractCMPMojo {
+
+    // Maven itself creates sessions with this constructor
+    @SuppressWarnings("deprecation")
+    BenchmarkMojo(
+            final MavenProject project,
+            final PluginDescriptor pluginDescriptor
+    ) {
+        this.mavenSession = new MavenSession(
+                null,
+                null,
+                new DefaultMavenExecutionRequest(),
+                new DefaultMavenExecutionResult()
+        );
+        this.mavenSession.setCurrentProject(project);
+        this.pluginDescriptor = pluginDescriptor;
+        this.remoteRepositories = new ArrayList<>();
+        setLog(new InfoLog());
+    }
+
+    @Override
+    protected void executeGoal() {
+        // Benchmarks call this plugin's functions directly
+    }
+
+    /**
+     * A log at Maven's default level, discarding debug output as Maven would rather than
+     * printing it as {@link SystemStreamLog} does.
+     */
+    private static final class InfoLog implements Log {
+
+        private final Log log = new SystemStreamLog();
+
+        @Override
+        public boolean isDebugEnabled() {
+            return false;
+        }
+
+        @Override
+        public void debug(final CharSequence content) {
+            // Discarded
+        }
+
+        @Override
+        public void debug(final CharSequence content, final Throwable error) {
+            // Discarded
+        }
+
+        @Override
+        public void debug(final Throwable error) {
+            // Discarded
+        }
+
+        @Override
+        public boolean isInfoEnabled() {
+            return log.isInfoEnabled();
+        }
+
+        @Override
+        public void info(final CharSequence content) {
+            log.info(content);
+        }
+
+        @Override
+        public void info(final CharSequence content, final Throwable error) {
+            log.info(content, error);
+        }
+
+        @Override
+        public void info(final Throwable error) {
+            log.info(error);
+        }
+
+        @Override
+        public boolean isWarnEnabled() {
+            return log.isWarnEnabled();
+        }
+
+        @Override
+        public void warn(final CharSequence content) {
+            log.warn(content);
+        }
+
+        @Override
+        public void warn(final CharSequence content, final Throwable error) {
+            log.warn(content, error);
+        }
+
+        @Override
+        public void warn(final Throwable error) {
+            log.warn(error);
+        }
+
+        @Override
+        public boolean isErrorEnabled() {
+            return log.isErrorEnabled();
+        }
+
+        @Override
+        public void error(final CharSequence content) {
+            log.error(content);
+        }
+
+        @Override
+        public void error(final CharSequence content, final Throwable error) {
+            log.error(content, error);
+        }
+
+        @Override
+        public void error(final Throwable error) {
+            log.error(error);
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package vivid.cmp.benchmarks;
+
+import io.vavr.collection.Map;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.apache.maven.model.PluginExecution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import vivid.cmp.datatypes.ClojureMojoState;
+import vivid.cmp.fns.ClojureMojoConfigurationFns;
+import vivid.cmp.fns.MojoFns;
+import vivid.cmp.messages.Message;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the configurations of 'clojure' goal executions, singly and of a project
+ * configuring many.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class ConfigurationBenchmark {
+
+    @Param({"10", "200"})
+    public int executions;
+
+    private Path workDirectory;
+    private BenchmarkMojo mojo;
+    private PluginExecution execution;
+
+    @Setup
+    public void setUp() throws Exception {
+        workDirectory = Fixtures.workDirectory();
+        mojo = new BenchmarkMojo(
+                Fixtures.project(workDirectory, Fixtures.dependencyFiles(workDirectory, 0), executions),
+                Fixtures.pluginDescriptor()
+        );
+        execution = Fixtures.execution(0);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Fixtures.delete(workDirectory);
+    }
+
+    @Benchmark
+    public Either<Message, Option<ClojureMojoState>> asClojureMojoState() {
+        return ClojureMojoConfigurationFns.asClojureMojoState(execution);
+    }
+
+    @Benchmark
+    public Either<Message, Map<String, ClojureMojoState>> myPluginExecutionConfigurations() {
+        return MojoFns.myPluginExecutionConfigurations(
+                mojo,
+                Fixtures.PLUGIN_LOOKUP_KEY,
+                "clojure"
+        );
+    }
+
+}
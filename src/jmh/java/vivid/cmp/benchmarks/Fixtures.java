@@ -0,0 +1,234 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.benchmarks;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+import vivid.cmp.mojo.AbstractCMPMojo;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.stream.Collectors;
+
+/**
+ * Synthetic, deterministic stand-ins for what Maven provides a goal execution: a project
+ * with many dependencies and plugin executions, and the dependencies' files as though Maven
+ * had resolved them, without touching any repository, so that benchmarks run offline and
+ * measure this plugin's own work alone.
+ */
+final class Fixtures {
+
+    static final String GROUP_ID = "vivid";
+    static final String ARTIFACT_ID = "clojure-maven-plugin";
+    static final String PLUGIN_LOOKUP_KEY = GROUP_ID + ":" + ARTIFACT_ID;
+
+    private Fixtures() {
+        // Hide the public constructor
+    }
+
+    static Path workDirectory() throws IOException {
+        return Files.createTempDirectory("clojure-maven-plugin-benchmark");
+    }
+
+    static void delete(
+            final Path directory
+    ) throws IOException {
+        try (java.util.stream.Stream<Path> paths = Files.walk(directory)) {
+            // Walked parents first, so deleted children first
+            for (final Path path : List.ofAll(paths.collect(Collectors.toList())).reverse()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    /**
+     * Creates the empty jar files of the dependencies in a repository laid out as Maven's.
+     */
+    static List<File> dependencyFiles(
+            final Path workDirectory,
+            final int count
+    ) throws IOException {
+        List<File> files = List.empty();
+        for (int i = 0; i < count; i++) {
+            final Path jar = workDirectory.resolve(String.format(
+                    "repository/org/example/library-%1$d/1.0.%1$d/library-%1$d-1.0.%1$d.jar",
+                    i
+            ));
+            Files.createDirectories(jar.getParent());
+            files = files.append(Files.createFile(jar).toFile());
+        }
+        return files;
+    }
+
+    /**
+     * A project depending on each of the files, configuring as many 'clojure' goal executions,
+     * whose dependencies Maven has resolved to the files.
+     */
+    static MavenProject project(
+            final Path workDirectory,
+            final List<File> dependencyFiles,
+            final int executions
+    ) {
+        final Model model = new Model();
+        model.setGroupId("org.example");
+        model.setArtifactId("benchmarked");
+        model.setVersion("1.0.0");
+        dependencyFiles.zipWithIndex().forEach(file -> model.addDependency(dependency(file._2)));
+
+        final Build build = new Build();
+        build.setDirectory(workDirectory.resolve("target").toString());
+        build.setOutputDirectory(workDirectory.resolve("target/classes").toString());
+        build.setTestOutputDirectory(workDirectory.resolve("target/test-classes").toString());
+        final Plugin plugin = new Plugin();
+        plugin.setGroupId(GROUP_ID);
+        plugin.setArtifactId(ARTIFACT_ID);
+        for (int i = 0; i < executions; i++) {
+            plugin.addExecution(execution(i));
+        }
+        build.addPlugin(plugin);
+        model.setBuild(build);
+
+        final MavenProject project = new MavenProject(model);
+        project.setFile(workDirectory.resolve("pom.xml").toFile());
+        project.setArtifacts(dependencyFiles
+                .zipWithIndex()
+                .map(file -> artifact("org.example", "library-" + file._2, "1.0." + file._2, scope(file._2), file._1))
+                .toJavaCollection(LinkedHashSet::new));
+        return project;
+    }
+
+    private static Dependency dependency(
+            final int i
+    ) {
+        final Dependency dependency = new Dependency();
+        dependency.setGroupId("org.example");
+        dependency.setArtifactId("library-" + i);
+        dependency.setVersion("1.0." + i);
+        dependency.setScope(scope(i));
+        return dependency;
+    }
+
+    private static String scope(
+            final int i
+    ) {
+        return i % 10 == 0 ? Artifact.SCOPE_TEST : Artifact.SCOPE_COMPILE;
+    }
+
+    /**
+     * A 'clojure' goal execution setting most of its parameters.
+     */
+    static PluginExecution execution(
+            final int i
+    ) {
+        final Xpp3Dom configuration = new Xpp3Dom("configuration");
+        configuration.addChild(element("args", "-m example.main-" + i + " --verbose"));
+        configuration.addChild(element("executionMode", i % 2 == 0 ? "JAVA" : "SUB_PROCESS"));
+        configuration.addChild(element("argLine", "-Xss2m -Dexample=" + i));
+        configuration.addChild(element("classpathDelivery", "ARGFILE"));
+        configuration.addChild(element("classpathScope", i % 3 == 0 ? "TEST" : "COMPILE"));
+        configuration.addChild(element("compilerProfile", "PRODUCTION"));
+        configuration.addChild(element("captureOutput", "true"));
+        configuration.addChild(element("consoleLineLimit", "1000"));
+        configuration.addChild(element("timeout", "600"));
+        configuration.addChild(element("maxMemory", "2048"));
+        configuration.addChild(paths("sourcePaths", "sourcePath", "src/main/clojure", "src/main/cljc", "resources"));
+        configuration.addChild(paths("testPaths", "testPath", "src/test/clojure", "test-resources"));
+
+        final PluginExecution execution = new PluginExecution();
+        execution.setId("execution-" + i);
+        execution.addGoal("clojure");
+        execution.setConfiguration(configuration);
+        return execution;
+    }
+
+    private static Xpp3Dom element(
+            final String name,
+            final String value
+    ) {
+        final Xpp3Dom element = new Xpp3Dom(name);
+        element.setValue(value);
+        return element;
+    }
+
+    private static Xpp3Dom paths(
+            final String name,
+            final String childName,
+            final String... values
+    ) {
+        final Xpp3Dom element = new Xpp3Dom(name);
+        Stream.of(values).forEach(value -> element.addChild(element(childName, value)));
+        return element;
+    }
+
+    /**
+     * This plugin as Maven describes it to its mojos: its own classes, and the Clojure
+     * that this benchmark runs with.
+     */
+    static PluginDescriptor pluginDescriptor() throws URISyntaxException {
+        final PluginDescriptor descriptor = new PluginDescriptor();
+        descriptor.setGroupId(GROUP_ID);
+        descriptor.setArtifactId(ARTIFACT_ID);
+        descriptor.setVersion("benchmark");
+        descriptor.setPluginArtifact(artifact(GROUP_ID, ARTIFACT_ID, "benchmark", Artifact.SCOPE_COMPILE, codeSource(AbstractCMPMojo.class)));
+        descriptor.setArtifacts(List.of(
+                artifact("org.clojure", "clojure", "benchmark", Artifact.SCOPE_COMPILE, codeSource(clojure.lang.RT.class))
+        ).toJavaList());
+        return descriptor;
+    }
+
+    private static File codeSource(
+            final Class<?> c
+    ) throws URISyntaxException {
+        return new File(c.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    private static Artifact artifact(
+            final String groupId,
+            final String artifactId,
+            final String version,
+            final String scope,
+            final File file
+    ) {
+        final DefaultArtifactHandler handler = new DefaultArtifactHandler("jar");
+        handler.setAddedToClasspath(true);
+        final Artifact artifact = new DefaultArtifact(
+                groupId,
+                artifactId,
+                version,
+                scope,
+                "jar",
+                null,
+                handler
+        );
+        artifact.setFile(file);
+        return artifact;
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package vivid.cmp.benchmarks;
+
+import io.vavr.collection.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import vivid.cmp.datatypes.ClojureRuntime;
+import vivid.cmp.fns.ClassPathology;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the class realm of a Clojure runtime over a project's many dependencies and
+ * disposing of it, short of bootstrapping Clojure within it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@State(Scope.Benchmark)
+public class RealmBenchmark {
+
+    @Param({"500"})
+    public int dependencies;
+
+    private Path workDirectory;
+    private BenchmarkMojo mojo;
+    private List<File> files;
+
+    @Setup
+    public void setUp() throws Exception {
+        workDirectory = Fixtures.workDirectory();
+        files = Fixtures.dependencyFiles(workDirectory, dependencies);
+        mojo = new BenchmarkMojo(
+                Fixtures.project(workDirectory, files, 1),
+                Fixtures.pluginDescriptor()
+        );
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Fixtures.delete(workDirectory);
+    }
+
+    @Benchmark
+    public int newClojureRuntime() throws Exception {
+        final ClojureRuntime runtime = ClassPathology.newClojureRuntime(mojo, files);
+        runtime.dispose();
+        return runtime.realm().getURLs().length;
+    }
+
+}
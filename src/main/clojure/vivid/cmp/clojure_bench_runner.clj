@@ -0,0 +1,388 @@
+(ns vivid.cmp.clojure-bench-runner
+  (:require
+    [clojure.edn]
+    [clojure.java.io :as io]
+    [clojure.pprint]
+    [clojure.string]
+    [clojure.tools.namespace.file]
+    [clojure.tools.namespace.find]
+    [clojure.tools.namespace.parse]
+    [vivid.cmp.test-selector :as test-selector])
+  (:import
+    (java.io File)
+    (java.text MessageFormat)
+    (java.util List Map ResourceBundle)))
+
+
+; Design notes:
+;
+; The behavior of this Maven goal is patterned after that of the clojure.test goal.
+;
+; Benchmarks are the zero-argument public functions of namespaces having :benchmark metadata, and
+; any functions having :benchmark metadata themselves, found under the test paths. Namespaces whose
+; source doesn't mention :benchmark are never loaded.
+;
+; Benchmarks run either in-process within Maven's JVM (run-benchmarks), or each namespace in a fresh
+; forked JVM of its own, one after another so that they don't compete for processors (prepare-forks,
+; then vivid.cmp.clojure-bench-worker within each fork, then merge-fork-results).
+;
+; Each benchmark is called repeatedly for the iteration time, first for the warm-up iterations whose
+; measurements are discarded, then for the measured iterations. Each iteration yields a mean time per
+; call. Their median is what compares against the baseline, being insensitive to the odd iteration
+; disturbed by garbage collection or the machine's load; iterations beyond Tukey's fences are counted
+; as outliers.
+;
+; The results are written in the same form as the baseline, so that accepting the results of a run
+; as the new baseline is a matter of copying the file, or of running with update-baseline.
+
+
+;
+; Console output via Maven's logger, or via stdout and stderr within forked JVMs
+;
+
+(def ^:dynamic *log*
+  "Map of the :info and :error logging functions and the :get-text i18n function."
+  nil)
+
+(defn- log-error
+  [message]
+  ((:error *log*) message))
+(defn- log-info
+  [message]
+  ((:info *log*) message))
+
+(defn- i18n-get-text
+  [key & args]
+  (apply (:get-text *log*) key args))
+
+(defn- mojo-log
+  [mojo]
+  {:info     #(.. mojo (getLog) (info %))
+   :error    #(.. mojo (getLog) (error %))
+   :get-text (fn [key & args]
+               (.getText (.i18nContext mojo) key (into-array Object args)))})
+
+(defn- stdio-log
+  []
+  (let [bundle (ResourceBundle/getBundle "vivid-clojure-maven-plugin-i18n")]
+    {:info     println
+     :error    #(binding [*out* *err*] (println %))
+     :get-text (fn [key & args]
+                 (MessageFormat/format (.getString bundle key) (into-array Object args)))}))
+
+(defn- format-nanos
+  [nanos]
+  (format "%.1f" (double nanos)))
+
+(defn- format-percent
+  [percent]
+  (format "%+.1f%%" (double percent)))
+
+
+;
+; Discovery
+;
+
+(defn- selector
+  [^Map options]
+  (test-selector/selector {:test   (.get options "benchmark")
+                           :groups "benchmark"}))
+
+(defn find-benchmark-namespaces
+  "Symbols of the namespaces declared by the sources within the test paths
+  that might have benchmarks, found without loading any of them."
+  [^Map options]
+  (let [selector (selector options)]
+    (->> (.get options "test-paths")
+         (map io/file)
+         (mapcat clojure.tools.namespace.find/find-sources-in-dir)
+         (keep (fn [file]
+                 (when-let [decl (clojure.tools.namespace.file/read-file-ns-decl file)]
+                   (when (test-selector/select-namespace? selector decl file)
+                     (clojure.tools.namespace.parse/name-from-ns-decl decl)))))
+         (distinct))))
+
+(defn- var-symbol
+  [v]
+  (let [{:keys [ns name]} (meta v)]
+    (symbol (str (ns-name ns)) (str name))))
+
+(defn- benchmark-var?
+  [v]
+  (let [m (meta v)]
+    (and (fn? (var-get v))
+         (or (:benchmark m)
+             (some empty? (:arglists m))))))
+
+(defn- find-benchmarks
+  "The benchmark vars of the namespaces, loading each of them."
+  [namespaces selection]
+  (let [selector (test-selector/selector selection)]
+    (doseq [ns-sym namespaces]
+      (require ns-sym))
+    (->> namespaces
+         (mapcat #(vals (ns-publics %)))
+         (filter #(test-selector/select-var? selector %))
+         (filter benchmark-var?)
+         (sort-by var-symbol))))
+
+
+;
+; Measurement
+;
+
+(def ^:private blackhole
+  "Keeps the value of each benchmark call, so that the JIT compiler can't eliminate the call."
+  (volatile! nil))
+
+(defn- call-batch
+  [f ^long n]
+  (loop [i 0
+         result nil]
+    (if (< i n)
+      (recur (inc i) (f))
+      result)))
+
+(defn- iteration
+  "Calls f repeatedly for at least the duration, in batches growing so that reading the clock
+  costs little against the calls themselves. Returns the mean time per call, in nanoseconds."
+  [f ^long duration-nanos]
+  (let [start (System/nanoTime)]
+    (loop [calls 0
+           batch 1]
+      (vreset! blackhole (call-batch f batch))
+      (let [calls (+ calls batch)
+            elapsed (- (System/nanoTime) start)]
+        (if (< elapsed duration-nanos)
+          (let [nanos-per-call (/ (double elapsed) calls)]
+            (recur calls (max 1 (min (* 2 batch)
+                                     (long (/ (* 0.01 duration-nanos) nanos-per-call))))))
+          (/ (double elapsed) calls))))))
+
+(defn- quantile
+  "Quantile of the sorted samples, interpolating linearly between ranks."
+  [sorted q]
+  (let [position (* q (dec (count sorted)))
+        lower (long (Math/floor position))
+        upper (long (Math/ceil position))]
+    (+ (nth sorted lower)
+       (* (- position lower)
+          (- (nth sorted upper) (nth sorted lower))))))
+
+(defn- round
+  "Rounds to tenths, as finer precision is only noise."
+  [x]
+  (/ (Math/round (* 10.0 x)) 10.0))
+
+(defn statistics
+  "Statistics of the samples: their mean, median, sample standard deviation, extremes, and the
+  number of outliers beyond Tukey's fences of 1.5 interquartile ranges."
+  [samples]
+  (let [sorted (vec (sort samples))
+        n (count sorted)
+        mean (/ (reduce + sorted) n)
+        stddev (if (< n 2)
+                 0.0
+                 (Math/sqrt (/ (reduce + (map #(Math/pow (- % mean) 2) sorted))
+                               (dec n))))
+        q1 (quantile sorted 0.25)
+        q3 (quantile sorted 0.75)
+        fence (* 1.5 (- q3 q1))]
+    {:iterations n
+     :median     (round (quantile sorted 0.5))
+     :mean       (round mean)
+     :stddev     (round stddev)
+     :min        (round (first sorted))
+     :max        (round (peek sorted))
+     :outliers   (count (remove #(<= (- q1 fence) % (+ q3 fence)) sorted))}))
+
+(defn- run-benchmark
+  [v {:keys [warmup-iterations iterations iteration-time]}]
+  (log-info (i18n-get-text "vivid.clojure-maven-plugin.action.running-benchmark" (str (var-symbol v))))
+  (try
+    (let [f (var-get v)
+          duration-nanos (* 1000000 (long iteration-time))]
+      (dotimes [_ warmup-iterations]
+        (iteration f duration-nanos))
+      (let [stats (statistics (vec (repeatedly iterations #(iteration f duration-nanos))))]
+        (log-info (i18n-get-text "vivid.clojure-maven-plugin.action.benchmark-summary"
+                                 (str (var-symbol v))
+                                 (format-nanos (:median stats))
+                                 (format-nanos (:mean stats))
+                                 (format-nanos (:stddev stats))
+                                 (str (:outliers stats))
+                                 (str (:iterations stats))))
+        stats))
+    (catch Throwable t
+      (log-error (i18n-get-text "vivid.clojure-maven-plugin.action.benchmark-failed"
+                                (str (var-symbol v)) (str t)))
+      {:error (str t)})))
+
+(defn- run-namespaces
+  "Runs the benchmarks of the namespaces. Returns a map of each benchmark's symbol
+  to its statistics, or to the :error it threw."
+  [namespaces {:keys [selection] :as run-options}]
+  (->> (find-benchmarks namespaces selection)
+       (map (juxt var-symbol #(run-benchmark % run-options)))
+       (into (sorted-map))))
+
+(defn- run-options
+  "The options of run-namespaces, in a form that can be handed to forked JVMs."
+  [^Map options]
+  {:warmup-iterations (.get options "warmup-iterations")
+   :iterations        (.get options "iterations")
+   :iteration-time    (.get options "iteration-time")
+   :selection         {:test   (.get options "benchmark")
+                       :groups "benchmark"}})
+
+
+;
+; Results and the baseline
+;
+
+(defn- read-edn-file
+  [^File f]
+  (when (.isFile f)
+    (clojure.edn/read-string (slurp f))))
+
+(defn- write-edn-file
+  [^File f x]
+  (io/make-parents f)
+  (spit f (binding [*print-namespace-maps* false]
+            (with-out-str (clojure.pprint/pprint x)))))
+
+(defn- results-document
+  [options benchmarks]
+  {:unit              :nanoseconds-per-call
+   :warmup-iterations (.get options "warmup-iterations")
+   :iterations        (.get options "iterations")
+   :iteration-time-ms (.get options "iteration-time")
+   :benchmarks        benchmarks})
+
+(defn- regressed?
+  "Compares the benchmark against the baseline, logging the change.
+  Returns whether the benchmark regressed beyond the threshold.
+  Benchmarks absent from the baseline are new, and can't have regressed."
+  [sym {:keys [median]} baseline-benchmarks threshold]
+  (let [baseline-median (get-in baseline-benchmarks [sym :median])]
+    (if (and (number? baseline-median) (pos? baseline-median))
+      (let [change (* 100.0 (/ (- median baseline-median) baseline-median))
+            regressed (> change threshold)]
+        (if regressed
+          (log-error (i18n-get-text "vivid.clojure-maven-plugin.action.benchmark-regressed"
+                                    (str sym) (format-percent change) (format-percent threshold)
+                                    (format-nanos median) (format-nanos baseline-median)))
+          (log-info (i18n-get-text "vivid.clojure-maven-plugin.action.benchmark-comparison"
+                                   (str sym) (format-percent change)
+                                   (format-nanos median) (format-nanos baseline-median))))
+        regressed)
+      false)))
+
+(defn- conclude
+  "Writes the results, then compares them against the baseline, or makes them the new baseline.
+  Returns a boolean indicating whether all benchmarks ran without regressing."
+  [^Map options benchmarks]
+  (let [results (results-document options benchmarks)
+        results-file (io/file (.get options "results-file"))
+        baseline-file (io/file (.get options "baseline-file"))
+        errors (filter (comp :error val) benchmarks)]
+    (write-edn-file results-file results)
+    (log-info (i18n-get-text "vivid.clojure-maven-plugin.action.wrote" (str results-file)))
+    (cond
+      (.get options "update-baseline")
+      (do
+        (write-edn-file baseline-file results)
+        (log-info (i18n-get-text "vivid.clojure-maven-plugin.action.wrote" (str baseline-file)))
+        (empty? errors))
+
+      (not (.isFile baseline-file))
+      (do
+        (log-info (i18n-get-text "vivid.clojure-maven-plugin.action.no-benchmark-baseline" (str baseline-file)))
+        (empty? errors))
+
+      :else
+      (let [baseline-benchmarks (:benchmarks (read-edn-file baseline-file))
+            threshold (double (.get options "regression-threshold"))
+            regressions (->> benchmarks
+                             (remove (comp :error val))
+                             (filter (fn [[sym stats]] (regressed? sym stats baseline-benchmarks threshold)))
+                             (doall))]
+        (and (empty? errors)
+             (empty? regressions))))))
+
+(defn- found-benchmarks
+  [benchmarks]
+  (when (empty? benchmarks)
+    (log-info (i18n-get-text "vivid.clojure-maven-plugin.action.no-benchmarks-found")))
+  benchmarks)
+
+(defn run-benchmarks
+  "Runs the benchmarks within this JVM, then concludes per conclude.
+  Returns a boolean indicating whether all benchmarks ran without regressing."
+  [mojo ^Map options]
+  (binding [*log* (mojo-log mojo)]
+    (let [benchmarks (found-benchmarks (run-namespaces (find-benchmark-namespaces options)
+                                                       (run-options options)))]
+      (or (empty? benchmarks)
+          (conclude options benchmarks)))))
+
+
+;
+; Forked benchmark runs
+;
+
+(defn- fork-files
+  [work-directory n]
+  (let [dir (io/file work-directory "clojure.bench" "forks" (str "fork-" n))]
+    {:options (io/file dir "options.edn")
+     :results (io/file dir "results.edn")}))
+
+(defn prepare-forks
+  "Writes the options of one forked JVM per benchmark namespace to a file, without
+  loading any of the namespaces. Returns the pathnames of those options files."
+  [mojo ^Map options]
+  (binding [*log* (mojo-log mojo)]
+    (->> (find-benchmark-namespaces options)
+         (found-benchmarks)
+         (map-indexed
+           (fn [n ns-sym]
+             (let [files (fork-files (.get options "work-directory") n)]
+               (io/make-parents (:options files))
+               (io/delete-file (:results files) true)
+               (spit (:options files)
+                     (pr-str (assoc (run-options options)
+                               :namespaces [(str ns-sym)]
+                               :results-filename (str (:results files)))))
+               (str (:options files)))))
+         (doall))))
+
+(defn run-fork
+  "Runs the benchmarks described by the options file within a forked JVM, writing
+  their results for merge-fork-results to pick up.
+  Returns a boolean indicating whether all benchmarks ran."
+  [options-pathname]
+  (binding [*log* (stdio-log)]
+    (let [{:keys [namespaces results-filename] :as run-options} (clojure.edn/read-string (slurp options-pathname))
+          benchmarks (run-namespaces (map symbol namespaces) run-options)]
+      (spit results-filename (pr-str benchmarks))
+      (not-any? :error (vals benchmarks)))))
+
+(defn- read-fork-results
+  [n exit-value {:keys [^File results]}]
+  (if (.isFile results)
+    (clojure.edn/read-string (slurp results))
+    (log-error (i18n-get-text "vivid.clojure-maven-plugin.action.benchmark-fork-without-results"
+                              (str n) (str exit-value)))))
+
+(defn merge-fork-results
+  "Merges the results of each fork, then concludes per conclude.
+  Returns a boolean indicating whether all benchmarks ran in all forks without regressing."
+  [mojo ^Map options ^List exit-values]
+  (binding [*log* (mojo-log mojo)]
+    (let [results (doall (map-indexed
+                           (fn [n exit-value]
+                             (read-fork-results n exit-value (fork-files (.get options "work-directory") n)))
+                           exit-values))
+          benchmarks (into (sorted-map) (apply merge (remove nil? results)))]
+      (and (conclude options benchmarks)
+           (every? some? results)))))
@@ -0,0 +1,10 @@
+(ns vivid.cmp.clojure-bench-worker
+  "Entry point of the JVMs forked by the clojure.bench goal, each running the benchmarks of one namespace."
+  (:require
+    [vivid.cmp.clojure-bench-runner :as runner]))
+
+(defn -main
+  [options-pathname]
+  (let [all-benchmarks-ran (runner/run-fork options-pathname)]
+    (shutdown-agents)
+    (System/exit (if all-benchmarks-ran 0 1))))
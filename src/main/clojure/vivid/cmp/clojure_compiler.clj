@@ -0,0 +1,240 @@
+(ns vivid.cmp.clojure-compiler
+  "Compiles Clojure namespaces ahead of time, independent namespaces in
+  parallel, in the order of the dependency graph of their ns forms.
+
+  In incremental mode, only those namespaces whose sources changed since the
+  last compilation, whose classes are missing, or that depend directly or
+  transitively on such namespaces, are compiled again. As with
+  clojure.core/compile, the namespaces loaded in the course of compiling a
+  namespace, those of libraries included, are compiled too unless their
+  classes are already up to date."
+  (:require
+    [clojure.edn]
+    [clojure.java.io :as io]
+    [clojure.string]
+    [clojure.tools.namespace.file]
+    [vivid.cmp.ns-graph :as ns-graph]
+    [vivid.cmp.test-selector :as test-selector])
+  (:import
+    (java.io File)
+    (java.util Map)
+    (java.util.concurrent ExecutorCompletionService Executors)))
+
+(def ^:dynamic *log*
+  "Map of the :info, :debug and :error logging functions and the :get-text i18n function."
+  nil)
+
+(defn- log
+  [level message]
+  ((get *log* level) message))
+
+(defn- get-text
+  [key & args]
+  (apply (:get-text *log*) key args))
+
+(defn- mojo-log
+  [mojo]
+  {:info     #(.. mojo (getLog) (info %))
+   :debug    #(.. mojo (getLog) (debug %))
+   :error    #(.. mojo (getLog) (error %))
+   :get-text (fn [key & args]
+               (.getText (.i18nContext mojo) key (into-array Object args)))})
+
+
+;
+; Selection
+;
+
+(defn- selector
+  "The selector of namespaces per the comma-separated globs of namespaces to
+  compile and to exclude, in the syntax of the clojure.test goal's test parameter."
+  [^Map options]
+  (test-selector/selector
+    {:test (->> (concat (clojure.string/split (or (.get options "namespaces") "") #",")
+                        (map #(str "!" %)
+                             (remove clojure.string/blank?
+                                     (map clojure.string/trim
+                                          (clojure.string/split (or (.get options "excluded-namespaces") "") #",")))))
+                (remove clojure.string/blank?)
+                (clojure.string/join ","))}))
+
+(defn- selected-namespaces
+  "The namespaces declared by the scanned files that are selected for compilation."
+  [files sel]
+  (set
+    (for [[path {:keys [ns]}] files
+          :let [file (io/file path)]
+          :when (test-selector/select-namespace? sel (clojure.tools.namespace.file/read-file-ns-decl file) file)]
+      ns)))
+
+
+;
+; Incremental state
+;
+
+(defn- state-file
+  [work-directory]
+  (io/file work-directory "incremental" "clojure-compile.edn"))
+
+(defn- read-state
+  [^File f]
+  (when (.isFile f)
+    (try
+      (clojure.edn/read-string (slurp f))
+      (catch Exception _
+        nil))))
+
+(defn- write-state
+  [^File f state]
+  (io/make-parents f)
+  (spit f (pr-str state)))
+
+(defn- class-base
+  "The file, sans suffix, of the classes of the namespace within the directory."
+  ^File [output-directory ns]
+  (io/file output-directory (-> (name ns)
+                                (clojure.string/replace "-" "_")
+                                (clojure.string/replace "." "/"))))
+
+(defn- compiled?
+  [output-directory ns]
+  (.isFile (io/file (str (class-base output-directory ns) "__init.class"))))
+
+(defn- delete-classes
+  "Deletes the namespace's loader class and the classes of its functions, so that
+  compiling it won't load them in place of its source."
+  [output-directory ns]
+  (let [base (class-base output-directory ns)
+        prefix (.getName base)]
+    (doseq [^File f (.listFiles (.getParentFile base))
+            :let [n (.getName f)]
+            :when (or (= n (str prefix "__init.class"))
+                      (clojure.string/starts-with? n (str prefix "$")))]
+      (.delete f))))
+
+
+;
+; Compilation
+;
+
+(defn- compile-one
+  [output-directory ns]
+  (binding [*compile-path* (str output-directory)]
+    (compile ns)))
+
+(defn- preload
+  "Loads the libraries and the up-to-date project namespaces required by the
+  namespaces, one at a time, before the namespaces are compiled concurrently:
+  Clojure doesn't guard against loading the same library from several threads
+  at once."
+  [output-directory libs]
+  (doseq [lib libs
+          :when (not (find-ns lib))]
+    (try
+      (binding [*compile-path* (str output-directory)
+                *compile-files* true]
+        (require lib))
+      (catch Throwable e
+        ; Reported if relevant when compiling the namespace requiring it
+        (log :debug (str "Could not load " lib ": " (.getMessage e)))))))
+
+(defn- compile-in-order
+  "Compiles the namespaces, each once those it depends on per deps have been
+  compiled, running up to thread-count compilations at once. Stops starting
+  new compilations after a failure. Returns a map of the :compiled namespaces
+  and of the :failed namespaces to their exceptions."
+  [output-directory namespaces deps thread-count]
+  (let [executor (Executors/newFixedThreadPool thread-count)
+        completion (ExecutorCompletionService. executor)]
+    (try
+      (loop [waiting (set namespaces)
+             running 0
+             compiled #{}
+             failed {}]
+        (let [ready (when (empty? failed)
+                      (filter #(every? compiled (get deps %)) waiting))]
+          (doseq [ns ready]
+            (.submit completion ^Callable (bound-fn []
+                                            (try
+                                              (compile-one output-directory ns)
+                                              [ns nil]
+                                              (catch Throwable e
+                                                [ns e])))))
+          (let [waiting (reduce disj waiting ready)
+                running (+ running (count ready))]
+            (if (zero? running)
+              {:compiled compiled
+               :failed   failed}
+              (let [[ns e] (.get (.take completion))]
+                (if e
+                  (recur waiting (dec running) compiled (assoc failed ns e))
+                  (recur waiting (dec running) (conj compiled ns) failed)))))))
+      (finally
+        (.shutdown executor)))))
+
+(defn- messages
+  "The messages of the exception and of its causes."
+  [^Throwable e]
+  (->> (iterate #(.getCause ^Throwable %) e)
+       (take-while some?)
+       (keep #(.getMessage ^Throwable %))
+       (distinct)
+       (clojure.string/join ": ")))
+
+(defn compile-namespaces
+  "Compiles the selected namespaces found in the source paths, and the namespaces
+  of the source paths they depend on, into the output directory, with the
+  compiler options given as an EDN map. Returns whether all of them compiled."
+  [mojo ^Map options]
+  (binding [*log* (mojo-log mojo)]
+    (let [output-directory (io/file (.get options "output-directory"))
+          thread-count (let [n (or (.get options "thread-count") 0)]
+                         (if (pos? n) n (.availableProcessors (Runtime/getRuntime))))
+          files (ns-graph/scan (.get options "source-paths"))
+          project-deps (let [all (ns-graph/dependencies files)]
+                         (into {} (for [[ns deps] all]
+                                    [ns (set (filter #(contains? all %) deps))])))
+          targets (ns-graph/transitive-closure project-deps
+                                               (selected-namespaces files (selector options)))
+          state (state-file (.get options "work-directory"))
+          prior (when (.get options "incremental")
+                  (read-state state))
+          compiler-options (clojure.edn/read-string (or (.get options "compiler-options") "{}"))
+          configuration-hash (ns-graph/content-hash
+                               (pr-str [(vec (.get options "classpath")) (str output-directory) compiler-options]))
+          stale (if (or (nil? prior)
+                        (not= configuration-hash (:configuration-hash prior)))
+                  targets
+                  (->> (remove #(compiled? output-directory %) targets)
+                       (into (ns-graph/changed-namespaces (:files prior) files))
+                       (ns-graph/transitive-closure (ns-graph/dependents files))
+                       (filter targets)
+                       (set)))]
+      (log :info (get-text "vivid.clojure-maven-plugin.action.compiling-namespaces"
+                           (str (count stale))
+                           (str (count targets))))
+      (.mkdirs output-directory)
+      (run! #(delete-classes output-directory %) stale)
+      (let [{:keys [compiled failed]} (binding [*compiler-options* (merge *compiler-options* compiler-options)]
+                                        (preload output-directory
+                                                 (let [required (distinct (mapcat (ns-graph/dependencies files) stale))]
+                                                   ; Libraries first, then the project namespaces not compiled anew
+                                                   (concat (remove #(contains? project-deps %) required)
+                                                           (filter #(and (contains? project-deps %)
+                                                                         (not (contains? stale %)))
+                                                                   required))))
+                                        (compile-in-order output-directory
+                                                          stale
+                                                          (into {} (for [ns stale]
+                                                                     [ns (filter stale (get project-deps ns))]))
+                                                          thread-count))
+            not-compiled (remove compiled stale)]
+        (doseq [[ns e] failed]
+          (log :error (get-text "vivid.clojure-maven-plugin.action.compile-failed" (str ns) (messages e))))
+        (when (empty? not-compiled)
+          (when (.get options "incremental")
+            (write-state state {:configuration-hash configuration-hash
+                                :files              files}))
+          (when (seq compiled)
+            (log :debug (str "Compiled: " (clojure.string/join ", " (sort compiled))))))
+        (empty? not-compiled)))))
@@ -1,43 +1,84 @@
 (ns vivid.cmp.clojure-dot-test-runner
   (:require
+    [clojure.edn]
     [clojure.java.io :as io]
+    [clojure.set]
     [clojure.string]
     [clojure.test]
-    [eftest.report]
-    [eftest.report.junit]
+    [clojure.tools.namespace.file]
+    [clojure.tools.namespace.find]
+    [clojure.tools.namespace.parse]
     [eftest.report.pretty]
     [eftest.runner]
-    [io.aviso.ansi])
+    [io.aviso.ansi]
+    [vivid.cmp.junit-report]
+    [vivid.cmp.ns-graph :as ns-graph]
+    [vivid.cmp.test-history :as test-history]
+    [vivid.cmp.test-scheduler]
+    [vivid.cmp.test-selector :as test-selector])
   (:import
-    (java.io Writer)
-    (java.util Map)
-    (vivid.cmp.mojo AbstractCMPMojo)))
+    (java.io File)
+    (java.text MessageFormat)
+    (java.util List Map ResourceBundle)))
 
 
 ; Design notes:
 ;
 ; The behavior of this Maven goal, as is apparent to the user and tooling, is patterned after maven-surefire-plugin.
-
-; TODO See if data.xml can be used to build the JUnit report (rather than eftest.report.junit) to simplify this implementation
+;
+; Tests run either in-process within Maven's JVM (run-tests), or sharded across forked JVMs
+; (prepare-forks, then vivid.cmp.clojure-dot-test-worker within each fork, then merge-fork-results).
+; Forked JVMs have no access to the Maven mojo, so they log to stdout and stderr instead, which
+; the mojo relays to Maven's logger.
+;
+; In incremental mode, only those test namespaces affected by source changes since the last run are
+; run, along with those that failed last time. The namespace dependency graph and content hashes of
+; the prior run are kept in the plugin's work directory.
+;
+; Reporting is single-pass: cmp-report tallies each assertion exactly once, then fans each event out
+; to the report sinks, which see clojure.test's report counters as nil so that their own tallying
+; has no effect. JUnit reports are written per namespace as each namespace finishes.
+;
+; eftest finds the tests, and its pretty-printer logs failures, while vivid.cmp.test-scheduler runs them.
+; The durations and failures of each run are kept as a history in the plugin's work directory, by which
+; the next run orders its tests and balances namespaces across forks.
 
 
 ;
-; Console output via Maven's logger
+; Console output via Maven's logger, or via stdout and stderr within forked JVMs
 ;
 
-(def ^:dynamic *mojo*)
+(def ^:dynamic *log*
+  "Map of the :info and :error logging functions and the :get-text i18n function."
+  nil)
 
 (defn- log-error
   [message]
-  (.. *mojo* (getLog) (error message)))
+  ((:error *log*) message))
 (defn- log-info
   [message]
-  (.. *mojo* (getLog) (info message)))
+  ((:info *log*) message))
 
 (defn i18n-get-text
   [key & args]
-  (let [i18n-context (.i18nContext *mojo*)]
-    (.getText i18n-context key (into-array Object args))))
+  (apply (:get-text *log*) key args))
+
+(defn mojo-log
+  "Logs via the mojo's Maven logger."
+  [mojo]
+  {:info     #(.. mojo (getLog) (info %))
+   :error    #(.. mojo (getLog) (error %))
+   :get-text (fn [key & args]
+               (.getText (.i18nContext mojo) key (into-array Object args)))})
+
+(defn stdio-log
+  "Logs to stdout and stderr, for use where there is no mojo."
+  []
+  (let [bundle (ResourceBundle/getBundle "vivid-clojure-maven-plugin-i18n")]
+    {:info     println
+     :error    #(binding [*out* *err*] (println %))
+     :get-text (fn [key & args]
+                 (MessageFormat/format (.getString bundle key) (into-array Object args)))}))
 
 
 ;
@@ -61,47 +102,13 @@
                          [log-error io.aviso.ansi/bold-red-font])
         summary (format
                   (i18n-get-text "vivid.clojure-maven-plugin.action.end-test-ns-summary-format"
-                                 ; Note: The total assertions, failures, and error counts are
-                                 ; are double-counted as the combined effect of running both
-                                 ; the pretty-printer and the JUnit output reporting functions.
-                                 (str test) (str (/ pass 2)) (str (/ fail 2)) (str (/ error 2))
+                                                 (str test) (str pass) (str fail) (str error)
                                  (pretty-ns (:ns data)))
                   color
                   io.aviso.ansi/reset-font)]
     (log-fn summary)))
 
-
-
-;
-; clojure.test -compatible reporting
-;
-
-(def ^:dynamic *context* nil)
-
-(defmacro with-context-writer [& body]
-  `(let [writer# (get @*context* :writer)]
-     (binding [clojure.test/*test-out* writer#]
-       ~@body)))
-
-(defmulti cmp-report
-          "clojure.test -compatible reporting multi-methods.
-          Results are logged to the console written to a JUnit XML reporting file;
-          both accomplished by delegating to each of 'eftest's respective
-          reporting facilities."
-          :type)
-
-(defmethod cmp-report :default [data]
-  (when (= :begin-test-ns (:type data))
-    (log-info (i18n-get-text "vivid.clojure-maven-plugin.action.running-test"
-                             (pretty-ns (:ns data)))))
-  (when (= :end-test-ns (:type data))
-    (log-end-test-ns-summary data @clojure.test/*report-counters*))
-  (eftest.report.pretty/report data)
-  (with-context-writer
-    (eftest.report.junit/report data)))
-
-(defmethod cmp-report :summary [{:keys [test pass fail error duration] :as data}]
-  ; Handles the :summary type on our own, preventing eftest's own reporters from printing a summary.
+(defn log-end-test-run-summary [{:keys [test pass fail error duration]}]
   (let [total (+ pass fail error)
         all-tests-passed (= pass total)
         [log-fn color] (if all-tests-passed
@@ -112,11 +119,7 @@
                  ""
                  (format
                    (i18n-get-text "vivid.clojure-maven-plugin.action.end-test-run-summary-format"
-                                  (str test)
-                                  ; Note: The total assertions, failures, and error counts are
-                                  ; are double-counted as the combined effect of running both
-                                  ; the pretty-printer and the JUnit output reporting functions.
-                                  (str (/ total 2)) (str(/ fail 2)) (str (/ error 2))
+                                  (str test) (str total) (str fail) (str error)
                                   (format-interval duration))
                    color
                    io.aviso.ansi/reset-font)
@@ -125,9 +128,55 @@
       ; Ensure at least one blank line separates the non-passing
       ; test output and the summary body using Maven's log.
       (println))
-    (doall (map log-fn summary)))
-  (with-context-writer
-    (eftest.report.junit/report data)))
+    (doall (map log-fn summary))))
+
+
+
+;
+; clojure.test -compatible reporting
+;
+
+(def ^:dynamic *context*
+  "Atom of the state of the test run: the report :sinks and the :failed-namespaces."
+  nil)
+
+(defn- pretty-sink
+  "Logs failures and errors to the console by way of eftest's pretty-printer."
+  [data]
+  ; The run summary is logged by cmp-report instead.
+  (when-not (= :summary (:type data))
+    (eftest.report.pretty/report data)))
+
+(defn- fan-out
+  [data]
+  (binding [clojure.test/*report-counters* nil]
+    (doseq [sink (:sinks @*context*)]
+      (sink data))))
+
+(defn cmp-report
+  "clojure.test -compatible reporting function.
+  Tallies each assertion exactly once and logs progress, then hands the event
+  to each of the report sinks: the console and the JUnit XML reports."
+  [{:keys [type] :as data}]
+  (case type
+    (:pass :fail :error)
+    (clojure.test/inc-report-counter type)
+
+    :begin-test-ns
+    (log-info (i18n-get-text "vivid.clojure-maven-plugin.action.running-test"
+                             (pretty-ns (:ns data))))
+
+    :end-test-ns
+    (let [{:keys [fail error] :as counters} @clojure.test/*report-counters*]
+      (log-end-test-ns-summary data counters)
+      (when (pos? (+ fail error))
+        (swap! *context* update :failed-namespaces conj (ns-name (:ns data)))))
+
+    :summary
+    (log-end-test-run-summary data)
+
+    nil)
+  (fan-out data))
 
 ;
 ; Test runner
@@ -149,22 +198,242 @@
       (= pass total))
     true))
 
+(defn find-test-namespaces
+  "Symbols of the namespaces declared by the sources within the test paths
+  that the selector might select tests of, found without loading any of them."
+  [test-paths selector]
+  (->> test-paths
+       (map io/file)
+       (mapcat clojure.tools.namespace.find/find-sources-in-dir)
+       (keep (fn [file]
+               (when-let [decl (clojure.tools.namespace.file/read-file-ns-decl file)]
+                 (when (test-selector/select-namespace? selector decl file)
+                   (clojure.tools.namespace.parse/name-from-ns-decl decl)))))
+       (distinct)))
+
+(defn- selection
+  "The test selection options, in a form that can be handed to forked JVMs."
+  [^Map options]
+  {:test            (.get options "test")
+   :groups          (.get options "groups")
+   :excluded-groups (.get options "excluded-groups")})
+
+(defn- history-file
+  ^File [^Map options]
+  (io/file (.get options "work-directory") "test-history.edn"))
+
+(defn- run-namespaces
+  "Runs the tests of the namespaces in the order given by the test history,
+  writing their results as JUnit XML reports into the reports directory.
+  Returns eftest's summary of the results along with the :failed-namespaces
+  and the :history recorded of this run, or nil if no tests were found."
+  [namespaces {:keys [reports-directory scheduling run-order history-filename selection]}]
+  (let [recorder (test-history/recorder)
+        selector (test-selector/selector selection)]
+    (binding [*context* (atom {:sinks             [pretty-sink
+                                                   (vivid.cmp.junit-report/sink reports-directory)
+                                                   (test-history/sink recorder)]
+                               :failed-namespaces #{}})]
+      (when-let [vars (->> (eftest.runner/find-tests (vec namespaces))
+                           (filter #(test-selector/select-var? selector %))
+                           (found-tests)
+                           (seq))]
+        (let [results (vivid.cmp.test-scheduler/run-tests
+                        (test-history/order-vars (test-history/read-history (io/file history-filename))
+                                                 run-order
+                                                 vars)
+                        (assoc scheduling
+                          :report cmp-report
+                          :warn #(log-error (i18n-get-text "vivid.clojure-maven-plugin.action.virtual-threads-unavailable"))))
+              failed-namespaces (:failed-namespaces @*context*)]
+          (assoc results
+            :failed-namespaces failed-namespaces
+            :history (test-history/recorded recorder failed-namespaces)))))))
+
+(defn- run-options
+  "The options of run-namespaces, in a form that can be handed to forked JVMs."
+  [^Map options]
+  {:reports-directory (.get options "reports-directory")
+   :scheduling        {:parallel-namespaces (boolean (.get options "parallel-namespaces"))
+                       :parallel-vars       (boolean (.get options "parallel-vars"))
+                       :thread-count        (or (.get options "thread-count") 0)
+                       :virtual-threads     (boolean (.get options "virtual-threads"))}
+   :run-order         (or (.get options "run-order") "filesystem")
+   :history-filename  (str (history-file options))
+   :selection         (selection options)})
+
+
+;
+; Incremental test selection
+;
+
+(defn- incremental-state-files
+  [work-directory]
+  {:committed (io/file work-directory "incremental" "clojure-test.edn")
+   :pending   (io/file work-directory "incremental" "clojure-test.pending.edn")})
+
+(defn- read-edn-file
+  [^File f]
+  (when (.isFile f)
+    (clojure.edn/read-string (slurp f))))
+
+(defn- write-edn-file
+  [^File f x]
+  (io/make-parents f)
+  (spit f (pr-str x)))
+
+(defn select-test-namespaces
+  "The test namespaces to run, found without loading any of them.
+  In incremental mode, only those test namespaces that transitively depend on
+  sources that changed since the last run, plus those that failed in the last run.
+  A full run happens regardless when requested, when there is no record of a
+  prior run, or when the classpath or test selection differs from that of the
+  prior run.
+  The state of this run is set aside until commit-test-selection records its outcome."
+  [^Map options]
+  (let [test-namespaces (find-test-namespaces (.get options "test-paths")
+                                              (test-selector/selector (selection options)))]
+    (if-not (.get options "incremental")
+      test-namespaces
+      (let [{:keys [committed pending]} (incremental-state-files (.get options "work-directory"))
+            prior (read-edn-file committed)
+            files (ns-graph/scan (concat (.get options "source-paths")
+                                         (.get options "test-paths")))
+            configuration-hash (ns-graph/content-hash
+                                 (pr-str [(vec (.get options "classpath")) (selection options)]))
+            selected (if (or (.get options "full-run")
+                             (nil? prior)
+                             (not= configuration-hash (:configuration-hash prior)))
+                       test-namespaces
+                       (let [affected (ns-graph/transitive-closure
+                                        (ns-graph/dependents files)
+                                        (ns-graph/changed-namespaces (:files prior) files))]
+                         (filter (into affected (:failed prior)) test-namespaces)))]
+        (log-info (i18n-get-text "vivid.clojure-maven-plugin.action.incremental-selection"
+                                 (str (count selected))
+                                 (str (count test-namespaces))))
+        (write-edn-file pending {:configuration-hash configuration-hash
+                                 :files              files
+                                 :selected           (set selected)
+                                 :failed             (set (:failed prior))})
+        selected))))
+
+(defn commit-test-selection
+  "Records the outcome of an incremental test run as the basis of the next one.
+  Failures of namespaces that were not run this time are carried forward."
+  [^Map options failed-namespaces]
+  (when (.get options "incremental")
+    (let [{:keys [committed pending]} (incremental-state-files (.get options "work-directory"))]
+      (when-let [{:keys [files selected failed] :as state} (read-edn-file pending)]
+        (write-edn-file committed
+                        (-> state
+                            (dissoc :selected)
+                            (assoc :failed (-> (set (remove selected failed))
+                                               (into failed-namespaces)
+                                               (clojure.set/intersection
+                                                 (set (map :ns (vals files))))))))
+        (io/delete-file pending true)))))
+
+(defn- record-history
+  "Adds the histories recorded by test runs to the test history."
+  [^Map options records]
+  (let [f (history-file options)]
+    (test-history/write-history f (apply test-history/merge-histories
+                                         (test-history/read-history f)
+                                         records))))
+
 (defn run-tests
   "Run tests compatible with clojure.test.
   Returns a boolean indicating whether all tests have passed."
-  [^AbstractCMPMojo mojo ^Map options]
-  (binding [*context* (atom {})
-            *mojo* mojo]
-    (let [junit-report-pathname (.get options "junit-report-filename")
-          multithread (.get options "multithread")]
-      (io/make-parents (io/file junit-report-pathname))
-      (swap! *context* assoc :writer (io/writer junit-report-pathname))
-      (let [results (some-> (eftest.runner/find-tests "src/test/clojure")    ; TODO pass path in options
-                            (found-tests)
-                            (eftest.runner/run-tests {:capture-output? false ; TODO pass as configuration parameter
-                                                      :multithread? multithread
-                                                      :report cmp-report}))
-            writer ^Writer (get @*context* :writer)]
-        (.close writer)
-        (swap! *context* dissoc :writer)
-        (all-tests-passed? results)))))
+  [mojo ^Map options]
+  (binding [*log* (mojo-log mojo)]
+    (let [results (run-namespaces (select-test-namespaces options)
+                                  (run-options options))]
+      (when results
+        (record-history options [(:history results)]))
+      (commit-test-selection options (:failed-namespaces results))
+      (all-tests-passed? results))))
+
+
+;
+; Forked test runs
+;
+
+(def ^:private empty-summary
+  {:test 0 :pass 0 :fail 0 :error 0 :duration 0})
+
+(defn- fork-directory
+  ^File [work-directory n]
+  (io/file work-directory "forks" (str "fork-" n)))
+
+(defn- fork-files
+  [work-directory n]
+  (let [dir (fork-directory work-directory n)]
+    {:options (io/file dir "options.edn")
+     :summary (io/file dir "summary.edn")}))
+
+(defn prepare-forks
+  "Shards the test namespaces across at most fork-count forked JVMs, writing the
+  options of each fork to a file without loading any of the namespaces.
+  Returns the pathnames of those options files, one per fork."
+  [mojo ^Map options]
+  (binding [*log* (mojo-log mojo)]
+    (let [work-directory (.get options "work-directory")]
+      (->> (select-test-namespaces options)
+           (found-tests)
+           (test-history/pack (test-history/read-history (history-file options))
+                              (.get options "fork-count"))
+           (map-indexed
+             (fn [n namespaces]
+               (let [files (fork-files work-directory n)]
+                 (io/make-parents (:options files))
+                 (io/delete-file (:summary files) true)
+                 (spit (:options files)
+                       (pr-str (assoc (run-options options)
+                                 :namespaces (mapv str namespaces)
+                                 :summary-filename (str (:summary files)))))
+                 (str (:options files)))))
+           (doall)))))
+
+(defn run-fork
+  "Runs the shard of tests described by the options file within a forked JVM.
+  Writes a summary of the results for merge-fork-results to pick up.
+  Returns a boolean indicating whether all tests have passed."
+  [options-pathname]
+  (binding [*log* (stdio-log)]
+    (let [{:keys [namespaces summary-filename] :as run-options} (clojure.edn/read-string (slurp options-pathname))
+          results (run-namespaces (map symbol namespaces) run-options)]
+      (spit summary-filename
+            (pr-str (-> empty-summary
+                        (merge (select-keys results (keys empty-summary)))
+                        (assoc :failed-namespaces (mapv str (:failed-namespaces results))
+                               :history (:history results)))))
+      (all-tests-passed? results))))
+
+(defn- read-fork-summary
+  [n exit-value {:keys [^File summary]}]
+  (if (.isFile summary)
+    (clojure.edn/read-string (slurp summary))
+    (log-error (i18n-get-text "vivid.clojure-maven-plugin.action.fork-without-results"
+                              (str n) (str exit-value)))))
+
+(defn merge-fork-results
+  "Merges the results summaries of each fork into a single result.
+  Returns a boolean indicating whether all tests have passed in all forks."
+  [mojo ^Map options ^List exit-values]
+  (binding [*log* (mojo-log mojo)]
+    (let [forks (map-indexed
+                  (fn [n exit-value]
+                    [n exit-value (fork-files (.get options "work-directory") n)])
+                  exit-values)
+          summaries (doall (map #(apply read-fork-summary %) forks))
+          results (-> (reduce #(merge-with + %1 (dissoc %2 :failed-namespaces :history))
+                              empty-summary
+                              (remove nil? summaries))
+                      (assoc :duration (.get options "duration")))]
+      (log-end-test-run-summary results)
+      (record-history options (keep :history summaries))
+      (when (every? some? summaries)
+        (commit-test-selection options (map symbol (mapcat :failed-namespaces summaries))))
+      (and (every? some? summaries)
+           (all-tests-passed? results)))))
@@ -0,0 +1,10 @@
+(ns vivid.cmp.clojure-dot-test-worker
+  "Entry point of the JVMs forked by the clojure.test goal, each running one shard of the tests."
+  (:require
+    [vivid.cmp.clojure-dot-test-runner :as runner]))
+
+(defn -main
+  [options-pathname]
+  (let [all-tests-passed (runner/run-fork options-pathname)]
+    (shutdown-agents)
+    (System/exit (if all-tests-passed 0 1))))
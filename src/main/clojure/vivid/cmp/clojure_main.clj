@@ -0,0 +1,35 @@
+(ns vivid.cmp.clojure-main
+  "Runs clojure.main within Maven's JVM on behalf of the clojure goal, as it would
+  run in a JVM of its own: its output is written to the given writers, and
+  System/exit ends the run with the exit status rather than ending Maven.
+
+  Runs within a Clojure runtime lent to no other execution meanwhile, so
+  redefining vars affects no concurrent execution."
+  (:require
+    [clojure.edn]
+    [clojure.main])
+  (:import
+    (java.io Writer)
+    (java.util.function Function)))
+
+(defn main
+  "Runs clojure.main with the args, binding *out* and *err* to the writers and
+  *compiler-options* to those given as an EDN map. exit-status is a function of
+  a throwable to the status of the System/exit it stands for, if any.
+  Returns the exit status."
+  [args ^Writer out ^Writer err compiler-options ^Function exit-status]
+  (binding [*out* out
+            *err* err
+            *compiler-options* (merge *compiler-options* (clojure.edn/read-string compiler-options))]
+    (try
+      ; Agents outlive the run, their thread pools being those of the runtime
+      (with-redefs [shutdown-agents (fn [])]
+        (apply clojure.main/main args))
+      0
+      (catch Throwable t
+        (if-some [status (.apply exit-status t)]
+          status
+          (throw t)))
+      (finally
+        (.flush out)
+        (.flush err)))))
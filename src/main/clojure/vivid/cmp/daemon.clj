@@ -0,0 +1,237 @@
+(ns vivid.cmp.daemon
+  "A warm JVM running clojure.main on behalf of the clojure goal executions of
+  any number of Maven invocations, served over a prepl on the loopback interface.
+
+  The JVM's classpath holds the jars of the project's classpath, whose
+  namespaces stay loaded from one run to the next. The directories of the
+  project's classpath, such as its source paths, are given anew with each run,
+  and the namespaces loaded from them are forgotten once the run finishes, so
+  that each run sees the current state of the project's sources.
+
+  Connections authenticate by sending the token written to the state file,
+  readable only by its owner, as their first line. Runs are serialized. The
+  daemon exits once idle for longer than its idle timeout, or when told to."
+  (:require
+    [clojure.core.server :as server]
+    [clojure.java.io :as io]
+    [clojure.main])
+  (:import
+    (clojure.lang Compiler DynamicClassLoader)
+    (java.io File Writer)
+    (java.net URL URLClassLoader)
+    (java.nio.file Files StandardCopyOption)
+    (java.nio.file.attribute PosixFilePermissions)
+    (java.util UUID)))
+
+(def ^:private libs-ref @#'clojure.core/*loaded-libs*)
+
+(def ^:private run-lock (Object.))
+
+(def ^:private last-active (atom (System/currentTimeMillis)))
+
+(def ^:private state
+  "The daemon's state file and token."
+  (atom nil))
+
+(def ^:private exiting
+  "Whether the daemon itself is exiting, which System/exit and Runtime/halt then may."
+  (atom false))
+
+(def ^:private ^ThreadLocal requested-exit
+  "The atom recording the status of the first System/exit of the run on the thread."
+  (ThreadLocal.))
+
+
+;
+; System/exit
+;
+
+(defn- intercept-exit!
+  "Turns System/exit into an exception, so that no run ends the daemon."
+  []
+  (System/setSecurityManager
+    (proxy [SecurityManager] []
+      (checkExit [status]
+        (when-not @exiting
+          (when-let [exit (.get requested-exit)]
+            (compare-and-set! exit nil status))
+          (throw (ex-info (str "System/exit " status " intercepted") {::exit status}))))
+      (checkPermission
+        ([_])
+        ([_ _])))))
+
+(defn- exit-status
+  [^Throwable t]
+  (some #(::exit (ex-data %))
+        (take-while some? (iterate #(.getCause ^Throwable %) t))))
+
+(defn- until-exit
+  "A writer writing to w until the run requests to exit, output following
+  System/exit being discarded as it would be were the JVM to exit."
+  ^Writer [^Writer w exit]
+  (proxy [Writer] []
+    (write
+      ([x]
+       (when-not @exit
+         (cond
+           (string? x) (.write w ^String x)
+           (integer? x) (.write w (int x))
+           :else (.write w ^chars x))))
+      ([x off len]
+       (when-not @exit
+         (if (string? x)
+           (.write w ^String x (int off) (int len))
+           (.write w ^chars x (int off) (int len))))))
+    (flush []
+      (.flush w))
+    (close []
+      (.flush w))))
+
+
+;
+; Runs
+;
+
+(defn- on-jar-classpath?
+  "Whether the namespace's code comes from the daemon's own classpath."
+  [ns-sym]
+  (let [root (.substring ^String (#'clojure.core/root-resource ns-sym) 1)
+        loader (ClassLoader/getSystemClassLoader)]
+    (some #(.getResource loader (str root %))
+          ["__init.class" ".clj" ".cljc"])))
+
+(defn- forget-namespaces
+  "Removes the namespaces loaded since the baseline other than those of the
+  daemon's own classpath, so that the next run loads them afresh."
+  [baseline]
+  (let [forgotten (for [n (map ns-name (all-ns))
+                        :when (and (not (contains? baseline n))
+                                   (not (on-jar-classpath? n)))]
+                    n)]
+    (run! remove-ns forgotten)
+    (dosync
+      (alter libs-ref #(apply disj % forgotten)))))
+
+(defn run
+  "Runs clojure.main with the args, the directories added to the classpath for
+  this run only, and the compiler options merged into *compiler-options*.
+  Returns the exit status."
+  [directories args compiler-options]
+  (locking run-lock
+    (let [thread (Thread/currentThread)
+          prior-loader (.getContextClassLoader thread)
+          loader (URLClassLoader. (into-array URL (map #(.toURL (.toURI (io/file %))) directories))
+                                  (ClassLoader/getSystemClassLoader))
+          baseline (set (map ns-name (all-ns)))
+          exit (atom nil)]
+      (reset! last-active (System/currentTimeMillis))
+      (.set requested-exit exit)
+      (.setContextClassLoader thread loader)
+      (try
+        (let [status (with-bindings {Compiler/LOADER (DynamicClassLoader. loader)}
+                       (binding [*out* (until-exit *out* exit)
+                                 *err* (until-exit *err* exit)
+                                 *compiler-options* (merge *compiler-options* compiler-options)]
+                         (try
+                           ; Agents outlive the run, their thread pools being those of the daemon
+                           (with-redefs [shutdown-agents (fn [])]
+                             (apply clojure.main/main args))
+                           0
+                           (catch Throwable t
+                             (if-some [status (exit-status t)]
+                               status
+                               (throw t)))
+                           (finally
+                             (flush)
+                             (binding [*out* *err*]
+                               (flush))))))]
+          (or @exit status))
+        (finally
+          (.remove requested-exit)
+          (.setContextClassLoader thread prior-loader)
+          (forget-namespaces baseline)
+          (.close loader)
+          (reset! last-active (System/currentTimeMillis)))))))
+
+(defn- own-state-file?
+  "Whether the state file is still this daemon's, rather than removed or replaced
+  by that of another daemon."
+  []
+  (let [{:keys [^File file token]} @state]
+    (try
+      (.contains ^String (slurp file) (str "token=" token))
+      (catch Exception _
+        false))))
+
+(defn- exit!
+  []
+  (when (own-state-file?)
+    (.delete ^File (:file @state)))
+  (reset! exiting true)
+  (.halt (Runtime/getRuntime) 0))
+
+(defn shutdown
+  "Exits the daemon once the run in progress, if any, finishes."
+  []
+  (future
+    (locking run-lock
+      (exit!)))
+  :shutting-down)
+
+
+;
+; Serving
+;
+
+(defn accept
+  "Serves a prepl to a connection whose first line is the token, and closes any other."
+  [token]
+  (when (= token (read-line))
+    (server/io-prepl)))
+
+(defn- write-state!
+  "Writes the port and token to the state file, readable only by its owner, moved
+  into place once complete so that clients never read a partial file."
+  [^File f port token]
+  (let [temp (File. (.getParentFile f) (str (.getName f) ".tmp"))]
+    (spit temp "")
+    (when (.contains (.supportedFileAttributeViews (.getFileSystem (.toPath temp))) "posix")
+      (Files/setPosixFilePermissions (.toPath temp) (PosixFilePermissions/fromString "rw-------")))
+    (spit temp (str "port=" port "\ntoken=" token "\n"))
+    (Files/move (.toPath temp) (.toPath f) (into-array [StandardCopyOption/REPLACE_EXISTING
+                                                        StandardCopyOption/ATOMIC_MOVE]))))
+
+(defn- watch-idleness
+  [idle-millis]
+  (doto (Thread. ^Runnable
+                 (fn []
+                   (loop []
+                     (Thread/sleep 1000)
+                     (when (or (not (own-state-file?))
+                               (> (- (System/currentTimeMillis) @last-active) idle-millis))
+                       (locking run-lock
+                         ; Clients remove the state file of a daemon that stopped responding
+                         (when (or (not (own-state-file?))
+                                   (> (- (System/currentTimeMillis) @last-active) idle-millis))
+                           (exit!))))
+                     (recur)))
+                 "vivid.cmp.daemon idleness")
+    (.setDaemon true)
+    (.start)))
+
+(defn -main
+  "Serves on an ephemeral loopback port written, with a fresh token, to the state
+  file, until idle for longer than the idle timeout in seconds."
+  [state-file-path idle-timeout-seconds]
+  (intercept-exit!)
+  (let [f (io/file state-file-path)
+        token (str (UUID/randomUUID))
+        socket (server/start-server {:name          "vivid.cmp.daemon"
+                                     :port          0
+                                     :address       "127.0.0.1"
+                                     :accept        `accept
+                                     :args          [token]
+                                     :server-daemon false})]
+    (reset! state {:file f :token token})
+    (write-state! f (.getLocalPort socket) token)
+    (watch-idleness (* 1000 (Long/parseLong idle-timeout-seconds)))))
@@ -0,0 +1,152 @@
+(ns vivid.cmp.junit-report
+  "A clojure.test report sink writing one surefire-style TEST-<ns>.xml JUnit
+  report per namespace, each as soon as its namespace finishes. Only the
+  results of namespaces still running are held in memory, and the reports of
+  finished namespaces survive a crash of the test run."
+  (:require
+    [clojure.java.io :as io]
+    [clojure.stacktrace]
+    [clojure.test])
+  (:import
+    (java.io File)
+    (java.nio.file CopyOption Files StandardCopyOption)
+    (java.time Instant)
+    (javax.xml.stream XMLOutputFactory XMLStreamWriter)))
+
+(def ^:private fixtures-testcase-name
+  "Names the testcase of assertions made outside of any test var, such as by fixtures."
+  "(fixtures)")
+
+(def ^:private ^ThreadLocal current-ns
+  "The namespace whose tests are running on this thread, for attributing assertions
+  made outside of any test var."
+  (ThreadLocal.))
+
+(defn- elapsed-seconds
+  [start-nanos end-nanos]
+  (format "%.3f" (double (/ (- end-nanos start-nanos) 1e9))))
+
+(defn- event-key
+  "The namespace name and testcase name that the assertion belongs to."
+  []
+  (if-let [v (first clojure.test/*testing-vars*)]
+    [(ns-name (:ns (meta v))) (name (:name (meta v)))]
+    [(.get current-ns) fixtures-testcase-name]))
+
+(defn- update-suite
+  "Updates the suite of the namespace, ignoring events of namespaces not running."
+  [suites ns-sym f & args]
+  (if (contains? suites ns-sym)
+    (apply update suites ns-sym f args)
+    suites))
+
+(defn- pr-value
+  [x]
+  (binding [*print-length* 100
+            *print-level* 10]
+    (pr-str x)))
+
+(defn- failure-detail
+  [{:keys [type message expected actual file line]}]
+  (let [text (str (when (or file line)
+                    (str "at " file ":" line "\n"))
+                  (when (seq clojure.test/*testing-contexts*)
+                    (str (clojure.test/testing-contexts-str) "\n"))
+                  "expected: " (pr-value expected) "\n"
+                  (if (and (= :error type) (instance? Throwable actual))
+                    (with-out-str (clojure.stacktrace/print-cause-trace actual))
+                    (str "  actual: " (pr-value actual))))]
+    {:element (if (= :error type) "error" "failure")
+     :message (or message "")
+     :type    (if (instance? Throwable actual)
+                (.getName (class actual))
+                "assertion")
+     :text    text}))
+
+(defn- write-testsuite
+  "Writes the report of the finished namespace, first to a temporary file
+  which then atomically replaces any prior report."
+  [^File reports-directory ns-sym {:keys [start timestamp testcases]} end]
+  (let [report (io/file reports-directory (str "TEST-" ns-sym ".xml"))
+        temp (io/file reports-directory (str "TEST-" ns-sym ".xml.tmp"))
+        cases (sort-by key testcases)
+        errors (count (filter #(some (comp #{"error"} :element) (:details (val %))) cases))
+        failures (count (filter #(and (not-any? (comp #{"error"} :element) (:details (val %)))
+                                      (seq (:details (val %))))
+                                cases))]
+    (.mkdirs reports-directory)
+    (with-open [out (io/output-stream temp)]
+      (let [^XMLStreamWriter w (.createXMLStreamWriter (XMLOutputFactory/newInstance) out "UTF-8")]
+        (.writeStartDocument w "UTF-8" "1.0")
+        (.writeCharacters w "\n")
+        (.writeStartElement w "testsuite")
+        (.writeAttribute w "name" (str ns-sym))
+        (.writeAttribute w "tests" (str (count cases)))
+        (.writeAttribute w "failures" (str failures))
+        (.writeAttribute w "errors" (str errors))
+        (.writeAttribute w "skipped" "0")
+        (.writeAttribute w "time" (elapsed-seconds start end))
+        (.writeAttribute w "timestamp" (str timestamp))
+        (doseq [[case-name {case-start :start case-end :end details :details}] cases]
+          (.writeCharacters w "\n  ")
+          (.writeStartElement w "testcase")
+          (.writeAttribute w "name" case-name)
+          (.writeAttribute w "classname" (str ns-sym))
+          (.writeAttribute w "time" (elapsed-seconds (or case-start start) (or case-end case-start end)))
+          (doseq [{:keys [element message type text]} details]
+            (.writeCharacters w "\n    ")
+            (.writeStartElement w element)
+            (.writeAttribute w "message" message)
+            (.writeAttribute w "type" type)
+            (.writeCharacters w text)
+            (.writeEndElement w))
+          (when (seq details)
+            (.writeCharacters w "\n  "))
+          (.writeEndElement w))
+        (.writeCharacters w "\n")
+        (.writeEndElement w)
+        (.writeCharacters w "\n")
+        (.writeEndDocument w)
+        (.close w)))
+    (Files/move (.toPath temp)
+                (.toPath report)
+                (into-array CopyOption [StandardCopyOption/REPLACE_EXISTING
+                                        StandardCopyOption/ATOMIC_MOVE]))))
+
+(defn sink
+  "Returns a report sink writing into the reports directory.
+  The sink accepts clojure.test report events, and is safe to call
+  concurrently from tests running in parallel."
+  [reports-directory]
+  (let [reports-directory (io/file reports-directory)
+        suites (atom {})]
+    (fn [{:keys [type] :as data}]
+      (case type
+        :begin-test-ns
+        (let [ns-sym (ns-name (:ns data))]
+          (.set current-ns ns-sym)
+          (swap! suites assoc ns-sym {:start     (System/nanoTime)
+                                      :timestamp (Instant/now)
+                                      :testcases {}}))
+
+        :end-test-ns
+        (let [ns-sym (ns-name (:ns data))
+              end (System/nanoTime)
+              [old _] (swap-vals! suites dissoc ns-sym)]
+          (.remove current-ns)
+          (when-let [suite (get old ns-sym)]
+            (write-testsuite reports-directory ns-sym suite end)))
+
+        (:begin-test-var :end-test-var)
+        (let [m (meta (:var data))
+              time-key (if (= :begin-test-var type) :start :end)]
+          (swap! suites update-suite (ns-name (:ns m))
+                 assoc-in [:testcases (name (:name m)) time-key] (System/nanoTime)))
+
+        (:fail :error)
+        (let [[ns-sym case-name] (event-key)
+              detail (failure-detail data)]
+          (swap! suites update-suite ns-sym
+                 update-in [:testcases case-name :details] (fnil conj []) detail))
+
+        nil))))
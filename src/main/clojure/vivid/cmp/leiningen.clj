@@ -11,10 +11,18 @@
                      {:exit-code exit-code :suppress-msg (empty? msg)}))))
   ([] (exit 0)))
 
-(defn lein-main [debug? args]
-  (let [raw-args (re-seq #"[^\s]+" args)]
-    (when debug?
-      (alter-var-root #'lein/*debug* (constantly true)))
+(defn lein-main
+  "Runs Leiningen on the project in the cwd directory, without changing the JVM's
+  working directory. Runs within a Clojure runtime lent to no other execution
+  meanwhile, so altering the roots of Leiningen's vars affects no concurrent
+  execution. They are set anew on each run, as the runtime may be reused."
+  [debug? args cwd]
+  (let [raw-args (re-seq #"[^\s]+" args)
+        cwd-var (or (resolve 'leiningen.core.main/*cwd*)
+                    (throw (ex-info "This version of Leiningen doesn't support running within a given directory (leiningen.core.main/*cwd*); please use a newer version"
+                                    {:cwd cwd})))]
+    (alter-var-root #'lein/*debug* (constantly (boolean debug?)))
     (alter-var-root #'lein/*exit-process?* (constantly false))
-    (with-redefs [lein/exit exit]
-      (apply lein/-main raw-args))))
+    (with-bindings {cwd-var cwd}
+      (with-redefs [lein/exit exit]
+        (apply lein/-main raw-args)))))
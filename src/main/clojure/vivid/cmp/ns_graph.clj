@@ -0,0 +1,79 @@
+(ns vivid.cmp.ns-graph
+  "The dependency graph of the namespaces declared by Clojure source files,
+  learned by reading their ns forms without loading any of them."
+  (:require
+    [clojure.java.io :as io]
+    [clojure.set]
+    [clojure.tools.namespace.file]
+    [clojure.tools.namespace.find]
+    [clojure.tools.namespace.parse])
+  (:import
+    (java.io File)
+    (java.nio.file Files)
+    (java.security MessageDigest)))
+
+(defn content-hash
+  "Hex-encoded SHA-256 digest of the bytes of the file, or of the string."
+  [x]
+  (let [bytes (if (instance? File x)
+                (Files/readAllBytes (.toPath ^File x))
+                (.getBytes (str x) "UTF-8"))]
+    (->> (.digest (MessageDigest/getInstance "SHA-256") bytes)
+         (map #(format "%02x" %))
+         (apply str))))
+
+(defn scan
+  "Describes each Clojure source file within the directories, keyed by its
+  pathname: the namespace it declares, the namespaces it depends on, and
+  a hash of its content. Files lacking an ns form are omitted."
+  [dirs]
+  (into {}
+        (for [dir dirs
+              ^File file (clojure.tools.namespace.find/find-sources-in-dir (io/file dir))
+              :let [decl (clojure.tools.namespace.file/read-file-ns-decl file)]
+              :when decl]
+          [(.getPath file)
+           {:ns   (clojure.tools.namespace.parse/name-from-ns-decl decl)
+            :deps (clojure.tools.namespace.parse/deps-from-ns-decl decl)
+            :hash (content-hash file)}])))
+
+(defn dependencies
+  "Map of each namespace to the set of namespaces it depends on."
+  [files]
+  (reduce (fn [m {:keys [ns deps]}]
+            (update m ns (fnil into #{}) deps))
+          {}
+          (vals files)))
+
+(defn dependents
+  "Map of each namespace to the set of namespaces depending on it."
+  [files]
+  (reduce (fn [m [ns deps]]
+            (reduce #(update %1 %2 (fnil conj #{}) ns) m deps))
+          {}
+          (dependencies files)))
+
+(defn transitive-closure
+  "The namespaces plus all namespaces reachable from them via the edges,
+  a map of namespace to a set of namespaces."
+  [edges namespaces]
+  (loop [seen (set namespaces)
+         pending (seq namespaces)]
+    (if-let [[ns & more] pending]
+      (let [new (remove seen (get edges ns))]
+        (recur (into seen new) (seq (concat more new))))
+      seen)))
+
+(defn changed-namespaces
+  "Namespaces declared by files that are new, removed, or whose content differs
+  between the prior and current scans."
+  [prior-files files]
+  (set
+    (concat
+      (for [[path {:keys [ns hash]}] files
+            :when (not= hash (get-in prior-files [path :hash]))
+            ns (distinct (remove nil? [ns (get-in prior-files [path :ns])]))]
+        ns)
+      (for [[path {:keys [ns]}] prior-files
+            :when (not (contains? files path))]
+        ns))))
@@ -0,0 +1,29 @@
+;; Loaded by `clojure.main -i` ahead of the arguments of a clojure goal sub-process
+;; accounting for its resources. As the JVM shuts down, writes the JVM's own CPU and
+;; garbage collection times to the properties file named by the system property
+;; vivid.cmp.resource-usage.
+;;
+;; Deliberately not a namespace and defining no vars, so that the arguments that
+;; follow evaluate in the same namespace, with the same vars, as they would without.
+
+(let [file (System/getProperty "vivid.cmp.resource-usage")]
+  (when file
+    (.addShutdownHook
+      (Runtime/getRuntime)
+      (Thread.
+        ^Runnable
+        (fn []
+          (let [cpu-nanos (try
+                            ;; Read as an MBean attribute, as the interface declaring it
+                            ;; is specific to HotSpot and may be absent
+                            (.getAttribute (java.lang.management.ManagementFactory/getPlatformMBeanServer)
+                                           (javax.management.ObjectName. "java.lang:type=OperatingSystem")
+                                           "ProcessCpuTime")
+                            (catch Exception _ nil))
+                gc-millis (reduce + (map (fn [^java.lang.management.GarbageCollectorMXBean gc]
+                                           (max 0 (.getCollectionTime gc)))
+                                         (java.lang.management.ManagementFactory/getGarbageCollectorMXBeans)))]
+            (spit file
+                  (str (when (and (number? cpu-nanos) (pos? cpu-nanos))
+                         (str "cpuMillis=" (quot cpu-nanos 1000000) "\n"))
+                       "gcMillis=" gc-millis "\n"))))))))
@@ -0,0 +1,31 @@
+(ns vivid.cmp.runtime
+  "Keeps a warm Clojure runtime fit for reuse by successive executions of this
+  plugin: each execution's namespaces are forgotten once it finishes, so that
+  the next execution loads its own afresh.
+
+  Global state beyond namespaces, such as methods added to multimethods
+  defined by the runtime's own namespaces, persists across executions.")
+
+(def ^:private libs-ref @#'clojure.core/*loaded-libs*)
+
+(defn snapshot
+  "The namespaces and libs loaded so far."
+  []
+  {:namespaces (set (map ns-name (all-ns)))
+   :libs       @libs-ref})
+
+(defn warm
+  "Loads the tool's namespace, returning a snapshot of the warm runtime."
+  [tool-ns]
+  (require (symbol tool-ns))
+  (snapshot))
+
+(defn restore
+  "Removes the namespaces and forgets the libs loaded since the snapshot."
+  [{:keys [namespaces libs]}]
+  (doseq [n (map ns-name (all-ns))
+          :when (not (contains? namespaces n))]
+    (remove-ns n))
+  (dosync
+    (ref-set libs-ref libs))
+  nil)
@@ -0,0 +1,166 @@
+(ns vivid.cmp.test-history
+  "A history of the durations and outcomes of test namespaces and test vars
+  from prior runs, by which tests are ordered and sharded across forks.
+
+  History is a map of :namespaces, keyed by namespace symbol, and :vars, keyed
+  by fully-qualified var symbol, to maps of the :millis the most recent run took
+  and whether it :failed."
+  (:require
+    [clojure.edn]
+    [clojure.java.io :as io]
+    [clojure.test])
+  (:import
+    (java.io File)
+    (java.nio.file CopyOption Files StandardCopyOption)))
+
+(defn read-history
+  "The history kept in the file, or an empty history."
+  [^File f]
+  (or (when (.isFile f)
+        (try
+          (clojure.edn/read-string (slurp f))
+          (catch Exception _
+            nil)))
+      {}))
+
+(defn write-history
+  "Writes the history into the file, via a temporary file so that readers never
+  see a partial history."
+  [^File f history]
+  (let [temp (io/file (str f ".tmp"))]
+    (io/make-parents f)
+    (spit temp (pr-str history))
+    (Files/move (.toPath temp)
+                (.toPath f)
+                (into-array CopyOption [StandardCopyOption/REPLACE_EXISTING]))))
+
+(defn merge-histories
+  "The history updated by the records of more recent runs."
+  [history & records]
+  (reduce (fn [h r]
+            (-> h
+                (update :namespaces merge (:namespaces r))
+                (update :vars merge (:vars r))))
+          history
+          records))
+
+
+;
+; Recording
+;
+
+(defn- var-symbol
+  [v]
+  (let [m (meta v)]
+    (symbol (str (ns-name (:ns m))) (str (:name m)))))
+
+(defn- elapsed-millis
+  [start-nanos]
+  (quot (- (System/nanoTime) start-nanos) 1000000))
+
+(defn recorder
+  "A new, empty record of a test run."
+  []
+  (atom {:started {} :namespaces {} :vars {}}))
+
+(defn sink
+  "Returns a report sink noting the durations of namespaces and vars,
+  and which vars failed, into the recorder."
+  [recorder]
+  (fn [{:keys [type] :as data}]
+    (case type
+      :begin-test-ns
+      (swap! recorder assoc-in [:started (ns-name (:ns data))] (System/nanoTime))
+
+      :end-test-ns
+      (let [k (ns-name (:ns data))]
+        (swap! recorder (fn [r]
+                          (-> r
+                              (assoc-in [:namespaces k :millis] (elapsed-millis (get-in r [:started k])))
+                              (update :started dissoc k)))))
+
+      :begin-test-var
+      (swap! recorder assoc-in [:started (var-symbol (:var data))] (System/nanoTime))
+
+      :end-test-var
+      (let [k (var-symbol (:var data))]
+        (swap! recorder (fn [r]
+                          (-> r
+                              (update-in [:vars k] merge {:millis (elapsed-millis (get-in r [:started k]))
+                                                          :failed (boolean (get-in r [:vars k :failed]))})
+                              (update :started dissoc k)))))
+
+      (:fail :error)
+      (when-let [v (first clojure.test/*testing-vars*)]
+        (swap! recorder assoc-in [:vars (var-symbol v) :failed] true))
+
+      nil)))
+
+(defn recorded
+  "The history recorded of the test run, in which the failed namespaces failed."
+  [recorder failed-namespaces]
+  (let [{:keys [namespaces vars]} @recorder
+        failed (set failed-namespaces)]
+    {:namespaces (into {}
+                       (for [[k v] namespaces]
+                         [k (assoc v :failed (contains? failed k))]))
+     :vars       vars}))
+
+
+;
+; Ordering
+;
+
+(defn- estimator
+  "Function of a history key to its expected duration in milliseconds:
+  that of its prior run, or lacking one, the mean of those that are known."
+  [records]
+  (let [known (keep :millis (vals records))
+        mean (if (seq known)
+               (quot (reduce + known) (count known))
+               0)]
+    (fn [k]
+      (get-in records [k :millis] mean))))
+
+(defn- sort-key
+  "Function giving the sort key of a history key according to the run order."
+  [run-order records]
+  (let [duration (estimator records)]
+    (case run-order
+      "balanced" (fn [k] [(- (duration k))])
+      "failedfirst" (fn [k] [(if (get-in records [k :failed]) 0 1) (- (duration k))])
+      (constantly 0))))
+
+(defn order-vars
+  "Orders the test vars per the run order: \"filesystem\" leaves them as found,
+  \"balanced\" runs the namespaces and vars expected to take longest first, and
+  \"failedfirst\" runs those that failed last time first, then the longest.
+  Vars remain grouped by their namespace."
+  [history run-order vars]
+  (let [ns-key (sort-key run-order (:namespaces history))
+        var-key (sort-key run-order (:vars history))
+        by-ns (group-by (comp :ns meta) vars)]
+    (->> (distinct (map (comp :ns meta) vars))
+         (sort-by (comp ns-key ns-name))
+         (mapcat #(sort-by (comp var-key var-symbol) (by-ns %))))))
+
+(defn pack
+  "Packs the namespaces into at most shard-count non-empty shards, each having
+  about the same expected duration: the longest namespaces are placed first,
+  each into the shard with the least expected duration so far."
+  [history shard-count namespaces]
+  (let [duration (estimator (:namespaces history))
+        ; Stable sorts, so lacking history, namespaces are dealt round-robin.
+        longest-first (sort-by (comp - duration) namespaces)
+        shards (reduce (fn [shards ns]
+                         (let [i (first (sort-by #(let [{:keys [load namespaces]} (nth shards %)]
+                                                    [load (count namespaces)])
+                                                 (range (count shards))))]
+                           (-> shards
+                               (update-in [i :load] + (duration ns))
+                               (update-in [i :namespaces] conj ns))))
+                       (vec (repeat shard-count {:load 0 :namespaces []}))
+                       longest-first)]
+    (->> shards
+         (map :namespaces)
+         (remove empty?))))
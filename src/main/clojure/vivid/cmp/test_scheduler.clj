@@ -0,0 +1,143 @@
+(ns vivid.cmp.test-scheduler
+  "Runs clojure.test test vars with tunable parallelism: across namespaces,
+  across the vars of each namespace, or both, on a bounded number of platform
+  threads or with test vars on virtual threads.
+
+  Namespaces with :serial metadata, or eftest's :eftest/synchronized, run one at
+  a time after all other namespaces have finished, their vars one after another.
+  Within other namespaces, vars with such metadata run after their siblings, and
+  alone: no other test var of any namespace runs meanwhile."
+  (:require
+    [clojure.test])
+  (:import
+    (clojure.lang Reflector)
+    (java.util.concurrent ExecutorService Executors Future)
+    (java.util.concurrent.locks Lock ReadWriteLock ReentrantReadWriteLock)))
+
+(defn serial?
+  "Whether the namespace or var asks not to run concurrently with others."
+  [x]
+  (let [m (meta x)]
+    (boolean (or (:serial m) (:eftest/synchronized m)))))
+
+(defn- virtual-thread-executor
+  "An executor starting a virtual thread per task, or nil when the JVM lacks virtual threads."
+  ^ExecutorService []
+  (try
+    (Reflector/invokeStaticMethod "java.util.concurrent.Executors"
+                                  "newVirtualThreadPerTaskExecutor"
+                                  (object-array 0))
+    (catch Exception _
+      nil)))
+
+(defn- invoke-all
+  "Runs each of the functions on the executor, or on this thread when there is
+  no executor, conveying the dynamic bindings of this thread. Waits for all to
+  complete."
+  [^ExecutorService executor fs]
+  (if executor
+    (->> fs
+         (mapv #(.submit executor ^Callable (bound-fn* %)))
+         (run! #(.get ^Future %)))
+    (run! #(%) fs)))
+
+(defn- report-uncaught
+  [e]
+  (clojure.test/do-report {:type     :error
+                           :message  "Uncaught exception, not in assertion."
+                           :expected nil
+                           :actual   e}))
+
+(defn- with-lock
+  [^Lock lock f]
+  (.lock lock)
+  (try
+    (f)
+    (finally
+      (.unlock lock))))
+
+(defn- test-ns
+  "Runs the test vars of the namespace with its fixtures, as clojure.test/test-vars does,
+  serial vars holding the write lock of the run lock, others its read lock.
+  Returns the report counters of the namespace."
+  [ns vars var-executor ^ReadWriteLock run-lock]
+  (binding [clojure.test/*report-counters* (ref clojure.test/*initial-report-counters*)]
+    (clojure.test/do-report {:type :begin-test-ns :ns ns})
+    (let [once-fixture-fn (clojure.test/join-fixtures (:clojure.test/once-fixtures (meta ns)))
+          each-fixture-fn (clojure.test/join-fixtures (:clojure.test/each-fixtures (meta ns)))
+          ; Assertions and exceptions of :each fixtures are attributed to the var they wrap,
+          ; running on a thread of its own that need not have seen the namespace begin.
+          run-var (fn [lock v]
+                    (fn []
+                      (with-lock lock
+                        #(let [outer clojure.test/*testing-vars*]
+                           (binding [clojure.test/*testing-vars* (conj outer v)]
+                             (try
+                               (each-fixture-fn (fn []
+                                                  (binding [clojure.test/*testing-vars* outer]
+                                                    (clojure.test/test-var v))))
+                               (catch Throwable e
+                                 (report-uncaught e))))))))
+          {serial-vars true concurrent-vars false} (group-by #(or (serial? ns) (serial? %)) vars)]
+      (try
+        (once-fixture-fn
+          (fn []
+            (invoke-all var-executor (map (partial run-var (.readLock run-lock)) concurrent-vars))
+            (invoke-all nil (map (partial run-var (.writeLock run-lock)) serial-vars))))
+        (catch Throwable e
+          (report-uncaught e))))
+    (clojure.test/do-report {:type :end-test-ns :ns ns})
+    @clojure.test/*report-counters*))
+
+(defn- synchronized
+  "Serializes calls to the report function, so that the output of tests
+  running concurrently isn't interleaved."
+  [report]
+  (let [lock (Object.)]
+    (fn [m]
+      (locking lock
+        (report m)))))
+
+(defn run-tests
+  "Runs the test vars, reporting to the report function. The options are
+  :parallel-namespaces and :parallel-vars booleans, the :thread-count of each
+  of the namespace and var thread pools, and :virtual-threads for running
+  test vars on virtual threads. Calls the :warn function of the options when
+  virtual threads are unavailable. Returns the summary of the test run."
+  [vars {:keys [parallel-namespaces parallel-vars thread-count virtual-threads report warn]}]
+  (let [start (System/currentTimeMillis)
+        thread-count (if (pos? (or thread-count 0))
+                       thread-count
+                       (.availableProcessors (Runtime/getRuntime)))
+        var-executor (when parallel-vars
+                       (or (when virtual-threads
+                             (or (virtual-thread-executor)
+                                 (do (when warn (warn)) nil)))
+                           (Executors/newFixedThreadPool thread-count)))
+        ns-executor (when parallel-namespaces
+                      (Executors/newFixedThreadPool thread-count))
+        by-ns (group-by (comp :ns meta) vars)
+        namespaces (distinct (map (comp :ns meta) vars))
+        {serial-namespaces true concurrent-namespaces false} (group-by serial? namespaces)
+        counters (atom [])
+        ; Fair, so that serial vars aren't starved by vars of other namespaces
+        run-lock (ReentrantReadWriteLock. true)
+        run-ns (fn [executor]
+                 (fn [ns]
+                   (fn []
+                     (swap! counters conj (test-ns ns (by-ns ns) executor run-lock)))))]
+    (try
+      (binding [clojure.test/report (if (or parallel-namespaces parallel-vars)
+                                      (synchronized report)
+                                      report)]
+        (clojure.test/do-report {:type :begin-test-run :count (count vars)})
+        (invoke-all ns-executor (map (run-ns var-executor) concurrent-namespaces))
+        (invoke-all nil (map (run-ns nil) serial-namespaces))
+        (let [summary (-> (apply merge-with + clojure.test/*initial-report-counters* @counters)
+                          (assoc :type :summary
+                                 :duration (- (System/currentTimeMillis) start)))]
+          (clojure.test/do-report summary)
+          summary))
+      (finally
+        (some-> ns-executor .shutdown)
+        (some-> var-executor .shutdown)))))
@@ -0,0 +1,112 @@
+(ns vivid.cmp.test-selector
+  "Selects the tests to run by namespace and var name patterns, and by
+  metadata, in the spirit of maven-surefire-plugin's test, groups, and
+  excludedGroups parameters.
+
+  Patterns are comma-separated. Each is a glob of namespace names, optionally
+  followed by / and a glob of var names, where * matches any run of characters
+  and ? any one character. Patterns prefixed with ! exclude what they match.
+  Groups are comma-separated metadata keys such as integration or :slow, a
+  test having a group when its var or its namespace has a truthy value for it.
+
+  Namespaces are selected from their ns forms and sources, before any of them
+  are loaded, so that excluded namespaces are never required. Test vars of the
+  selected namespaces are then selected once loaded."
+  (:require
+    [clojure.string]
+    [clojure.tools.namespace.parse])
+  (:import
+    (java.io File)
+    (java.util.regex Pattern)))
+
+(defn- glob->regex
+  [glob]
+  (->> glob
+       (map #(case %
+               \* ".*"
+               \? "."
+               (Pattern/quote (str %))))
+       (apply str)
+       (re-pattern)))
+
+(defn- split-list
+  [s]
+  (->> (clojure.string/split (or s "") #",")
+       (map clojure.string/trim)
+       (remove clojure.string/blank?)))
+
+(defn- parse-pattern
+  [s]
+  (let [exclude (clojure.string/starts-with? s "!")
+        [ns-glob var-glob] (clojure.string/split (if exclude (subs s 1) s) #"/" 2)]
+    {:exclude exclude
+     :ns      (glob->regex ns-glob)
+     :var     (some-> var-glob glob->regex)}))
+
+(defn- parse-group
+  [s]
+  (keyword (clojure.string/replace s #"^:+" "")))
+
+(defn selector
+  "The selector described by the test patterns, groups, and excluded groups,
+  each a comma-separated string or nil."
+  [{:keys [test groups excluded-groups]}]
+  (let [patterns (map parse-pattern (split-list test))]
+    {:includes        (remove :exclude patterns)
+     :excludes        (filter :exclude patterns)
+     :groups          (set (map parse-group (split-list groups)))
+     :excluded-groups (set (map parse-group (split-list excluded-groups)))}))
+
+(defn- matches?
+  [regex s]
+  (boolean (re-matches regex (str s))))
+
+(defn- has-group?
+  [groups m]
+  (boolean (some #(get m %) groups)))
+
+(defn- mentions-group?
+  "Whether the source text mentions any of the groups as a keyword, and
+  therefore might define test vars having that group."
+  [groups text]
+  (some #(re-find (re-pattern (str (Pattern/quote (str %)) "(?![\\w*+!?<>=/.:-])")) text)
+        groups))
+
+(defn- ns-decl-meta
+  "Metadata of the namespace as declared by its ns form: that on its name,
+  merged with its attribute map."
+  [decl]
+  (let [[_ ns-sym & references] decl
+        attr-map (first (filter map? (take 2 references)))]
+    (merge (meta ns-sym) attr-map)))
+
+(defn select-namespace?
+  "Whether any test vars of the namespace, declared by the ns form in the file,
+  might be selected. Answers without loading the namespace."
+  [{:keys [includes excludes groups excluded-groups]} decl ^File file]
+  (let [ns-sym (clojure.tools.namespace.parse/name-from-ns-decl decl)
+        ns-meta (ns-decl-meta decl)]
+    (and (or (empty? includes)
+             (some #(matches? (:ns %) ns-sym) includes))
+         (not-any? #(and (nil? (:var %)) (matches? (:ns %) ns-sym)) excludes)
+         (not (has-group? excluded-groups ns-meta))
+         (or (empty? groups)
+             (has-group? groups ns-meta)
+             (mentions-group? groups (slurp file))))))
+
+(defn select-var?
+  "Whether the loaded test var is selected."
+  [{:keys [includes excludes groups excluded-groups]} v]
+  (let [m (meta v)
+        ns-sym (ns-name (:ns m))
+        var-name (:name m)
+        all-meta (merge (meta (:ns m)) m)
+        pattern-matches? (fn [{:keys [ns var]}]
+                           (and (matches? ns ns-sym)
+                                (or (nil? var) (matches? var var-name))))]
+    (and (or (empty? includes)
+             (some pattern-matches? includes))
+         (not-any? pattern-matches? excludes)
+         (not (has-group? excluded-groups all-meta))
+         (or (empty? groups)
+             (has-group? groups all-meta)))))
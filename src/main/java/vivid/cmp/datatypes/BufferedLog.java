@@ -0,0 +1,199 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.datatypes;
+
+import org.apache.maven.plugin.logging.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Maven log holding on to what is logged until replayed to another log in one piece,
+ * so that the output of work running concurrently with other work isn't interleaved
+ * with theirs. At most a given number of entries are held; those logged beyond it are
+ * only counted, so that verbose work can't exhaust the heap.
+ *
+ * @since 0.4.0
+ */
+public final class BufferedLog implements Log {
+
+    private enum Level { DEBUG, INFO, WARN, ERROR }
+
+    private static final class Entry {
+
+        final Level level;
+        final CharSequence content;
+        final Throwable error;
+
+        Entry(final Level level, final CharSequence content, final Throwable error) {
+            this.level = level;
+            this.content = content;
+            this.error = error;
+        }
+
+    }
+
+    private final Log target;
+    private final int limit;
+    private List<Entry> entries = new ArrayList<>();
+    private long omitted;
+
+    /**
+     * @param target the log eventually replayed to, whose levels are enabled alike
+     * @param limit the most entries held
+     */
+    public BufferedLog(
+            final Log target,
+            final int limit
+    ) {
+        this.target = target;
+        this.limit = limit;
+    }
+
+    /**
+     * Logs what was logged so far to the target log, as one uninterrupted block.
+     * Callers may synchronize on the target log to extend the block.
+     */
+    public void replay() {
+        final List<Entry> replayed;
+        synchronized (this) {
+            replayed = entries;
+            entries = new ArrayList<>();
+        }
+        synchronized (target) {
+            replayed.forEach(this::replay);
+        }
+    }
+
+    /**
+     * @return the number of entries logged but not held, exceeding the limit
+     */
+    public synchronized long omitted() {
+        return omitted;
+    }
+
+    private void replay(
+            final Entry entry
+    ) {
+        switch (entry.level) {
+            case DEBUG:
+                target.debug(entry.content, entry.error);
+                break;
+            case INFO:
+                target.info(entry.content, entry.error);
+                break;
+            case WARN:
+                target.warn(entry.content, entry.error);
+                break;
+            default:
+                target.error(entry.content, entry.error);
+        }
+    }
+
+    private synchronized void add(
+            final Level level,
+            final CharSequence content,
+            final Throwable error
+    ) {
+        if (entries.size() < limit) {
+            entries.add(new Entry(level, content, error));
+        } else {
+            omitted++;
+        }
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return target.isDebugEnabled();
+    }
+
+    @Override
+    public void debug(final CharSequence content) {
+        debug(content, null);
+    }
+
+    @Override
+    public void debug(final CharSequence content, final Throwable error) {
+        if (isDebugEnabled()) {
+            add(Level.DEBUG, content, error);
+        }
+    }
+
+    @Override
+    public void debug(final Throwable error) {
+        debug(null, error);
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return target.isInfoEnabled();
+    }
+
+    @Override
+    public void info(final CharSequence content) {
+        info(content, null);
+    }
+
+    @Override
+    public void info(final CharSequence content, final Throwable error) {
+        add(Level.INFO, content, error);
+    }
+
+    @Override
+    public void info(final Throwable error) {
+        info(null, error);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return target.isWarnEnabled();
+    }
+
+    @Override
+    public void warn(final CharSequence content) {
+        warn(content, null);
+    }
+
+    @Override
+    public void warn(final CharSequence content, final Throwable error) {
+        add(Level.WARN, content, error);
+    }
+
+    @Override
+    public void warn(final Throwable error) {
+        warn(null, error);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return target.isErrorEnabled();
+    }
+
+    @Override
+    public void error(final CharSequence content) {
+        error(content, null);
+    }
+
+    @Override
+    public void error(final CharSequence content, final Throwable error) {
+        add(Level.ERROR, content, error);
+    }
+
+    @Override
+    public void error(final Throwable error) {
+        error(null, error);
+    }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.datatypes;
+
+/**
+ * Selects how the classpath is handed to a Clojure sub-process.
+ *
+ * @since 0.4.0
+ */
+public enum ClasspathDelivery {
+
+    /**
+     * On the command line, as the argument of {@code -Scp}.
+     */
+    ARGUMENT,
+
+    /**
+     * In a Java {@code @argfile}, read by the {@code java} launcher itself.
+     */
+    ARGFILE,
+
+    /**
+     * As the {@code Class-Path} of the manifest of an otherwise empty jar, the jar alone
+     * being given as the argument of {@code -Scp}.
+     */
+    PATHING_JAR
+
+}
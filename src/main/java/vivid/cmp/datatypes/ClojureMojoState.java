@@ -41,12 +41,78 @@ public class ClojureMojoState {
     static final String CLOJURE_EXECUTABLE_PROPERTY_DEFAULT_VALUE = "clojure";
 
 
+    @Constant
+    public static final String CLOJURE_EXECUTIONMODE_PARAMETER_KEY = "executionMode";
+    @Constant
+    static final ExecutionMode CLOJURE_EXECUTIONMODE_PROPERTY_DEFAULT_VALUE = ExecutionMode.SUB_PROCESS;
+
+
+    @Constant
+    public static final String CLOJURE_JAVAEXECUTABLE_PARAMETER_KEY = "javaExecutable";
+    @Constant(rationale = "The 'java' executable of the JVM running Maven, determined at runtime")
+    static final Option<String> CLOJURE_JAVAEXECUTABLE_PROPERTY_DEFAULT_VALUE = Option.none();
+
+
+    @Constant
+    public static final String CLOJURE_ARGLINE_PARAMETER_KEY = "argLine";
+    @Constant
+    static final Option<String> CLOJURE_ARGLINE_PROPERTY_DEFAULT_VALUE = Option.none();
+
+
+    @Constant
+    public static final String CLOJURE_CLASSPATHDELIVERY_PARAMETER_KEY = "classpathDelivery";
+    @Constant
+    static final ClasspathDelivery CLOJURE_CLASSPATHDELIVERY_PROPERTY_DEFAULT_VALUE = ClasspathDelivery.ARGUMENT;
+
+
     @Constant
     public static final String CLOJURE_CLASSPATHSCOPE_PARAMETER_KEY = "classpathScope";
     @Constant
     static final ClasspathScope CLOJURE_CLASSPATHSCOPE_PROPERTY_DEFAULT_VALUE = ClasspathScope.COMPILE;
 
 
+    @Constant
+    public static final String CLOJURE_COMPILERPROFILE_PARAMETER_KEY = "compilerProfile";
+    @Constant
+    static final CompilerProfile CLOJURE_COMPILERPROFILE_PROPERTY_DEFAULT_VALUE = CompilerProfile.DEFAULT;
+
+
+    @Constant
+    public static final String CLOJURE_CAPTUREOUTPUT_PARAMETER_KEY = "captureOutput";
+    @Constant
+    static final boolean CLOJURE_CAPTUREOUTPUT_PROPERTY_DEFAULT_VALUE = false;
+
+
+    @Constant
+    public static final String CLOJURE_CONSOLELINELIMIT_PARAMETER_KEY = "consoleLineLimit";
+    @Constant
+    static final int CLOJURE_CONSOLELINELIMIT_PROPERTY_DEFAULT_VALUE = 0;
+
+
+    @Constant
+    public static final String CLOJURE_CLASSDATASHARING_PARAMETER_KEY = "classDataSharing";
+    @Constant
+    static final boolean CLOJURE_CLASSDATASHARING_PROPERTY_DEFAULT_VALUE = false;
+
+
+    @Constant
+    public static final String CLOJURE_RESOURCEUSAGE_PARAMETER_KEY = "resourceUsage";
+    @Constant
+    static final boolean CLOJURE_RESOURCEUSAGE_PROPERTY_DEFAULT_VALUE = false;
+
+
+    @Constant
+    public static final String CLOJURE_TIMEOUT_PARAMETER_KEY = "timeout";
+    @Constant
+    static final int CLOJURE_TIMEOUT_PROPERTY_DEFAULT_VALUE = 0;
+
+
+    @Constant
+    public static final String CLOJURE_MAXMEMORY_PARAMETER_KEY = "maxMemory";
+    @Constant
+    static final int CLOJURE_MAXMEMORY_PROPERTY_DEFAULT_VALUE = 0;
+
+
     @Constant
     public static final String CLOJURE_SOURCEPATHS_PARAMETER_KEY = "sourcePaths";
     /** Represented as a bare String so that it can be used as the Maven @Parameter defaultValue */
@@ -67,14 +133,36 @@ public class ClojureMojoState {
 
     public final Option<String> args;
     public final String executable;
+    public final ExecutionMode executionMode;
+    public final Option<String> javaExecutable;
+    public final Option<String> argLine;
+    public final ClasspathDelivery classpathDelivery;
     public final ClasspathScope classpathScope;
+    public final CompilerProfile compilerProfile;
+    public final boolean captureOutput;
+    public final int consoleLineLimit;
+    public final boolean classDataSharing;
+    public final boolean resourceUsage;
+    public final int timeout;
+    public final int maxMemory;
     public final List<String> sourcePaths;
     public final List<String> testPaths;
 
     public static final ClojureMojoState DEFAULT_STATE = new ClojureMojoState(
             CLOJURE_ARGS_PROPERTY_DEFAULT_VALUE,
             CLOJURE_EXECUTABLE_PROPERTY_DEFAULT_VALUE,
+            CLOJURE_EXECUTIONMODE_PROPERTY_DEFAULT_VALUE,
+            CLOJURE_JAVAEXECUTABLE_PROPERTY_DEFAULT_VALUE,
+            CLOJURE_ARGLINE_PROPERTY_DEFAULT_VALUE,
+            CLOJURE_CLASSPATHDELIVERY_PROPERTY_DEFAULT_VALUE,
             CLOJURE_CLASSPATHSCOPE_PROPERTY_DEFAULT_VALUE,
+            CLOJURE_COMPILERPROFILE_PROPERTY_DEFAULT_VALUE,
+            CLOJURE_CAPTUREOUTPUT_PROPERTY_DEFAULT_VALUE,
+            CLOJURE_CONSOLELINELIMIT_PROPERTY_DEFAULT_VALUE,
+            CLOJURE_CLASSDATASHARING_PROPERTY_DEFAULT_VALUE,
+            CLOJURE_RESOURCEUSAGE_PROPERTY_DEFAULT_VALUE,
+            CLOJURE_TIMEOUT_PROPERTY_DEFAULT_VALUE,
+            CLOJURE_MAXMEMORY_PROPERTY_DEFAULT_VALUE,
             List.of(CLOJURE_SOURCEPATHS_PROPERTY_DEFAULT_VALUE),
             List.of(CLOJURE_TESTPATHS_PROPERTY_DEFAULT_VALUE)
     );
@@ -82,13 +170,35 @@ public class ClojureMojoState {
     public ClojureMojoState(
             final Option<String> args,
             final String executable,
+            final ExecutionMode executionMode,
+            final Option<String> javaExecutable,
+            final Option<String> argLine,
+            final ClasspathDelivery classpathDelivery,
             final ClasspathScope classpathScope,
+            final CompilerProfile compilerProfile,
+            final boolean captureOutput,
+            final int consoleLineLimit,
+            final boolean classDataSharing,
+            final boolean resourceUsage,
+            final int timeout,
+            final int maxMemory,
             final List<String> sourcePaths,
             final List<String> testPaths
     ) {
         this.args = args;
         this.executable = executable;
+        this.executionMode = executionMode;
+        this.javaExecutable = javaExecutable;
+        this.argLine = argLine;
+        this.classpathDelivery = classpathDelivery;
         this.classpathScope = classpathScope;
+        this.compilerProfile = compilerProfile;
+        this.captureOutput = captureOutput;
+        this.consoleLineLimit = consoleLineLimit;
+        this.classDataSharing = classDataSharing;
+        this.resourceUsage = resourceUsage;
+        this.timeout = timeout;
+        this.maxMemory = maxMemory;
         this.sourcePaths = sourcePaths;
         this.testPaths = testPaths;
     }
@@ -96,14 +206,36 @@ public class ClojureMojoState {
     private static class State {
         private Option<String> args;
         private String executable;
+        private ExecutionMode executionMode;
+        private Option<String> javaExecutable;
+        private Option<String> argLine;
+        private ClasspathDelivery classpathDelivery;
         private ClasspathScope classpathScope;
+        private CompilerProfile compilerProfile;
+        private boolean captureOutput;
+        private int consoleLineLimit;
+        private boolean classDataSharing;
+        private boolean resourceUsage;
+        private int timeout;
+        private int maxMemory;
         private List<String> sourcePaths;
         private List<String> testPaths;
 
         State(final ClojureMojoState original) {
             this.args = original.args;
             this.executable = original.executable;
+            this.executionMode = original.executionMode;
+            this.javaExecutable = original.javaExecutable;
+            this.argLine = original.argLine;
+            this.classpathDelivery = original.classpathDelivery;
             this.classpathScope = original.classpathScope;
+            this.compilerProfile = original.compilerProfile;
+            this.captureOutput = original.captureOutput;
+            this.consoleLineLimit = original.consoleLineLimit;
+            this.classDataSharing = original.classDataSharing;
+            this.resourceUsage = original.resourceUsage;
+            this.timeout = original.timeout;
+            this.maxMemory = original.maxMemory;
             this.sourcePaths = original.sourcePaths;
             this.testPaths = original.testPaths;
         }
@@ -118,7 +250,18 @@ public class ClojureMojoState {
         return new ClojureMojoState(
                 state.args,
                 state.executable,
+                state.executionMode,
+                state.javaExecutable,
+                state.argLine,
+                state.classpathDelivery,
                 state.classpathScope,
+                state.compilerProfile,
+                state.captureOutput,
+                state.consoleLineLimit,
+                state.classDataSharing,
+                state.resourceUsage,
+                state.timeout,
+                state.maxMemory,
                 state.sourcePaths,
                 state.testPaths
         );
@@ -136,10 +279,54 @@ public class ClojureMojoState {
         return mutate(this, s -> s.executable = executable);
     }
 
+    public ClojureMojoState setExecutionMode(final ExecutionMode executionMode) {
+        return mutate(this, s -> s.executionMode = executionMode);
+    }
+
+    public ClojureMojoState setJavaExecutable(final Option<String> javaExecutable) {
+        return mutate(this, s -> s.javaExecutable = javaExecutable);
+    }
+
+    public ClojureMojoState setArgLine(final Option<String> argLine) {
+        return mutate(this, s -> s.argLine = argLine);
+    }
+
+    public ClojureMojoState setClasspathDelivery(final ClasspathDelivery classpathDelivery) {
+        return mutate(this, s -> s.classpathDelivery = classpathDelivery);
+    }
+
     public ClojureMojoState setClasspathScope(final ClasspathScope classpathScope) {
         return mutate(this, s -> s.classpathScope = classpathScope);
     }
 
+    public ClojureMojoState setCompilerProfile(final CompilerProfile compilerProfile) {
+        return mutate(this, s -> s.compilerProfile = compilerProfile);
+    }
+
+    public ClojureMojoState setCaptureOutput(final boolean captureOutput) {
+        return mutate(this, s -> s.captureOutput = captureOutput);
+    }
+
+    public ClojureMojoState setConsoleLineLimit(final int consoleLineLimit) {
+        return mutate(this, s -> s.consoleLineLimit = consoleLineLimit);
+    }
+
+    public ClojureMojoState setClassDataSharing(final boolean classDataSharing) {
+        return mutate(this, s -> s.classDataSharing = classDataSharing);
+    }
+
+    public ClojureMojoState setResourceUsage(final boolean resourceUsage) {
+        return mutate(this, s -> s.resourceUsage = resourceUsage);
+    }
+
+    public ClojureMojoState setTimeout(final int timeout) {
+        return mutate(this, s -> s.timeout = timeout);
+    }
+
+    public ClojureMojoState setMaxMemory(final int maxMemory) {
+        return mutate(this, s -> s.maxMemory = maxMemory);
+    }
+
     public ClojureMojoState setSourcePaths(final List<String> sourcePaths) {
         return mutate(this, s -> s.sourcePaths = sourcePaths);
     }
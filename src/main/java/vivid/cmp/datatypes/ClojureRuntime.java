@@ -0,0 +1,237 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.datatypes;
+
+import org.codehaus.plexus.classworlds.ClassWorld;
+import org.codehaus.plexus.classworlds.realm.ClassRealm;
+import org.codehaus.plexus.classworlds.realm.NoSuchRealmException;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A Clojure runtime isolated within a class realm of its own, holding its own copy
+ * of Clojure and therefore its own {@code clojure.lang.RT}, namespaces, and vars.
+ * Neither Maven's nor this plugin's classes are visible to it, so executions in
+ * different modules of a parallel reactor build cannot interfere with one another
+ * through Clojure's global state.
+ *
+ * Each invocation sets the context classloader, by default the realm, as the thread
+ * context classloader for its duration, restoring the prior thread context classloader
+ * afterwards. Clojure loads the namespaces it is asked to require through it. Bootstrapping
+ * Clojure, requiring the namespace and applying the function are each spans of the timeline,
+ * by default {@link Timeline#NONE}.
+ *
+ * Closing the runtime disposes of it, unless it was provided by way of
+ * {@link #withContext(ClassLoader, Timeline, Runnable)}, in which case closing hands it back
+ * to whoever provided it. Disposing shuts down Clojure's agent and future thread
+ * pools and disposes of the realms of the runtime's class world, so that its classes
+ * can be unloaded. No thread that invoked the runtime retains Clojure's thread
+ * bindings afterwards.
+ *
+ * @since 0.4.0
+ */
+public final class ClojureRuntime implements AutoCloseable {
+
+    private static final AtomicInteger LIVE_RUNTIMES = new AtomicInteger();
+
+    private final ClassRealm realm;
+    private final AtomicBoolean disposed;
+    private final AtomicBoolean bootstrapped;
+    private final ClassLoader contextClassLoader;
+    private final Timeline timeline;
+    private final Runnable onClose;
+    private final Method applyTo;
+    private final Method seq;
+    private final Method symbol;
+    private final Method var;
+    private final Field threadBindings;
+
+    public ClojureRuntime(
+            final ClassRealm realm
+    ) throws ReflectiveOperationException {
+        this.realm = realm;
+        this.disposed = new AtomicBoolean();
+        this.bootstrapped = new AtomicBoolean();
+        this.contextClassLoader = realm;
+        this.timeline = Timeline.NONE;
+        this.onClose = this::dispose;
+
+        // Nothing in the realm is initialized until the first invocation
+        final Class<?> iFn = realm.loadClass("clojure.lang.IFn");
+        this.applyTo = iFn.getMethod("applyTo", realm.loadClass("clojure.lang.ISeq"));
+        this.seq = realm.loadClass("clojure.lang.RT").getMethod("seq", Object.class);
+        this.symbol = realm.loadClass("clojure.lang.Symbol").getMethod("intern", String.class);
+        this.var = realm.loadClass("clojure.java.api.Clojure").getMethod("var", Object.class, Object.class);
+        this.threadBindings = realm.loadClass("clojure.lang.Var").getDeclaredField("dvals");
+        this.threadBindings.setAccessible(true);
+
+        LIVE_RUNTIMES.incrementAndGet();
+    }
+
+    private ClojureRuntime(
+            final ClojureRuntime runtime,
+            final ClassLoader contextClassLoader,
+            final Timeline timeline,
+            final Runnable onClose
+    ) {
+        this.realm = runtime.realm;
+        this.disposed = runtime.disposed;
+        this.bootstrapped = runtime.bootstrapped;
+        this.contextClassLoader = contextClassLoader;
+        this.timeline = timeline;
+        this.onClose = onClose;
+        this.applyTo = runtime.applyTo;
+        this.seq = runtime.seq;
+        this.symbol = runtime.symbol;
+        this.var = runtime.var;
+        this.threadBindings = runtime.threadBindings;
+    }
+
+    /**
+     * The number of runtimes created and not yet disposed of.
+     */
+    public static int liveRuntimes() {
+        return LIVE_RUNTIMES.get();
+    }
+
+    /**
+     * This same runtime, loading namespaces through the context classloader instead,
+     * timing its invocations on the timeline, and running the {@code onClose} action when closed.
+     */
+    public ClojureRuntime withContext(
+            final ClassLoader contextClassLoader,
+            final Timeline timeline,
+            final Runnable onClose
+    ) {
+        return new ClojureRuntime(this, contextClassLoader, timeline, onClose);
+    }
+
+    public ClassRealm realm() {
+        return realm;
+    }
+
+    public ClassLoader contextClassLoader() {
+        return contextClassLoader;
+    }
+
+    @Override
+    public void close() {
+        onClose.run();
+    }
+
+    /**
+     * Shuts down the runtime's thread pools and disposes of its realms. Further invocations fail.
+     */
+    public void dispose() {
+        if (disposed.getAndSet(true)) {
+            return;
+        }
+        // Agents and futures can only have been started by a bootstrapped Clojure
+        if (bootstrapped.get()) {
+            try {
+                call("clojure.core", "shutdown-agents");
+            } catch (final Exception e) {
+                // The runtime is beyond use either way
+            }
+        }
+        final ClassWorld world = realm.getWorld();
+        for (final ClassRealm r : new ArrayList<>(world.getRealms())) {
+            try {
+                world.disposeRealm(r.getId());
+            } catch (final NoSuchRealmException e) {
+                // Already disposed of
+            }
+        }
+        LIVE_RUNTIMES.decrementAndGet();
+    }
+
+    /**
+     * Requires the namespace, then applies its named function to the arguments.
+     * Values crossing into the runtime must be of classes common to both sides,
+     * such as those of the JDK.
+     *
+     * @return the return value of the function
+     */
+    public Object invoke(
+            final String ns,
+            final String fnName,
+            final Object... args
+    ) throws Exception {
+        if (disposed.get()) {
+            throw new IllegalStateException(
+                    String.format("Clojure runtime %s has been disposed of", realm.getId())
+            );
+        }
+        return call(ns, fnName, args);
+    }
+
+    @SuppressWarnings("try")
+    private Object call(
+            final String ns,
+            final String fnName,
+            final Object... args
+    ) throws Exception {
+        final Thread thread = Thread.currentThread();
+        final ClassLoader priorContextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(contextClassLoader);
+        try {
+            if (!bootstrapped.get()) {
+                // Initializing Clojure's Java API loads clojure.core, which dominates the first invocation
+                try (Timeline.Span ignored = timeline.span("bootstrap", realm.getId())) {
+                    Class.forName("clojure.java.api.Clojure", true, realm);
+                }
+                bootstrapped.set(true);
+            }
+            try (Timeline.Span ignored = timeline.span("require", ns)) {
+                apply("clojure.core", "require", symbol.invoke(null, ns));
+            }
+            try (Timeline.Span ignored = timeline.span("invoke", ns + "/" + fnName)) {
+                return apply(ns, fnName, args);
+            }
+        } catch (final InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        } finally {
+            // Clojure keeps thread bindings in a ThreadLocal whose values reference the realm,
+            // which would otherwise keep the realm from being unloaded for as long as this
+            // thread lives.
+            ((ThreadLocal<?>) threadBindings.get(null)).remove();
+            thread.setContextClassLoader(priorContextClassLoader);
+        }
+    }
+
+    private Object apply(
+            final String ns,
+            final String fnName,
+            final Object... args
+    ) throws ReflectiveOperationException {
+        return applyTo.invoke(
+                var.invoke(null, ns, fnName),
+                seq.invoke(null, (Object) args)
+        );
+    }
+
+}
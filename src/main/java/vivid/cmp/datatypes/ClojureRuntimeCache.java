@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.datatypes;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import vivid.cmp.messages.Message;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Warm Clojure runtimes of tools such as eftest and Leiningen, kept for the duration of
+ * a Maven session so that successive executions of this plugin, typically in successive
+ * modules of a reactor build, don't each load Clojure and the tool anew.
+ *
+ * Runtimes are keyed by their tool classpath. Each is lent to one execution at a time;
+ * executions running concurrently in a parallel build are lent runtimes of their own.
+ * At most twice as many idle runtimes are kept as the session's degree of concurrency,
+ * enough for two tools per thread, the least recently used being disposed of first.
+ * The runtimes of a session are disposed of once a subsequent session starts using this
+ * cache, as happens in a Maven daemon.
+ *
+ * Caches are keyed by the session's execution request rather than by the session itself:
+ * Maven hands each project of the reactor its own clone of the session, while all of the
+ * clones share the one request.
+ *
+ * @since 0.4.0
+ */
+public final class ClojureRuntimeCache {
+
+    private static final Map<MavenExecutionRequest, ClojureRuntimeCache> SESSION_CACHES = new WeakHashMap<>();
+
+    private final int maxIdle;
+    // Most recently used first
+    private final LinkedList<Tuple2<List<String>, Warm>> idle = new LinkedList<>();
+    private final Map<String, CompletableFuture<Either<Message, List<File>>>> toolFiles = new HashMap<>();
+    private boolean disposed;
+
+    private ClojureRuntimeCache(
+            final int maxIdle
+    ) {
+        this.maxIdle = maxIdle;
+    }
+
+    public static ClojureRuntimeCache forSession(
+            final MavenSession session
+    ) {
+        final MavenExecutionRequest request = session.getRequest();
+        synchronized (SESSION_CACHES) {
+            final ClojureRuntimeCache cache = SESSION_CACHES.get(request);
+            if (cache != null) {
+                return cache;
+            }
+            for (final ClojureRuntimeCache prior : SESSION_CACHES.values()) {
+                prior.dispose();
+            }
+            SESSION_CACHES.clear();
+            final ClojureRuntimeCache created = new ClojureRuntimeCache(
+                    2 * Math.max(1, request.getDegreeOfConcurrency())
+            );
+            SESSION_CACHES.put(request, created);
+            return created;
+        }
+    }
+
+    /**
+     * A warm runtime along with a snapshot of its state as it was once warmed, to which it is
+     * restored before being lent again.
+     */
+    public static final class Warm {
+
+        public final ClojureRuntime runtime;
+        public final Object snapshot;
+
+        public Warm(
+                final ClojureRuntime runtime,
+                final Object snapshot
+        ) {
+            this.runtime = runtime;
+            this.snapshot = snapshot;
+        }
+
+    }
+
+    /**
+     * Takes an idle runtime having the tool classpath, if any.
+     */
+    public synchronized Option<Warm> take(
+            final List<String> toolClassPath
+    ) {
+        final Iterator<Tuple2<List<String>, Warm>> i = idle.iterator();
+        while (i.hasNext()) {
+            final Tuple2<List<String>, Warm> t = i.next();
+            if (t._1.equals(toolClassPath)) {
+                i.remove();
+                return Option.of(t._2);
+            }
+        }
+        return Option.none();
+    }
+
+    /**
+     * Gives back a runtime having the tool classpath, ready to be lent again, disposing of
+     * the least recently used runtimes beyond the limit. Once the cache has been disposed of,
+     * the runtime is disposed of instead.
+     */
+    public synchronized void giveBack(
+            final List<String> toolClassPath,
+            final Warm warm
+    ) {
+        if (disposed) {
+            warm.runtime.dispose();
+            return;
+        }
+        idle.addFirst(Tuple.of(toolClassPath, warm));
+        while (idle.size() > maxIdle) {
+            idle.removeLast()._2.runtime.dispose();
+        }
+    }
+
+    /**
+     * Disposes of the idle runtimes, and of those lent as they are given back.
+     */
+    public synchronized void dispose() {
+        disposed = true;
+        idle.forEach(t -> t._2.runtime.dispose());
+        idle.clear();
+        toolFiles.clear();
+    }
+
+    /**
+     * The resolution of a tool's files in this session, keyed by its Maven coordinates,
+     * begun by {@code resolve} unless begun earlier.
+     */
+    public synchronized CompletableFuture<Either<Message, List<File>>> toolFiles(
+            final String coordinates,
+            final Supplier<CompletableFuture<Either<Message, List<File>>>> resolve
+    ) {
+        return toolFiles.computeIfAbsent(coordinates, c -> resolve.get());
+    }
+
+    /**
+     * Forgets a resolution of a tool's files that failed, so that it is retried.
+     */
+    public synchronized void forgetToolFiles(
+            final String coordinates,
+            final CompletableFuture<Either<Message, List<File>>> resolution
+    ) {
+        toolFiles.remove(coordinates, resolution);
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.datatypes;
+
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+
+/**
+ * Selects the options of the Clojure compiler, {@code clojure.core/*compiler-options*}.
+ *
+ * @since 0.4.0
+ */
+public enum CompilerProfile {
+
+    /**
+     * Clojure's defaults.
+     */
+    DEFAULT(
+            LinkedHashMap.empty()
+    ),
+
+    /**
+     * Direct linking, and elision of the documentation and source location metadata of vars.
+     * Faster to load and to run, at the cost of redefining vars having no effect on their
+     * direct callers.
+     */
+    PRODUCTION(
+            LinkedHashMap.of(
+                    "direct-linking", "true",
+                    "elide-meta", "[:doc :file :line :added]"
+            )
+    ),
+
+    /**
+     * Locals clearing disabled, leaving the values of locals visible to debuggers.
+     * Not for production, as values are retained for longer.
+     */
+    DEBUG(
+            LinkedHashMap.of(
+                    "disable-locals-clearing", "true"
+            )
+    );
+
+    /**
+     * Compiler option names, sans leading colon, to their values in EDN.
+     */
+    public final Map<String, String> options;
+
+    CompilerProfile(final Map<String, String> options) {
+        this.options = options;
+    }
+
+    /**
+     * The options as an EDN map, as bound to {@code clojure.core/*compiler-options*}.
+     */
+    public String edn() {
+        return options
+                .map(t -> ":" + t._1 + " " + t._2)
+                .mkString("{", ", ", "}");
+    }
+
+    /**
+     * The options as the Java system properties Clojure reads when it starts.
+     */
+    public List<String> systemPropertyDefinitions() {
+        return options
+                .map(t -> "-Dclojure.compiler." + t._1 + "=" + t._2)
+                .toList();
+    }
+
+}
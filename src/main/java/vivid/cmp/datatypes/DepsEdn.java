@@ -82,6 +82,13 @@ public class DepsEdn {
                                 ).toJavaMap()
                         )
                 ),
+                Option.when(
+                        !state.compilerProfile.options.isEmpty(),
+                        new Tuple2<Keyword, Object>(
+                                Keyword.newKeyword("jvm-opts"),
+                                state.compilerProfile.systemPropertyDefinitions().toJavaList()
+                        )
+                ),
                 Option.when(
                         state.args.isDefined(),
                         new Tuple2<Keyword, Object>(
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.datatypes;
+
+/**
+ * Selects where a {@code clojure} goal execution runs Clojure.
+ *
+ * @since 0.4.0
+ */
+public enum ExecutionMode {
+
+    /**
+     * In a sub-process of its own.
+     */
+    SUB_PROCESS,
+
+    /**
+     * In a sub-process of its own, launched as {@code java} running {@code clojure.main} with
+     * the classpath already resolved by Maven, without the 'clojure' executable.
+     */
+    JAVA,
+
+    /**
+     * Within Maven's JVM, in a Clojure runtime isolated from those of other executions.
+     */
+    IN_PROCESS,
+
+    /**
+     * In a warm daemon JVM outliving the Maven invocation, shared by executions with the
+     * same classpath of jars.
+     */
+    DAEMON
+
+}
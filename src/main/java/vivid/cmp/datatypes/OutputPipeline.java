@@ -0,0 +1,237 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.datatypes;
+
+import io.vavr.control.Option;
+import org.apache.commons.exec.LogOutputStream;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Carries the output of a sub-process to a Maven log, line by line, each line prefixed.
+ *
+ * The threads pumping the sub-process' stdout and stderr merely split it into lines and
+ * hand them over to a queue of bounded capacity, so that the sub-process never waits on
+ * the log unless the queue fills up. A single thread takes the lines from the queue,
+ * logging up to the console line limit, if any, and writing all of them to the capture
+ * file, if any, compressed with gzip.
+ *
+ * @since 0.4.0
+ */
+public final class OutputPipeline implements Closeable {
+
+    private static final int CAPACITY = 8192;
+
+    private static final class Line {
+
+        final String text;
+        final boolean error;
+
+        Line(final String text, final boolean error) {
+            this.text = text;
+            this.error = error;
+        }
+
+    }
+
+    private static final Line END = new Line(null, false);
+
+    private final Log log;
+    private final String prefix;
+    private final int consoleLineLimit;
+    private final Option<Path> captureFile;
+
+    private final BlockingQueue<Line> queue = new ArrayBlockingQueue<>(CAPACITY);
+    private final OutputStream out = new Splitter(false);
+    private final OutputStream err = new Splitter(true);
+    private final Thread consumer;
+
+    private Writer capture;
+    private IOException captureFailure;
+    private int consoleLines;
+    private int suppressedLines;
+    private boolean closed;
+
+    /**
+     * @param prefix prepended to each line logged
+     * @param consoleLineLimit the most lines logged, or 0 for no limit
+     * @param captureFile the file to which all lines are written compressed, if any
+     */
+    public OutputPipeline(
+            final Log log,
+            final String prefix,
+            final int consoleLineLimit,
+            final Option<Path> captureFile
+    ) {
+        this.log = log;
+        this.prefix = prefix;
+        this.consoleLineLimit = consoleLineLimit;
+        this.captureFile = captureFile;
+        this.consumer = new Thread(this::consume, "vivid.cmp output " + prefix.trim());
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    /**
+     * @return the log the lines go to
+     */
+    public Log log() {
+        return log;
+    }
+
+    /**
+     * @return the stream receiving the sub-process' stdout
+     */
+    public OutputStream out() {
+        return out;
+    }
+
+    /**
+     * @return the stream receiving the sub-process' stderr
+     */
+    public OutputStream err() {
+        return err;
+    }
+
+    /**
+     * @return the number of lines left unlogged for exceeding the console line limit
+     */
+    public int suppressedLines() {
+        return suppressedLines;
+    }
+
+    /**
+     * @return the file that captured the output, if any
+     */
+    public Option<Path> captureFile() {
+        return captureFile;
+    }
+
+    /**
+     * Awaits the logging of all lines received, including incomplete last lines, and
+     * closes the capture file.
+     *
+     * @throws IOException should the capture file not have been written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        out.close();
+        err.close();
+        try {
+            queue.put(END);
+            consumer.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (captureFailure != null) {
+            throw captureFailure;
+        }
+    }
+
+    private void consume() {
+        if (captureFile.isDefined()) {
+            try {
+                Files.createDirectories(captureFile.get().getParent());
+                capture = new BufferedWriter(new OutputStreamWriter(
+                        new GZIPOutputStream(Files.newOutputStream(captureFile.get())),
+                        StandardCharsets.UTF_8
+                ));
+            } catch (final IOException e) {
+                captureFailure = e;
+            }
+        }
+        try {
+            for (Line line = queue.take(); line != END; line = queue.take()) {
+                emit(line);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (capture != null) {
+                try {
+                    capture.close();
+                } catch (final IOException e) {
+                    captureFailure = e;
+                }
+            }
+        }
+    }
+
+    private void emit(
+            final Line line
+    ) {
+        if (consoleLineLimit <= 0 || consoleLines < consoleLineLimit) {
+            consoleLines++;
+            if (line.error) {
+                log.error(prefix + line.text);
+            } else {
+                log.info(prefix + line.text);
+            }
+        } else {
+            suppressedLines++;
+        }
+
+        if (capture != null && captureFailure == null) {
+            try {
+                capture.write(line.text);
+                capture.write('\n');
+            } catch (final IOException e) {
+                captureFailure = e;
+            }
+        }
+    }
+
+    /**
+     * Splits what the pump thread writes into lines, handed over to the queue.
+     */
+    private final class Splitter extends LogOutputStream {
+
+        private final boolean error;
+
+        Splitter(final boolean error) {
+            this.error = error;
+        }
+
+        @Override
+        protected void processLine(
+                final String line,
+                final int logLevel
+        ) {
+            try {
+                queue.put(new Line(line, error));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.datatypes;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accounts for the resources of a Clojure sub-process, and holds it to its limits.
+ *
+ * Seen from outside, on Linux, the process' CPU time and resident set size are sampled
+ * from {@code /proc} as it runs, and the process is stopped should its resident set exceed
+ * the maximum memory. Seen from inside, the sub-process' JVM writes its own CPU and garbage
+ * collection times as it shuts down, given the JVM and {@code clojure.main} options of
+ * {@link #jvmOptions()} and {@link #clojureMainOptions()}.
+ *
+ * @since 0.4.0
+ */
+public final class ResourceAccounting {
+
+    public static final String RESOURCE_USAGE_PROPERTY_NAME = "vivid.cmp.resource-usage";
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 100;
+
+    // USER_HZ, the unit of the times in /proc/<pid>/stat, is 100 on all but exotic kernels
+    private static final long CLOCK_TICKS_PER_SECOND = 100;
+
+    private final long timeoutMillis;
+    private final long maxMemoryBytes;
+    private final Option<Path> childReport;
+    private final List<String> clojureMainOptions;
+
+    private volatile long startNanos;
+    private volatile long wallMillis;
+    private volatile Option<Long> cpuMillis = Option.none();
+    private volatile Option<Long> peakRssBytes = Option.none();
+    private volatile boolean memoryExceeded;
+    private volatile boolean finished;
+    private Thread sampler;
+
+    /**
+     * @param timeoutMillis the time after which the sub-process is stopped, or 0 for none
+     * @param maxMemoryBytes the resident set size beyond which the sub-process is stopped, or 0 for none
+     * @param childReport the file the sub-process' JVM writes its own accounting to, if wanted
+     * @param clojureMainOptions the {@code clojure.main} options making the JVM write to the file
+     */
+    public ResourceAccounting(
+            final long timeoutMillis,
+            final long maxMemoryBytes,
+            final Option<Path> childReport,
+            final List<String> clojureMainOptions
+    ) {
+        this.timeoutMillis = timeoutMillis;
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.childReport = childReport;
+        this.clojureMainOptions = clojureMainOptions;
+    }
+
+    /**
+     * Accounting for nothing and imposing no limits.
+     */
+    public static ResourceAccounting none() {
+        return new ResourceAccounting(0, 0, Option.none(), List.empty());
+    }
+
+    public long timeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public long maxMemoryBytes() {
+        return maxMemoryBytes;
+    }
+
+    public List<String> jvmOptions() {
+        return childReport
+                .map(file -> List.of("-D" + RESOURCE_USAGE_PROPERTY_NAME + "=" + file))
+                .getOrElse(List.empty());
+    }
+
+    public List<String> clojureMainOptions() {
+        return clojureMainOptions;
+    }
+
+    /**
+     * Starts accounting for the process, just launched.
+     */
+    public synchronized void started(
+            final Process process
+    ) {
+        startNanos = System.nanoTime();
+        childReport.forEach(file -> Try.run(() -> Files.deleteIfExists(file)));
+        final Option<Path> proc = pid(process)
+                .map(pid -> Paths.get("/proc", String.valueOf(pid)))
+                .filter(Files::isDirectory);
+        if (proc.isDefined()) {
+            sampler = new Thread(() -> sample(process, proc.get()), "vivid.cmp resource accounting");
+            sampler.setDaemon(true);
+            sampler.start();
+        }
+    }
+
+    /**
+     * Stops accounting, the process having exited.
+     */
+    public synchronized void finished() {
+        if (startNanos == 0 || finished) {
+            return;
+        }
+        finished = true;
+        wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        if (sampler != null) {
+            sampler.interrupt();
+            Try.run(sampler::join);
+        }
+    }
+
+    /**
+     * @return whether the process was stopped for exceeding the maximum memory
+     */
+    public boolean memoryExceeded() {
+        return memoryExceeded;
+    }
+
+    /**
+     * @return the resources used by the process, once finished
+     */
+    public Option<ResourceUsage> usage() {
+        if (!finished) {
+            return Option.none();
+        }
+        final Properties reported = childReport
+                .flatMap(file -> Try.of(() -> {
+                    final Properties properties = new Properties();
+                    try (InputStream in = Files.newInputStream(file)) {
+                        properties.load(in);
+                    }
+                    return properties;
+                }).toOption())
+                .getOrElse(Properties::new);
+        return Option.of(new ResourceUsage(
+                wallMillis,
+                longProperty(reported, "cpuMillis").orElse(cpuMillis),
+                peakRssBytes,
+                longProperty(reported, "gcMillis")
+        ));
+    }
+
+    private static Option<Long> longProperty(
+            final Properties properties,
+            final String key
+    ) {
+        return Option.of(properties.getProperty(key))
+                .flatMap(value -> Try.of(() -> Long.parseLong(value.trim())).toOption());
+    }
+
+    private void sample(
+            final Process process,
+            final Path proc
+    ) {
+        while (!Thread.currentThread().isInterrupted() && process.isAlive()) {
+            // Both disappear as the process exits, leaving the last samples
+            readStatus(proc.resolve("status")).forEach(status -> {
+                status._1.forEach(peak -> peakRssBytes = Option.of(peak));
+                status._2.filter(rss -> maxMemoryBytes > 0 && rss > maxMemoryBytes).forEach(rss -> {
+                    memoryExceeded = true;
+                    process.destroy();
+                });
+            });
+            readCpuMillis(proc.resolve("stat")).forEach(cpu -> cpuMillis = Option.of(cpu));
+            try {
+                Thread.sleep(SAMPLE_INTERVAL_MILLIS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * The peak and current resident set sizes, from {@code VmHWM} and {@code VmRSS}.
+     */
+    private static Option<Tuple2<Option<Long>, Option<Long>>> readStatus(
+            final Path status
+    ) {
+        return Try.of(() -> List.ofAll(Files.readAllLines(status, StandardCharsets.UTF_8)))
+                .toOption()
+                .map(lines -> Tuple.of(
+                        kilobytes(lines, "VmHWM:"),
+                        kilobytes(lines, "VmRSS:")
+                ));
+    }
+
+    private static Option<Long> kilobytes(
+            final List<String> lines,
+            final String field
+    ) {
+        return lines.find(line -> line.startsWith(field))
+                .flatMap(line -> Try.of(() -> Long.parseLong(
+                        line.substring(field.length()).replace("kB", "").trim()
+                ) * 1024).toOption());
+    }
+
+    /**
+     * The user and system CPU time of the process, from {@code utime} and {@code stime}.
+     */
+    private static Option<Long> readCpuMillis(
+            final Path stat
+    ) {
+        return Try.of(() -> new String(Files.readAllBytes(stat), StandardCharsets.UTF_8))
+                .toOption()
+                // The command name, in parentheses, may itself contain spaces
+                .map(line -> line.substring(line.lastIndexOf(')') + 2).split(" "))
+                .flatMap(fields -> Try.of(() ->
+                        (Long.parseLong(fields[11]) + Long.parseLong(fields[12])) * 1000 / CLOCK_TICKS_PER_SECOND
+                ).toOption());
+    }
+
+    /**
+     * The process ID, by {@code Process.pid()} from Java 9, otherwise from the {@code pid}
+     * field of the JDK's Unix process implementation.
+     */
+    private static Option<Long> pid(
+            final Process process
+    ) {
+        return Try.of(() -> (Long) Process.class.getMethod("pid").invoke(process))
+                .orElse(() -> Try.of(() -> {
+                    final Field field = process.getClass().getDeclaredField("pid");
+                    field.setAccessible(true);
+                    return (long) field.getInt(process);
+                }))
+                .toOption();
+    }
+
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.datatypes;
+
+import io.vavr.control.Option;
+
+/**
+ * The resources a sub-process used, each but the wall time only known where it could be
+ * measured.
+ *
+ * @since 0.4.0
+ */
+public final class ResourceUsage {
+
+    public final long wallMillis;
+    public final Option<Long> cpuMillis;
+    public final Option<Long> peakRssBytes;
+    public final Option<Long> gcMillis;
+
+    public ResourceUsage(
+            final long wallMillis,
+            final Option<Long> cpuMillis,
+            final Option<Long> peakRssBytes,
+            final Option<Long> gcMillis
+    ) {
+        this.wallMillis = wallMillis;
+        this.cpuMillis = cpuMillis;
+        this.peakRssBytes = peakRssBytes;
+        this.gcMillis = gcMillis;
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.datatypes;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The Flight Recorder event of a {@link Timeline.Span}. Only loaded by JVMs having
+ * Flight Recorder, though compiled against the API of the JDK 11 or later building
+ * this plugin.
+ *
+ * @since 0.4.0
+ */
+@Name("vivid.cmp.Span")
+@Label("Clojure Maven Plugin Span")
+@Category({"Maven", "vivid:clojure-maven-plugin"})
+@Description("A phase of a vivid:clojure-maven-plugin goal execution")
+@StackTrace(false)
+final class SpanEvent extends Event {
+
+    @Label("Project")
+    String project;
+
+    @Label("Goal")
+    String goal;
+
+    @Label("Execution ID")
+    String executionId;
+
+    @Label("Phase")
+    String name;
+
+    @Label("Detail")
+    String detail;
+
+    static Object begin(
+            final String project,
+            final String goal,
+            final String executionId,
+            final String name,
+            final String detail
+    ) {
+        final SpanEvent event = new SpanEvent();
+        event.project = project;
+        event.goal = goal;
+        event.executionId = executionId;
+        event.name = name;
+        event.detail = detail;
+        event.begin();
+        return event;
+    }
+
+    static void commit(
+            final Object event
+    ) {
+        ((SpanEvent) event).commit();
+    }
+
+}
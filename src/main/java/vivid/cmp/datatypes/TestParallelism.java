@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.datatypes;
+
+/**
+ * Selects the granularity at which clojure.test tests run in parallel.
+ *
+ * @since 0.4.0
+ */
+public enum TestParallelism {
+
+    NONE(false, false),
+    NAMESPACES(true, false),
+    VARS(false, true),
+    ALL(true, true);
+
+    /**
+     * Whether test namespaces run concurrently with one another.
+     */
+    public final boolean namespaces;
+
+    /**
+     * Whether the test vars of a namespace run concurrently with one another.
+     */
+    public final boolean vars;
+
+    TestParallelism(final boolean namespaces, final boolean vars) {
+        this.namespaces = namespaces;
+        this.vars = vars;
+    }
+
+}
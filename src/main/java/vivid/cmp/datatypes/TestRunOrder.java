@@ -0,0 +1,40 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.datatypes;
+
+/**
+ * Selects the order in which clojure.test test namespaces, and the test vars within them, are run,
+ * informed by the durations and outcomes of prior test runs.
+ *
+ * @since 0.4.0
+ */
+public enum TestRunOrder {
+
+    /**
+     * In the order in which they are found.
+     */
+    FILESYSTEM,
+
+    /**
+     * Those expected to take longest first, so that the test run doesn't end waiting on a straggler.
+     */
+    BALANCED,
+
+    /**
+     * Those that failed in the prior run first, then those expected to take longest.
+     */
+    FAILEDFIRST
+
+}
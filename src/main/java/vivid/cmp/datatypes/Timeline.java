@@ -0,0 +1,200 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.datatypes;
+
+import io.vavr.collection.List;
+import io.vavr.control.Try;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The spans of time a goal execution spent in each of its phases: parsing configuration,
+ * resolving dependencies, building class realms, bootstrapping Clojure and requiring
+ * namespaces, running tests, and running sub-processes. Spans may be opened and closed
+ * on any thread; each records the thread it was opened on. Spans are opened as the
+ * resource of a try statement never referencing it, for which javac's {@code try} lint
+ * is suppressed.
+ *
+ * Where the JVM running Maven has Flight Recorder, each span is also committed as a
+ * {@code vivid.cmp.Span} event, showing within recordings of the build.
+ *
+ * @since 0.4.0
+ */
+public final class Timeline {
+
+    /**
+     * A timeline recording nothing, for whatever runs outside of any goal execution.
+     */
+    public static final Timeline NONE = new Timeline("", "", "", false);
+
+    private static final boolean FLIGHT_RECORDER_AVAILABLE = Try.of(
+            () -> Class.forName("jdk.jfr.Event", false, Timeline.class.getClassLoader())
+    ).isSuccess();
+
+    private final String project;
+    private final String goal;
+    private final String executionId;
+    private final boolean recording;
+    private final Instant start;
+    private final long startNanos;
+    private final ConcurrentLinkedQueue<Span> closed;
+
+    public Timeline(
+            final String project,
+            final String goal,
+            final String executionId
+    ) {
+        this(project, goal, executionId, true);
+    }
+
+    private Timeline(
+            final String project,
+            final String goal,
+            final String executionId,
+            final boolean recording
+    ) {
+        this.project = project;
+        this.goal = goal;
+        this.executionId = executionId;
+        this.recording = recording;
+        this.start = Instant.now();
+        this.startNanos = System.nanoTime();
+        this.closed = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Opens a span, which lasts until closed.
+     *
+     * @param name the phase, such as {@code resolve-dependencies}
+     * @param detail what the phase was about, such as the namespace required
+     */
+    public Span span(
+            final String name,
+            final String detail
+    ) {
+        return new Span(name, detail);
+    }
+
+    /**
+     * @return the spans closed so far, in the order they were opened
+     */
+    public List<Span> spans() {
+        return List.ofAll(closed).sortBy(span -> span.startNanos);
+    }
+
+    /**
+     * @return the timeline as a JSON object, its spans' times in milliseconds since
+     *     the timeline began
+     */
+    public String toJson() {
+        return List.of(
+                "\"project\": " + jsonString(project),
+                "\"goal\": " + jsonString(goal),
+                "\"executionId\": " + jsonString(executionId),
+                "\"start\": " + jsonString(start.toString()),
+                "\"spans\": " + spans()
+                        .map(span -> List.of(
+                                "\"name\": " + jsonString(span.name),
+                                "\"detail\": " + jsonString(span.detail),
+                                "\"thread\": " + jsonString(span.thread),
+                                "\"startMillis\": " + millis(span.startNanos - startNanos),
+                                "\"durationMillis\": " + millis(span.durationNanos)
+                        ).mkString("{", ", ", "}"))
+                        .mkString("[\n    ", ",\n    ", "\n  ]")
+        ).mkString("{\n  ", ",\n  ", "\n}\n");
+    }
+
+    private static String millis(
+            final long nanos
+    ) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    private static String jsonString(
+            final String s
+    ) {
+        final StringBuilder json = new StringBuilder("\"");
+        for (final char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    /**
+     * A phase of the goal execution, closed once the phase is over.
+     */
+    public final class Span implements AutoCloseable {
+
+        private final String name;
+        private final String detail;
+        private final String thread;
+        private final long startNanos;
+        // A SpanEvent, held as an Object so that JVMs without Flight Recorder never load its class
+        private final Object event;
+        private long durationNanos = -1;
+
+        private Span(
+                final String name,
+                final String detail
+        ) {
+            this.name = name;
+            this.detail = detail;
+            this.thread = Thread.currentThread().getName();
+            this.event = recording && FLIGHT_RECORDER_AVAILABLE ?
+                    SpanEvent.begin(project, goal, executionId, name, detail) :
+                    null;
+            this.startNanos = System.nanoTime();
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public String detail() {
+            return detail;
+        }
+
+        /**
+         * @return the duration of the span, or -1 while open
+         */
+        public long durationNanos() {
+            return durationNanos;
+        }
+
+        @Override
+        public void close() {
+            if (durationNanos >= 0) {
+                return;
+            }
+            durationNanos = System.nanoTime() - startNanos;
+            if (event != null) {
+                SpanEvent.commit(event);
+            }
+            if (recording) {
+                closed.add(this);
+            }
+        }
+
+    }
+
+}
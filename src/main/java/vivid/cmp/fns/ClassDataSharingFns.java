@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.fns;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.apache.maven.plugin.MojoExecutionException;
+import vivid.cmp.messages.VCMPE1InternalError;
+import vivid.cmp.mojo.AbstractCMPMojo;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AppCDS archives of the classes a classpath loads, sparing the JVMs launched with that
+ * classpath much of the loading and verifying of classes, Clojure's in particular.
+ *
+ * The first run with a classpath dumps the classes it loaded at exit with
+ * {@code -XX:ArchiveClassesAtExit}, and later runs map them with {@code -XX:SharedArchiveFile}.
+ * Archives are kept in {@code target/clojure-maven-plugin/cpcache/} next to the argfiles,
+ * named after a hash of the classpath, the size and modification time of its files, and the
+ * JVM, as the JVM disregards an archive should any of them change. Alongside each is the
+ * duration of the run that created it, to compare later runs against.
+ *
+ * Dynamic archives require Java 13 or later, and a JVM known to be that, so they are only
+ * used when this plugin launches the 'java' executable of the JVM running Maven itself.
+ *
+ * @since 0.4.0
+ */
+public class ClassDataSharingFns {
+
+    private static final String CACHE_DIRECTORY_NAME = "cpcache";
+    private static final String ARCHIVE_SUFFIX = ".jsa";
+    private static final String DURATION_SUFFIX = ".ms";
+
+    private static final int MINIMUM_JAVA_VERSION = 13;
+
+    // The JVM reports each class it could not archive, and an archive it could not use
+    private static final List<String> QUIET_JVM_OPTIONS = List.of(
+            "-Xlog:cds=off",
+            "-Xlog:cds+dynamic=off"
+    );
+
+    private ClassDataSharingFns() {
+        // Hide the public constructor
+    }
+
+    /**
+     * Launches a JVM given its options.
+     */
+    public interface Launch {
+        void launch(List<String> jvmOptions) throws MojoExecutionException;
+    }
+
+    /**
+     * The archive of the classes {@param classPath} loads in the JVM running Maven, unless it
+     * is too old to dump archives.
+     */
+    public static Option<Path> archive(
+            final AbstractCMPMojo mojo,
+            final List<File> classPath
+    ) {
+        if (javaVersion() < MINIMUM_JAVA_VERSION) {
+            return Option.none();
+        }
+        final String key = List.of(
+                "java " + System.getProperty("java.home"),
+                "vm " + System.getProperty("java.vm.version")
+        )
+                .appendAll(classPath.map(file -> file.isFile() ?
+                        String.format("file %s %d %d", file.getAbsolutePath(), file.length(), file.lastModified()) :
+                        "directory " + file.getAbsolutePath()))
+                .mkString("\n");
+        return Option.of(
+                FileFns.pluginWorkDirectory(mojo)
+                        .resolve(CACHE_DIRECTORY_NAME)
+                        .resolve(FileFns.sha256(key) + ARCHIVE_SUFFIX)
+        );
+    }
+
+    /**
+     * Launches with the archive, if any: sharing its class data when present, otherwise
+     * creating it as the JVM exits, so long as the launch succeeds. Logs the duration of
+     * the launch against that of the launch creating the archive.
+     */
+    public static void launch(
+            final AbstractCMPMojo mojo,
+            final Option<Path> archive,
+            final Launch launch
+    ) throws MojoExecutionException {
+        if (archive.isEmpty()) {
+            launch.launch(List.empty());
+            return;
+        }
+
+        final Path path = archive.get();
+        final Path duration = path.resolveSibling(path.getFileName() + DURATION_SUFFIX);
+        final long start = System.nanoTime();
+
+        if (Files.isRegularFile(path)) {
+            launch.launch(QUIET_JVM_OPTIONS.prepend("-XX:SharedArchiveFile=" + path));
+            mojo.getLog().debug(String.format(
+                    "Ran in %d ms sharing class data from %s; the run creating it took %s ms",
+                    elapsedMillis(start),
+                    path,
+                    Try.of(() -> new String(Files.readAllBytes(duration), StandardCharsets.UTF_8).trim())
+                            .getOrElse("?")
+            ));
+            return;
+        }
+
+        // Dumped aside then moved into place, so that concurrent builds never map a partial archive
+        final Path pending = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            launch.launch(QUIET_JVM_OPTIONS.prepend("-XX:ArchiveClassesAtExit=" + pending));
+            final long elapsed = elapsedMillis(start);
+            if (Files.isRegularFile(pending)) {
+                Files.write(duration, String.valueOf(elapsed).getBytes(StandardCharsets.UTF_8));
+                Files.move(pending, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                mojo.getLog().debug(String.format(
+                        "Ran in %d ms creating the class data sharing archive %s",
+                        elapsed,
+                        path
+                ));
+            }
+        } catch (final IOException e) {
+            mojo.getLog().debug(
+                    VCMPE1InternalError.message("Could not keep class data sharing archive: " + path, e).render(mojo)
+            );
+        } finally {
+            Try.run(() -> Files.deleteIfExists(pending));
+        }
+    }
+
+    private static long elapsedMillis(
+            final long start
+    ) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * The feature version of the JVM running Maven: 8 for "1.8", 13 for "13".
+     */
+    private static int javaVersion() {
+        final String version = System.getProperty("java.specification.version");
+        return Try.of(() -> Integer.parseInt(
+                version.startsWith("1.") ? version.substring(2) : version
+        )).getOrElse(0);
+    }
+
+}
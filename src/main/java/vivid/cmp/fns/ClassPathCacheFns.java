@@ -0,0 +1,141 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.fns;
+
+import io.vavr.collection.List;
+import io.vavr.control.Either;
+import vivid.cmp.messages.Message;
+import vivid.cmp.messages.VCMPE1InternalError;
+import vivid.cmp.mojo.AbstractCMPMojo;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * The argfiles and pathing jars that deliver complete classpaths to sub-processes, akin to
+ * the {@code .cpcache} of the Clojure CLI tools. They are kept in
+ * {@code target/clojure-maven-plugin/cpcache/}, named after a hash of the classpath, alongside
+ * the class data sharing archives of {@link ClassDataSharingFns}.
+ *
+ * @since 0.4.0
+ */
+public class ClassPathCacheFns {
+
+    private static final String CACHE_DIRECTORY_NAME = "cpcache";
+    private static final String ARGFILE_SUFFIX = ".argfile";
+    private static final String PATHING_JAR_SUFFIX = ".jar";
+
+    private ClassPathCacheFns() {
+        // Hide the public constructor
+    }
+
+    /**
+     * A Java {@code @argfile} setting the classpath to {@param classPath}, written unless
+     * already present.
+     */
+    public static Either<Message, Path> argFile(
+            final AbstractCMPMojo mojo,
+            final List<File> classPath
+    ) {
+        final Path argFile = classPathFile(mojo, classPath, ARGFILE_SUFFIX);
+        if (Files.isRegularFile(argFile)) {
+            return Either.right(argFile);
+        }
+        // Quoted so that paths may contain spaces; backslashes escape within quotes
+        final String quoted = classPath
+                .map(File::getAbsolutePath)
+                .mkString(File.pathSeparator)
+                .replace("\\", "\\\\")
+                .replace("\"", "\\\"");
+        return writeAside(argFile, out -> out.write(
+                ("-cp\n\"" + quoted + "\"\n").getBytes(StandardCharsets.UTF_8)
+        ));
+    }
+
+    /**
+     * A jar containing nothing but a manifest whose {@code Class-Path} lists {@param classPath},
+     * written unless already present.
+     */
+    public static Either<Message, Path> pathingJar(
+            final AbstractCMPMojo mojo,
+            final List<File> classPath
+    ) {
+        final Path jar = classPathFile(mojo, classPath, PATHING_JAR_SUFFIX);
+        if (Files.isRegularFile(jar)) {
+            return Either.right(jar);
+        }
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(
+                Attributes.Name.CLASS_PATH,
+                classPath.map(ClassPathCacheFns::classPathEntry).mkString(" ")
+        );
+        return writeAside(jar, out -> new JarOutputStream(out, manifest).close());
+    }
+
+    /**
+     * The URL of the file relative to a pathing jar, as required by {@code Class-Path}.
+     * Anything other than an existing file is taken to be a directory, which needs a
+     * trailing slash, as directories such as {@code target/classes} may not exist yet.
+     */
+    private static String classPathEntry(
+            final File file
+    ) {
+        final String uri = file.getAbsoluteFile().toURI().toString();
+        return file.isFile() || uri.endsWith("/") ?
+                uri :
+                uri + "/";
+    }
+
+    private static Path classPathFile(
+            final AbstractCMPMojo mojo,
+            final List<File> classPath,
+            final String suffix
+    ) {
+        return FileFns.pluginWorkDirectory(mojo)
+                .resolve(CACHE_DIRECTORY_NAME)
+                .resolve(FileFns.sha256(classPath.map(File::getAbsolutePath).mkString("\n")) + suffix);
+    }
+
+    private interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private static Either<Message, Path> writeAside(
+            final Path path,
+            final Writer writer
+    ) {
+        // Written aside then moved into place, so that concurrent builds never read a partial file
+        try {
+            Files.createDirectories(path.getParent());
+            final Path temp = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                writer.write(out);
+            }
+            return Either.right(Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE));
+        } catch (final IOException e) {
+            return Either.left(VCMPE1InternalError.message("Could not write file: " + path, e));
+        }
+    }
+
+}
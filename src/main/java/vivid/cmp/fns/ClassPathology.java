@@ -16,19 +16,33 @@ package vivid.cmp.fns;
 
 import io.vavr.Function1;
 import io.vavr.Function3;
+import io.vavr.collection.HashSet;
 import io.vavr.collection.List;
+import io.vavr.collection.Set;
 import io.vavr.collection.Stream;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Dependency;
 import org.codehaus.plexus.classworlds.ClassWorld;
 import org.codehaus.plexus.classworlds.realm.ClassRealm;
 import org.codehaus.plexus.classworlds.realm.DuplicateRealmException;
 import vivid.cmp.datatypes.ClasspathScope;
 import vivid.cmp.datatypes.ClojureMojoState;
+import vivid.cmp.datatypes.ClojureRuntime;
+import vivid.cmp.datatypes.ClojureRuntimeCache;
+import vivid.cmp.datatypes.Timeline;
+import vivid.cmp.messages.Message;
+import vivid.cmp.messages.VCMPE5UnresolvableArtifact;
 import vivid.cmp.mojo.AbstractCMPMojo;
 
 import java.io.File;
+import java.lang.management.ManagementFactory;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 public class ClassPathology {
@@ -37,26 +51,280 @@ public class ClassPathology {
         // Hide the public constructor
     }
 
-    @SuppressWarnings("java:S2095")
-    public static void addToClassLoader(
+    private static final AtomicInteger runtimeCounter = new AtomicInteger();
+
+    private static final String VIVID_CMP_RUNTIME_NS = "vivid.cmp.runtime";
+
+    /**
+     * Artifact IDs of Clojure and the libraries that Clojure itself requires, all of group
+     * {@code org.clojure}.
+     */
+    private static final Set<String> CLOJURE_ARTIFACT_IDS = HashSet.of(
+            "clojure",
+            "core.specs.alpha",
+            "spec.alpha"
+    );
+
+    /**
+     * Files needed by each Clojure runtime of this plugin in addition to those of the project:
+     * this plugin's own artifact that carries its Clojure code, followed by this plugin's Clojure,
+     * which is only used when the project provides none.
+     */
+    public static List<File> pluginRuntimeFiles(
+            final AbstractCMPMojo mojo
+    ) {
+        return List.of(mojo.pluginDescriptor.getPluginArtifact().getFile())
+                .appendAll(
+                        List.ofAll(mojo.pluginDescriptor.getArtifacts())
+                                .filter(a -> "org.clojure".equals(a.getGroupId()))
+                                .map(Artifact::getFile)
+                );
+    }
+
+    /**
+     * Creates a Clojure runtime isolated within a new class realm of its own, whose classpath
+     * consists of the files followed by {@link #pluginRuntimeFiles(AbstractCMPMojo)}. The realm's
+     * parent is the JDK's platform classloader, leaving Maven's and this plugin's classes invisible.
+     */
+    public static ClojureRuntime newClojureRuntime(
             final AbstractCMPMojo mojo,
             final List<File> files
-    ) throws DuplicateRealmException, MalformedURLException {
+    ) throws DuplicateRealmException, MalformedURLException, ReflectiveOperationException {
+        return newRealmRuntime(mojo, files.appendAll(pluginRuntimeFiles(mojo)));
+    }
+
+    @SuppressWarnings({"java:S2095", "try"})
+    private static ClojureRuntime newRealmRuntime(
+            final AbstractCMPMojo mojo,
+            final List<File> files
+    ) throws DuplicateRealmException, MalformedURLException, ReflectiveOperationException {
         // Referencing https://webtide.com/extending-the-maven-plugin-classpath-at-runtime/
 
-        final ClassWorld world = new ClassWorld();
-        final ClassRealm realm = world.newRealm(
-                "vivid.clojure-maven-plugin-with-leiningen",
-                Thread.currentThread().getContextClassLoader()
+        final String realmId = "vivid.clojure-maven-plugin.runtime-" + runtimeCounter.incrementAndGet();
+        try (Timeline.Span ignored = mojo.timeline().span("realm", realmId)) {
+            final ClassWorld world = new ClassWorld();
+            final ClassRealm realm = world.newRealm(
+                    realmId,
+                    ClassLoader.getSystemClassLoader().getParent()
+            );
+
+            final Function1<URL, Void> add = addURLToRealm.apply(mojo, realm);
+
+            for (final File f : files) {
+                add.apply(f.toURI().toURL());
+            }
+
+            return new ClojureRuntime(realm);
+        }
+    }
+
+    /**
+     * Begins resolving the tools' artifacts and their dependencies to files in the background,
+     * once per Maven session, so that resolution overlaps with whatever the goal does before
+     * it needs them. Obtain the files with {@link #resolveToolFiles(AbstractCMPMojo, Dependency)}.
+     */
+    public static void prefetchToolFiles(
+            final AbstractCMPMojo mojo,
+            final Iterable<Dependency> tools
+    ) {
+        for (final Dependency tool : tools) {
+            toolFilesResolution(mojo, tool);
+        }
+    }
+
+    /**
+     * Resolves the tool's artifact and its dependencies to files, once per Maven session,
+     * awaiting resolution begun by {@link #prefetchToolFiles(AbstractCMPMojo, Iterable)}.
+     */
+    @SuppressWarnings("try")
+    public static Either<Message, List<File>> resolveToolFiles(
+            final AbstractCMPMojo mojo,
+            final Dependency tool
+    ) {
+        final CompletableFuture<Either<Message, List<File>>> resolution = toolFilesResolution(mojo, tool);
+        final Either<Message, List<File>> files;
+        try (Timeline.Span ignored = mojo.timeline().span("await-tool", toolCoordinates(tool))) {
+            files = resolution.join();
+        }
+        if (files.isLeft()) {
+            ClojureRuntimeCache.forSession(mojo.mavenSession()).forgetToolFiles(toolCoordinates(tool), resolution);
+        }
+        return files;
+    }
+
+    private static CompletableFuture<Either<Message, List<File>>> toolFilesResolution(
+            final AbstractCMPMojo mojo,
+            final Dependency tool
+    ) {
+        final String coordinates = toolCoordinates(tool);
+        return ClojureRuntimeCache.forSession(mojo.mavenSession()).toolFiles(
+                coordinates,
+                () -> {
+                    final CompletableFuture<Either<Message, List<File>>> resolution = new CompletableFuture<>();
+                    final Thread resolver = new Thread(
+                            () -> {
+                                try {
+                                    resolution.complete(MavenDependencyFns.resolveToFiles(mojo, tool));
+                                } catch (final Throwable t) {
+                                    // Even Errors, lest awaiting the resolution hang the build
+                                    resolution.complete(Either.left(VCMPE5UnresolvableArtifact.message(coordinates, t)));
+                                }
+                            },
+                            "vivid.cmp tool resolution " + coordinates
+                    );
+                    resolver.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+                    resolver.setDaemon(true);
+                    resolver.start();
+                    return resolution;
+                }
+        );
+    }
+
+    private static String toolCoordinates(
+            final Dependency tool
+    ) {
+        return String.format(
+                "%s:%s:%s",
+                tool.getGroupId(),
+                tool.getArtifactId(),
+                tool.getVersion()
         );
+    }
 
-        final Function1<URL, Void> add = addURLToRealm.apply(mojo, realm);
+    /**
+     * Whether the file is the jar of Clojure or of one of the libraries that Clojure itself
+     * requires, as laid out in a Maven repository.
+     */
+    static boolean isClojureFile(
+            final File f
+    ) {
+        return Option.of(f.getAbsoluteFile().getParentFile())
+                .map(File::getParentFile)
+                .filter(artifactDir -> CLOJURE_ARTIFACT_IDS.contains(artifactDir.getName()))
+                .map(File::getParentFile)
+                .filter(clojureDir -> "clojure".equals(clojureDir.getName()))
+                .map(File::getParentFile)
+                .exists(orgDir -> "org".equals(orgDir.getName()));
+    }
 
-        for (final File f : files) {
-            add.apply(f.toURI().toURL());
+    /**
+     * Obtains a Clojure runtime running the tool's namespace, having the project's files on
+     * its classpath as well as the tool's.
+     *
+     * When {@code reuse} is {@code true}, the tool, its namespace, and Clojure are loaded once
+     * per Maven session into a warm runtime shared by successive executions with the same tool
+     * classpath: the project's Clojure, if any, followed by the tool's files and
+     * {@link #pluginRuntimeFiles(AbstractCMPMojo)}. Each execution is lent such a runtime, having
+     * the remainder of the project's files in a child realm of its own through which namespaces
+     * are loaded. Classes of packages under {@code clojure} are always those of the warm runtime.
+     * Closing the runtime removes the namespaces loaded by the execution, disposes of the child
+     * realm, and hands the runtime back for the next execution.
+     *
+     * Otherwise, a new runtime is created for the execution, per
+     * {@link #newClojureRuntime(AbstractCMPMojo, List)}.
+     */
+    @SuppressWarnings("try")
+    public static ClojureRuntime clojureRuntime(
+            final AbstractCMPMojo mojo,
+            final List<File> projectFiles,
+            final List<File> toolFiles,
+            final String toolNs,
+            final boolean reuse
+    ) throws Exception {
+        if (!reuse) {
+            final ClojureRuntime runtime = newClojureRuntime(mojo, projectFiles.appendAll(toolFiles));
+            return runtime.withContext(runtime.realm(), mojo.timeline(), () -> {
+                runtime.dispose();
+                logRuntimeFootprint(mojo);
+            });
         }
 
-        Thread.currentThread().setContextClassLoader(realm);
+        final List<File> warmFiles = projectFiles
+                .filter(ClassPathology::isClojureFile)
+                .appendAll(toolFiles)
+                .appendAll(pluginRuntimeFiles(mojo))
+                .map(File::getAbsoluteFile)
+                .distinct();
+        final List<String> toolClassPath = warmFiles.map(File::getPath);
+
+        final ClojureRuntimeCache cache = ClojureRuntimeCache.forSession(mojo.mavenSession());
+        final Option<ClojureRuntimeCache.Warm> idle = cache.take(toolClassPath);
+        final ClojureRuntimeCache.Warm warm;
+        if (idle.isDefined()) {
+            warm = idle.get();
+            mojo.getLog().debug(String.format(
+                    "Reusing warm Clojure runtime %s",
+                    warm.runtime.realm().getId()
+            ));
+        } else {
+            final ClojureRuntime runtime = newRealmRuntime(mojo, warmFiles);
+            try (Timeline.Span ignored = mojo.timeline().span("warm", toolNs)) {
+                warm = new ClojureRuntimeCache.Warm(
+                        runtime,
+                        runtime.withContext(runtime.realm(), mojo.timeline(), () -> { })
+                                .invoke(VIVID_CMP_RUNTIME_NS, "warm", toolNs)
+                );
+            } catch (final Exception e) {
+                runtime.dispose();
+                throw e;
+            }
+            mojo.getLog().debug(String.format(
+                    "Warmed Clojure runtime %s with %s",
+                    runtime.realm().getId(),
+                    toolNs
+            ));
+        }
+
+        final ClassRealm realm = warm.runtime.realm();
+        final String childId = "execution-" + runtimeCounter.incrementAndGet();
+        final ClassRealm child;
+        try (Timeline.Span ignored = mojo.timeline().span("realm", childId)) {
+            child = realm.createChildRealm(childId);
+            child.importFrom(realm, "clojure");
+            final Function1<URL, Void> add = addURLToRealm.apply(mojo, child);
+            final Set<File> warmFileSet = HashSet.ofAll(warmFiles);
+            for (final File f : projectFiles.map(File::getAbsoluteFile).filter(f -> !warmFileSet.contains(f))) {
+                add.apply(f.toURI().toURL());
+            }
+        }
+
+        return warm.runtime.withContext(child, mojo.timeline(), () -> {
+            try (Timeline.Span ignored = mojo.timeline().span("restore", realm.getId())) {
+                warm.runtime.invoke(VIVID_CMP_RUNTIME_NS, "restore", warm.snapshot);
+                realm.getWorld().disposeRealm(child.getId());
+                cache.giveBack(toolClassPath, warm);
+            } catch (final Exception e) {
+                mojo.getLog().debug(
+                        String.format(
+                                "Disposing of Clojure runtime %s that couldn't be restored",
+                                realm.getId()
+                        ),
+                        e
+                );
+                warm.runtime.dispose();
+            }
+            logRuntimeFootprint(mojo);
+        });
+    }
+
+    /**
+     * Logs the number of live Clojure runtimes and the JVM's metaspace usage, by which
+     * runtimes that fail to be unloaded become apparent.
+     */
+    private static void logRuntimeFootprint(
+            final AbstractCMPMojo mojo
+    ) {
+        if (!mojo.getLog().isDebugEnabled()) {
+            return;
+        }
+        final Option<Long> metaspaceUsed = List.ofAll(ManagementFactory.getMemoryPoolMXBeans())
+                .find(pool -> "Metaspace".equals(pool.getName()))
+                .map(pool -> pool.getUsage().getUsed());
+        mojo.getLog().debug(String.format(
+                "Clojure runtime realms live: %d; metaspace used: %s",
+                ClojureRuntime.liveRuntimes(),
+                metaspaceUsed.map(used -> String.format("%.1f MiB", used / (1024.0 * 1024.0))).getOrElse("unknown")
+        ));
     }
 
     private static final Function3<AbstractCMPMojo, ClassRealm, URL, Void> addURLToRealm =
@@ -90,11 +358,9 @@ public class ClassPathology {
                 )
                 .appendAll(
                         includeTransitiveDependencies ?
-                                // Dynamically resolve the classpath for the sub-process
-                                MavenDependencyFns.getResolvedDependencies(
-                                        mojo,
-                                        state
-                                ).map(d -> d.getFile().getPath()) :
+                                Stream
+                                        .ofAll(MavenDependencyFns.getResolvedDependencies(mojo, state))
+                                        .map(artifact -> artifact.getFile().getAbsolutePath()) :
                                 Stream.empty()
                 )
                 .map(
@@ -102,7 +368,8 @@ public class ClassPathology {
                                 mojo.mavenSession().getCurrentProject().getBasedir().toPath(),
                                 pathStyle
                         )
-                );
+                )
+                .distinct();
     }
 
     public enum PathStyle {
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.fns;
+
+import io.vavr.collection.List;
+import io.vavr.collection.Stream;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import vivid.cmp.datatypes.ClasspathDelivery;
+import vivid.cmp.datatypes.ClojureMojoState;
+import vivid.cmp.datatypes.ExecutionMode;
+import vivid.cmp.datatypes.OutputPipeline;
+import vivid.cmp.datatypes.ResourceAccounting;
+import vivid.cmp.datatypes.Timeline;
+import vivid.cmp.messages.Message;
+import vivid.cmp.mojo.AbstractCMPMojo;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * Runs Clojure per the configuration of a {@code clojure} goal execution.
+ *
+ * @since 0.4.0
+ */
+public class ClojureExecutionFns {
+
+    private static final String OUTPUT_DIRECTORY_NAME = "output";
+
+    private ClojureExecutionFns() {
+        // Hide the public constructor
+    }
+
+    /**
+     * Runs Clojure per the state, in its execution mode. Clojure's output goes to the output
+     * log if given, otherwise to Maven's log. The lines a sub-process outputs are prefixed by
+     * the execution ID, up to the state's console line limit, and captured to
+     * {@code target/clojure-maven-plugin/output/<execution ID>.log.gz} should the state say so.
+     *
+     * @param daemonIdleTimeout the idle timeout in minutes of a daemon started meanwhile
+     * @param maxDaemons the most daemons kept running at once
+     */
+    @SuppressWarnings("try")
+    public static void execute(
+            final AbstractCMPMojo mojo,
+            final String executionId,
+            final ClojureMojoState state,
+            final int daemonIdleTimeout,
+            final int maxDaemons,
+            final boolean reuseRuntime,
+            final Option<Log> output
+    ) throws MojoExecutionException {
+        try (Timeline.Span ignored = mojo.timeline().span("execution", executionId + " " + state.executionMode)) {
+            executeInMode(mojo, executionId, state, daemonIdleTimeout, maxDaemons, reuseRuntime, output);
+        }
+    }
+
+    private static void executeInMode(
+            final AbstractCMPMojo mojo,
+            final String executionId,
+            final ClojureMojoState state,
+            final int daemonIdleTimeout,
+            final int maxDaemons,
+            final boolean reuseRuntime,
+            final Option<Log> output
+    ) throws MojoExecutionException {
+        final String args = state.args.getOrNull();
+        final Log log = output.getOrElse(mojo::getLog);
+
+        if (state.executionMode == ExecutionMode.IN_PROCESS && InProcessFns.executeInProcess(
+                mojo,
+                args,
+                ClassPathology.getClassPathForScope(
+                        mojo,
+                        state,
+                        true,
+                        ClassPathology.PathStyle.ABSOLUTE
+                ).map(File::new).toList(),
+                state.compilerProfile,
+                reuseRuntime,
+                log
+        )) {
+            return;
+        }
+
+        if (state.executionMode == ExecutionMode.DAEMON && DaemonFns.executeInDaemon(
+                mojo,
+                args,
+                ClassPathology.getClassPathForScope(
+                        mojo,
+                        state,
+                        true,
+                        ClassPathology.PathStyle.ABSOLUTE
+                ).map(File::new).toList(),
+                state.compilerProfile,
+                daemonIdleTimeout,
+                maxDaemons,
+                log
+        )) {
+            return;
+        }
+
+        // Calculated depending on the user-selectable Maven scope,
+        // 'compile' or 'test' for example
+        final Stream<String> classPath = ClassPathology.getClassPathForScope(
+                mojo,
+                state,
+                true,
+                state.classpathDelivery == ClasspathDelivery.ARGUMENT ?
+                        ClassPathology.PathStyle.RELATIVE :
+                        ClassPathology.PathStyle.ABSOLUTE
+        );
+
+        final ResourceAccounting accounting = ResourceUsageFns.accounting(mojo, executionId, state);
+        try {
+            executeSubProcess(mojo, executionId, state, classPath, log, accounting);
+        } finally {
+            if (state.resourceUsage) {
+                accounting.usage().forEach(usage -> ResourceUsageFns.report(mojo, executionId, usage, log));
+            }
+        }
+    }
+
+    private static void executeSubProcess(
+            final AbstractCMPMojo mojo,
+            final String executionId,
+            final ClojureMojoState state,
+            final Stream<String> classPath,
+            final Log log,
+            final ResourceAccounting accounting
+    ) throws MojoExecutionException {
+        if (state.executionMode == ExecutionMode.JAVA || state.classpathDelivery == ClasspathDelivery.ARGFILE) {
+            executeJava(mojo, executionId, state, classPath.map(File::new).toList(), log, accounting);
+            return;
+        }
+
+        if (state.classDataSharing) {
+            warnClassDataSharingUnavailable(mojo, log);
+        }
+
+        switch (state.classpathDelivery) {
+            case PATHING_JAR:
+                executeClojure(
+                        mojo,
+                        state,
+                        Stream.of(orThrow(mojo, ClassPathCacheFns.pathingJar(mojo, classPath.map(File::new).toList())).toString()),
+                        outputPipeline(mojo, executionId, state, log),
+                        accounting
+                );
+                break;
+            default:
+                executeClojure(mojo, state, classPath, outputPipeline(mojo, executionId, state, log), accounting);
+        }
+    }
+
+    /**
+     * Runs {@code clojure.main} with 'java' directly, as execution mode {@code JAVA} does,
+     * and as classpath delivery {@code ARGFILE} does, 'clojure' having no means of passing
+     * an argfile on to 'java'. Needs nothing beyond the classpath Maven resolved.
+     */
+    private static void executeJava(
+            final AbstractCMPMojo mojo,
+            final String executionId,
+            final ClojureMojoState state,
+            final List<File> classPath,
+            final Log log,
+            final ResourceAccounting accounting
+    ) throws MojoExecutionException {
+        final List<String> classPathOptions;
+        switch (state.classpathDelivery) {
+            case ARGFILE:
+                classPathOptions = List.of("@" + orThrow(mojo, ClassPathCacheFns.argFile(mojo, classPath)));
+                break;
+            case PATHING_JAR:
+                classPathOptions = List.of("-cp", orThrow(mojo, ClassPathCacheFns.pathingJar(mojo, classPath)).toString());
+                break;
+            default:
+                classPathOptions = List.of("-cp", classPath.map(File::getPath).mkString(File.pathSeparator));
+        }
+
+        // Only when launching the 'java' executable of this JVM is its version known
+        final Option<Path> classDataSharingArchive = state.classDataSharing && state.javaExecutable.isEmpty() ?
+                ClassDataSharingFns.archive(mojo, classPath) :
+                Option.none();
+        if (state.classDataSharing && classDataSharingArchive.isEmpty()) {
+            warnClassDataSharingUnavailable(mojo, log);
+        }
+
+        ClassDataSharingFns.launch(
+                mojo,
+                classDataSharingArchive,
+                classDataSharingOptions -> SubProcessFns.executeJavaSubProcess(
+                        mojo,
+                        state.javaExecutable.getOrElse(SubProcessFns::javaExecutable),
+                        classPathOptions,
+                        state.args.getOrNull(),
+                        state.compilerProfile.systemPropertyDefinitions().appendAll(classDataSharingOptions),
+                        state.argLine.getOrNull(),
+                        System.getenv(),
+                        outputPipeline(mojo, executionId, state, log),
+                        accounting
+                )
+        );
+    }
+
+    private static void warnClassDataSharingUnavailable(
+            final AbstractCMPMojo mojo,
+            final Log log
+    ) {
+        log.warn(mojo.i18nContext().getText(
+                "vivid.clojure-maven-plugin.action.class-data-sharing-unavailable"
+        ));
+    }
+
+    /**
+     * The pipeline of a sub-process' output, created just before the sub-process starts,
+     * as it runs a thread of its own until closed.
+     */
+    private static OutputPipeline outputPipeline(
+            final AbstractCMPMojo mojo,
+            final String executionId,
+            final ClojureMojoState state,
+            final Log log
+    ) {
+        return new OutputPipeline(
+                log,
+                "[" + executionId + "] ",
+                state.consoleLineLimit,
+                state.captureOutput ?
+                        Option.of(FileFns.pluginWorkDirectory(mojo).resolve(OUTPUT_DIRECTORY_NAME).resolve(executionId + ".log.gz")) :
+                        Option.none()
+        );
+    }
+
+    private static void executeClojure(
+            final AbstractCMPMojo mojo,
+            final ClojureMojoState state,
+            final Stream<String> classPath,
+            final OutputPipeline output,
+            final ResourceAccounting accounting
+    ) throws MojoExecutionException {
+        // Execute 'clojure'
+        SubProcessFns.executeSubProcess(
+                mojo,
+
+                // User-overridable path to the `clojure' CLI executable
+                state.executable,
+
+                // User-provided arguments, if any
+                state.args.getOrNull(),
+
+                // Compiler options, passed to the JVM as system properties
+                state.compilerProfile.systemPropertyDefinitions(),
+
+                classPath,
+
+                // The sub-process inherits the same environment variables
+                // as the executing Maven process
+                System.getenv(),
+
+                output,
+                accounting
+        );
+    }
+
+    private static Path orThrow(
+            final AbstractCMPMojo mojo,
+            final Either<Message, Path> path
+    ) throws MojoExecutionException {
+        if (path.isLeft()) {
+            throw new MojoExecutionException(
+                    path.getLeft().render(mojo)
+            );
+        }
+        return path.get();
+    }
+
+}
@@ -21,18 +21,32 @@ import io.vavr.control.Either;
 import io.vavr.control.Option;
 import org.apache.maven.model.PluginExecution;
 import org.codehaus.plexus.util.xml.Xpp3Dom;
+import vivid.cmp.datatypes.ClasspathDelivery;
 import vivid.cmp.datatypes.ClasspathScope;
 import vivid.cmp.datatypes.ClojureMojoState;
+import vivid.cmp.datatypes.CompilerProfile;
+import vivid.cmp.datatypes.ExecutionMode;
 import vivid.cmp.messages.Message;
 import vivid.cmp.messages.VCMPE1InternalError;
 
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_ARGLINE_PARAMETER_KEY;
 import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_ARGS_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_CAPTUREOUTPUT_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_CLASSDATASHARING_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_CLASSPATHDELIVERY_PARAMETER_KEY;
 import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_CLASSPATHSCOPE_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_COMPILERPROFILE_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_CONSOLELINELIMIT_PARAMETER_KEY;
 import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_EXECUTABLE_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_EXECUTIONMODE_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_JAVAEXECUTABLE_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_MAXMEMORY_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_RESOURCEUSAGE_PARAMETER_KEY;
 import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_SOURCEPATHS_PARAMETER_KEY;
 import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_SOURCEPATH_PARAMETER_CHILDNAME_KEY;
 import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_TESTPATHS_PARAMETER_KEY;
 import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_TESTPATH_PARAMETER_CHILDNAME_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_TIMEOUT_PARAMETER_KEY;
 
 public class ClojureMojoConfigurationFns {
 
@@ -63,10 +77,50 @@ public class ClojureMojoConfigurationFns {
                         return Either.right(Option.of(state.setArgs(Option.of(dom.getValue()))));
                     case CLOJURE_EXECUTABLE_PARAMETER_KEY:
                         return Either.right(Option.of(state.setExecutable(dom.getValue())));
+                    case CLOJURE_EXECUTIONMODE_PARAMETER_KEY:
+                        return Either.right(Option.of(state.setExecutionMode(
+                                ExecutionMode.valueOf(dom.getValue())
+                                )));
+                    case CLOJURE_JAVAEXECUTABLE_PARAMETER_KEY:
+                        return Either.right(Option.of(state.setJavaExecutable(Option.of(dom.getValue()))));
+                    case CLOJURE_ARGLINE_PARAMETER_KEY:
+                        return Either.right(Option.of(state.setArgLine(Option.of(dom.getValue()))));
+                    case CLOJURE_CLASSPATHDELIVERY_PARAMETER_KEY:
+                        return Either.right(Option.of(state.setClasspathDelivery(
+                                ClasspathDelivery.valueOf(dom.getValue())
+                                )));
                     case CLOJURE_CLASSPATHSCOPE_PARAMETER_KEY:
                         return Either.right(Option.of(state.setClasspathScope(
                                 ClasspathScope.valueOf(dom.getValue())
                                 )));
+                    case CLOJURE_COMPILERPROFILE_PARAMETER_KEY:
+                        return Either.right(Option.of(state.setCompilerProfile(
+                                CompilerProfile.valueOf(dom.getValue())
+                                )));
+                    case CLOJURE_CAPTUREOUTPUT_PARAMETER_KEY:
+                        return Either.right(Option.of(state.setCaptureOutput(
+                                Boolean.parseBoolean(dom.getValue())
+                                )));
+                    case CLOJURE_CONSOLELINELIMIT_PARAMETER_KEY:
+                        return Either.right(Option.of(state.setConsoleLineLimit(
+                                Integer.parseInt(dom.getValue())
+                                )));
+                    case CLOJURE_CLASSDATASHARING_PARAMETER_KEY:
+                        return Either.right(Option.of(state.setClassDataSharing(
+                                Boolean.parseBoolean(dom.getValue())
+                                )));
+                    case CLOJURE_RESOURCEUSAGE_PARAMETER_KEY:
+                        return Either.right(Option.of(state.setResourceUsage(
+                                Boolean.parseBoolean(dom.getValue())
+                                )));
+                    case CLOJURE_TIMEOUT_PARAMETER_KEY:
+                        return Either.right(Option.of(state.setTimeout(
+                                Integer.parseInt(dom.getValue())
+                                )));
+                    case CLOJURE_MAXMEMORY_PARAMETER_KEY:
+                        return Either.right(Option.of(state.setMaxMemory(
+                                Integer.parseInt(dom.getValue())
+                                )));
                     case CLOJURE_SOURCEPATHS_PARAMETER_KEY:
                         return Either.right(Option.of(state.setSourcePaths(
                                 getChildrenValues.apply(CLOJURE_SOURCEPATH_PARAMETER_CHILDNAME_KEY, dom)
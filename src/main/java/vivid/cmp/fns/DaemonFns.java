@@ -0,0 +1,395 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.fns;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import io.vavr.control.Try;
+import org.apache.commons.exec.CommandLine;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import us.bpsm.edn.Keyword;
+import us.bpsm.edn.parser.Parser;
+import us.bpsm.edn.parser.Parsers;
+import us.bpsm.edn.printer.Printers;
+import vivid.cmp.datatypes.CompilerProfile;
+import vivid.cmp.messages.VCMPE1InternalError;
+import vivid.cmp.mojo.AbstractCMPMojo;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs {@code clojure.main} in warm daemon JVMs that outlive the Maven invocations starting
+ * them, sparing each execution the start-up of a JVM and the loading of its libraries.
+ *
+ * A daemon is started per classpath of jars, as of their sizes and modification times,
+ * 'java' executable, and project directory, its classpath being those jars and this plugin's
+ * runtime files. A jar rebuilt in place, such as a SNAPSHOT installed anew, thus gets a new
+ * daemon, the prior one idling out. The directories of an execution's
+ * classpath are given with each run, so that the namespaces of the project's sources are loaded
+ * afresh each time. Daemons are registered in {@code ~/.clojure-maven-plugin/daemons/} by a
+ * state file readable only by its owner, giving the port and the token to connect with, and
+ * logging to a file alongside. Runs are sent over a prepl on the loopback interface.
+ *
+ * @since 0.4.0
+ */
+public class DaemonFns {
+
+    private static final String CLOJURE_MAIN = "clojure.main";
+    private static final String VIVID_CMP_DAEMON_NS = "vivid.cmp.daemon";
+    private static final String STATE_FILE_SUFFIX = ".properties";
+    private static final String LOG_FILE_SUFFIX = ".log";
+
+    private static final long START_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(1);
+    private static final int HANDSHAKE_TIMEOUT_MILLIS = (int) TimeUnit.SECONDS.toMillis(10);
+
+    private static final Keyword TAG = Keyword.newKeyword("tag");
+    private static final Keyword VAL = Keyword.newKeyword("val");
+    private static final Keyword EXCEPTION = Keyword.newKeyword("exception");
+    private static final Keyword OUT = Keyword.newKeyword("out");
+    private static final Keyword ERR = Keyword.newKeyword("err");
+    private static final Keyword RET = Keyword.newKeyword("ret");
+
+    private DaemonFns() {
+        // Hide the public constructor
+    }
+
+    /**
+     * Runs {@code clojure.main} with the args in a daemon having the classpath, starting one
+     * unless already running, as if in a sub-process: its output is relayed line by line to
+     * Maven's log, and {@code System.exit} ends the run with its exit status, a non-zero exit
+     * status failing the execution. The output goes to {@param output}, typically Maven's
+     * log. When starting the daemon would exceed
+     * {@param maxDaemons}, the least recently used daemons are shut down first.
+     *
+     * @return whether a daemon ran the args; {@code false} when no daemon could be reached
+     *     or started, leaving the execution for the caller to run otherwise
+     */
+    public static boolean executeInDaemon(
+            final AbstractCMPMojo mojo,
+            final String args,
+            final List<File> classPath,
+            final CompilerProfile compilerProfile,
+            final int idleTimeoutMinutes,
+            final int maxDaemons,
+            final Log output
+    ) throws MojoExecutionException {
+        final List<File> daemonClassPath = classPath
+                .filter(File::isFile)
+                .appendAll(ClassPathology.pluginRuntimeFiles(mojo))
+                .distinct();
+        final List<File> directories = classPath.filter(file -> !file.isFile());
+        final File basedir = mojo.mavenSession().getCurrentProject().getBasedir();
+
+        final Path stateFile = daemonsDirectory().resolve(
+                FileFns.sha256(
+                        daemonClassPath
+                                .map(file -> String.format("%s %d %d", file.getAbsolutePath(), file.length(), file.lastModified()))
+                                .prepend(basedir.getAbsolutePath())
+                                .prepend(SubProcessFns.javaExecutable())
+                                .mkString("\n")
+                ) + STATE_FILE_SUFFIX
+        );
+
+        Option<Connection> connection = connect(stateFile);
+        if (connection.isEmpty()) {
+            shutDownLeastRecentlyUsed(mojo, maxDaemons - 1);
+            start(mojo, stateFile, daemonClassPath, basedir, idleTimeoutMinutes);
+            connection = connect(stateFile);
+        }
+        if (connection.isEmpty()) {
+            output.warn(
+                    mojo.i18nContext().getText(
+                            "vivid.clojure-maven-plugin.action.daemon-unavailable",
+                            logFile(stateFile)
+                    )
+            );
+            return false;
+        }
+        mojo.getLog().debug("Running in Clojure daemon: " + stateFile);
+
+        final java.util.List<String> argList = args == null ?
+                Collections.emptyList() :
+                Arrays.asList(new CommandLine(CLOJURE_MAIN).addArguments(args, false).getArguments());
+        final int exitStatus;
+        try (Connection daemon = connection.get()) {
+            exitStatus = run(
+                    mojo,
+                    output,
+                    daemon,
+                    String.format(
+                            "(%s/run %s %s %s)",
+                            VIVID_CMP_DAEMON_NS,
+                            Printers.printString(new ArrayList<>(directories.map(File::getAbsolutePath).asJava())),
+                            Printers.printString(new ArrayList<>(argList)),
+                            compilerProfile.edn()
+                    )
+            );
+        } catch (final IOException e) {
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Lost the connection to the Clojure daemon", e).render(mojo),
+                    e
+            );
+        }
+
+        if (exitStatus != 0) {
+            throw new MojoExecutionException(
+                    mojo.i18nContext().getText(
+                            "vivid.clojure-maven-plugin.error.vcmpe-2-command-exit-value",
+                            CLOJURE_MAIN,
+                            exitStatus
+                    )
+            );
+        }
+        return true;
+    }
+
+    /**
+     * @return the directory registering the daemons of the user running Maven
+     */
+    public static Path daemonsDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".clojure-maven-plugin", "daemons");
+    }
+
+    private static Path logFile(
+            final Path stateFile
+    ) {
+        final String name = stateFile.getFileName().toString();
+        return stateFile.resolveSibling(
+                name.substring(0, name.length() - STATE_FILE_SUFFIX.length()) + LOG_FILE_SUFFIX
+        );
+    }
+
+    /**
+     * Sends the form to the daemon's prepl, relaying its output to the output log.
+     *
+     * @return the exit status the form evaluated to
+     */
+    private static int run(
+            final AbstractCMPMojo mojo,
+            final Log output,
+            final Connection daemon,
+            final String form
+    ) throws IOException, MojoExecutionException {
+        daemon.send(form);
+        final Parser parser = Parsers.newParser(Parsers.defaultConfiguration());
+        try (Writer out = new InProcessFns.LogWriter(output::info, () -> false);
+             Writer err = new InProcessFns.LogWriter(output::error, () -> false)) {
+            for (String line = daemon.in.readLine(); line != null; line = daemon.in.readLine()) {
+                final Map<?, ?> message = (Map<?, ?>) parser.nextValue(Parsers.newParseable(line));
+                final Object tag = message.get(TAG);
+                if (OUT.equals(tag)) {
+                    out.write((String) message.get(VAL));
+                } else if (ERR.equals(tag)) {
+                    err.write((String) message.get(VAL));
+                } else if (RET.equals(tag)) {
+                    if (Boolean.TRUE.equals(message.get(EXCEPTION))) {
+                        throw new MojoExecutionException(
+                                VCMPE1InternalError.message(
+                                        "Could not run " + CLOJURE_MAIN + " in the Clojure daemon: " + message.get(VAL)
+                                ).render(mojo)
+                        );
+                    }
+                    return Integer.parseInt((String) message.get(VAL));
+                }
+            }
+        }
+        throw new IOException("The Clojure daemon closed the connection");
+    }
+
+    /**
+     * Connects to the daemon registered by the state file, if it responds, marking it as
+     * the most recently used. The state file of a daemon that doesn't respond is removed,
+     * which ends the daemon should it merely be unresponsive.
+     */
+    private static Option<Connection> connect(
+            final Path stateFile
+    ) {
+        if (!Files.isRegularFile(stateFile)) {
+            return Option.none();
+        }
+        final Option<Connection> connection = Try.of(() -> handshake(stateFile)).toOption();
+        if (connection.isDefined()) {
+            stateFile.toFile().setLastModified(System.currentTimeMillis());
+        } else {
+            Try.run(() -> Files.deleteIfExists(stateFile));
+        }
+        return connection;
+    }
+
+    /**
+     * Authenticates with the token, and awaits the result of evaluating a keyword, which
+     * proves the prepl to be responsive.
+     */
+    @SuppressWarnings("java:S2095")
+    private static Connection handshake(
+            final Path stateFile
+    ) throws IOException {
+        final Properties state = new Properties();
+        try (InputStream in = Files.newInputStream(stateFile)) {
+            state.load(in);
+        }
+        final Connection daemon = new Connection(new Socket(
+                InetAddress.getLoopbackAddress(),
+                Integer.parseInt(state.getProperty("port"))
+        ));
+        try {
+            daemon.socket.setSoTimeout(HANDSHAKE_TIMEOUT_MILLIS);
+            daemon.send(state.getProperty("token"));
+            daemon.send(":" + VIVID_CMP_DAEMON_NS + "/ready");
+            final String line = daemon.in.readLine();
+            if (line == null || !line.contains(VIVID_CMP_DAEMON_NS + "/ready")) {
+                throw new IOException("The Clojure daemon didn't respond");
+            }
+            daemon.socket.setSoTimeout(0);
+            return daemon;
+        } catch (final IOException | RuntimeException e) {
+            daemon.close();
+            throw e;
+        }
+    }
+
+    /**
+     * A connection to a daemon's prepl, exchanging a line at a time.
+     */
+    private static final class Connection implements Closeable {
+
+        final Socket socket;
+        final BufferedReader in;
+        final Writer out;
+
+        Connection(final Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+        }
+
+        void send(final String line) throws IOException {
+            out.write(line + "\n");
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+
+    }
+
+    /**
+     * Shuts down the least recently used daemons in excess of {@param keep}.
+     */
+    private static void shutDownLeastRecentlyUsed(
+            final AbstractCMPMojo mojo,
+            final int keep
+    ) {
+        final File[] stateFiles = daemonsDirectory().toFile().listFiles(
+                (dir, name) -> name.endsWith(STATE_FILE_SUFFIX)
+        );
+        if (stateFiles == null) {
+            return;
+        }
+        List.of(stateFiles)
+                .sortBy(File::lastModified)
+                .dropRight(Math.max(0, keep))
+                .forEach(stateFile -> {
+                    mojo.getLog().debug("Shutting down least recently used Clojure daemon: " + stateFile);
+                    connect(stateFile.toPath()).forEach(connection -> Try.run(() -> {
+                        try (Connection daemon = connection) {
+                            daemon.send("(" + VIVID_CMP_DAEMON_NS + "/shutdown)");
+                            daemon.in.readLine();
+                        }
+                    }));
+                    Try.run(() -> Files.deleteIfExists(stateFile.toPath()));
+                });
+    }
+
+    /**
+     * Starts a daemon, detached from Maven so as to outlive it, and awaits its state file.
+     */
+    private static void start(
+            final AbstractCMPMojo mojo,
+            final Path stateFile,
+            final List<File> daemonClassPath,
+            final File basedir,
+            final int idleTimeoutMinutes
+    ) {
+        final java.util.List<String> command = new ArrayList<>();
+        command.add(SubProcessFns.javaExecutable());
+        if (securityManagerDisallowedByDefault()) {
+            // The daemon intercepts System.exit by way of a security manager
+            command.add("-Djava.security.manager=allow");
+        }
+        command.add("-cp");
+        command.add(daemonClassPath.map(File::getAbsolutePath).mkString(File.pathSeparator));
+        command.add(CLOJURE_MAIN);
+        command.add("-m");
+        command.add(VIVID_CMP_DAEMON_NS);
+        command.add(stateFile.toString());
+        command.add(String.valueOf(TimeUnit.MINUTES.toSeconds(idleTimeoutMinutes)));
+        mojo.getLog().debug("Starting Clojure daemon: " + String.join(" ", command));
+
+        try {
+            Files.createDirectories(stateFile.getParent());
+            final Process process = new ProcessBuilder(command)
+                    .directory(basedir)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile(stateFile).toFile()))
+                    .start();
+            process.getOutputStream().close();
+
+            final long deadline = System.currentTimeMillis() + START_TIMEOUT_MILLIS;
+            while (!Files.isRegularFile(stateFile)
+                    && process.isAlive()
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+        } catch (final IOException e) {
+            mojo.getLog().debug("Could not start Clojure daemon", e);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return whether the 'java' executable, that of the JVM running Maven, disallows
+     *     security managers unless told otherwise, as of Java 18, the option to allow them
+     *     having been recognized as of Java 12
+     */
+    private static boolean securityManagerDisallowedByDefault() {
+        final String version = System.getProperty("java.specification.version");
+        return !version.startsWith("1.") && Integer.parseInt(version) >= 12;
+    }
+
+}
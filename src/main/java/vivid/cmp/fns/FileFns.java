@@ -20,11 +20,14 @@ import vivid.cmp.messages.VCMPE1InternalError;
 import vivid.cmp.mojo.AbstractCMPMojo;
 
 import java.io.BufferedWriter;
-import java.io.Closeable;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 public class FileFns {
 
@@ -32,6 +35,19 @@ public class FileFns {
         // Hide the public constructor
     }
 
+    /**
+     * @return the directory within the project's build directory where this plugin
+     *     keeps its working files
+     */
+    public static Path pluginWorkDirectory(
+            final AbstractCMPMojo mojo
+    ) {
+        return Paths.get(
+                mojo.mavenSession().getCurrentProject().getBuild().getDirectory(),
+                "clojure-maven-plugin"
+        );
+    }
+
     public static Either<Message, Void> writeFile(
             final Path path,
             final Charset charset,
@@ -53,41 +69,24 @@ public class FileFns {
         }
     }
 
-    public static class UserDirSystemPropertyOverride implements Closeable {
-
-        private static final String USER_DIR_SYSTEM_PROPERTY_KEY = "user.dir";
-
-        private final String priorValue;
-        private final AbstractCMPMojo mojo;
-
-        public UserDirSystemPropertyOverride(
-                final AbstractCMPMojo mojo,
-                final String cwd
-        ) {
-            this.mojo = mojo;
-
-            this.priorValue = System.getProperty(USER_DIR_SYSTEM_PROPERTY_KEY);
-
-            System.setProperty(USER_DIR_SYSTEM_PROPERTY_KEY, cwd);
-            mojo.getLog().debug(
-                    String.format(
-                            "Set system property %s to a new cwd: %s",
-                            USER_DIR_SYSTEM_PROPERTY_KEY, cwd
-                    )
-            );
+    /**
+     * @return the hexadecimal SHA-256 hash of the UTF-8 encoding of the string
+     */
+    public static String sha256(
+            final String s
+    ) {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            // Every JVM provides SHA-256
+            throw new IllegalStateException(e);
         }
-
-        @Override
-        public void close() {
-            System.setProperty(USER_DIR_SYSTEM_PROPERTY_KEY, priorValue);
-            mojo.getLog().debug(
-                    String.format(
-                            "Restored system property %s to its prior value: %s",
-                            USER_DIR_SYSTEM_PROPERTY_KEY, priorValue
-                    )
-            );
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : digest.digest(s.getBytes(StandardCharsets.UTF_8))) {
+            hex.append(String.format("%02x", b));
         }
-
+        return hex.toString();
     }
 
 }
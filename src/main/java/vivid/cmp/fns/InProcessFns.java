@@ -0,0 +1,306 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.fns;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.apache.commons.exec.CommandLine;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import vivid.cmp.datatypes.ClojureRuntime;
+import vivid.cmp.datatypes.CompilerProfile;
+import vivid.cmp.messages.VCMPE1InternalError;
+import vivid.cmp.mojo.AbstractCMPMojo;
+
+import java.io.File;
+import java.io.Writer;
+import java.security.Permission;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs {@code clojure.main} within Maven's JVM, sparing the start-up of a JVM and of Clojure.
+ */
+public class InProcessFns {
+
+    private static final String CLOJURE_MAIN = "clojure.main";
+    private static final String VIVID_CMP_CLOJURE_MAIN_NS = "vivid.cmp.clojure-main";
+
+    /**
+     * The status of the first {@code System.exit} of the in-process execution running on
+     * the thread, if any. Inherited by the threads the execution starts, so that their
+     * {@code System.exit} is intercepted as well, unlike that of any other thread.
+     */
+    private static final ThreadLocal<AtomicReference<Integer>> REQUESTED_EXIT = new InheritableThreadLocal<>();
+
+    private InProcessFns() {
+        // Hide the public constructor
+    }
+
+    /**
+     * Runs {@code clojure.main} with the args, in a Clojure runtime having the classpath,
+     * as if in a sub-process: the output of Clojure's {@code *out*} and {@code *err*} is
+     * relayed line by line to Maven's log, and {@code System.exit} ends the run with its
+     * exit status, a non-zero exit status failing the execution. Output written directly
+     * to {@code System.out} and {@code System.err}, bypassing Clojure, isn't intercepted.
+     * The output goes to {@param output}, typically Maven's log.
+     *
+     * @return whether the args ran in-process; {@code false} when this JVM disallows
+     *     intercepting {@code System.exit}, leaving the execution for the caller to run
+     *     otherwise rather than risk Clojure ending Maven's JVM
+     */
+    @SuppressWarnings("try")
+    public static boolean executeInProcess(
+            final AbstractCMPMojo mojo,
+            final String args,
+            final List<File> classPath,
+            final CompilerProfile compilerProfile,
+            final boolean reuseRuntime,
+            final Log output
+    ) throws MojoExecutionException {
+        final java.util.List<String> argList = args == null ?
+                java.util.Collections.emptyList() :
+                java.util.Arrays.asList(new CommandLine(CLOJURE_MAIN).addArguments(args, false).getArguments());
+        mojo.getLog().debug(
+                String.format(
+                        "Running in-process: %s %s",
+                        CLOJURE_MAIN,
+                        String.join(" ", argList)
+                )
+        );
+
+        final Option<ExitInterception> exitInterception = ExitInterception.begin();
+        if (exitInterception.isEmpty()) {
+            output.warn(
+                    mojo.i18nContext().getText(
+                            "vivid.clojure-maven-plugin.action.exit-not-intercepted"
+                    )
+            );
+            return false;
+        }
+
+        // Output following System.exit is discarded, as it would be were the JVM to exit,
+        // including clojure.main's report of the exit's interception
+        final AtomicReference<Integer> requestedExit = new AtomicReference<>();
+        REQUESTED_EXIT.set(requestedExit);
+
+        final Object exitValue;
+        try (ExitInterception ignored = exitInterception.get();
+             ClojureRuntime runtime = ClassPathology.clojureRuntime(
+                     mojo,
+                     classPath,
+                     List.empty(),
+                     VIVID_CMP_CLOJURE_MAIN_NS,
+                     reuseRuntime
+             );
+             Writer out = new LogWriter(output::info, () -> requestedExit.get() != null);
+             Writer err = new LogWriter(output::error, () -> requestedExit.get() != null)) {
+            exitValue = runtime.invoke(
+                    VIVID_CMP_CLOJURE_MAIN_NS,
+                    "main",
+                    argList,
+                    out,
+                    err,
+                    compilerProfile.edn(),
+                    (Function<Throwable, Integer>) InProcessFns::exitStatus
+            );
+        } catch (final Exception e) {
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Could not run " + CLOJURE_MAIN + " in-process", e).render(mojo),
+                    e
+            );
+        } finally {
+            REQUESTED_EXIT.remove();
+        }
+
+        final Object exitStatus = requestedExit.get() != null ?
+                requestedExit.get() :
+                exitValue;
+        if (!Integer.valueOf(0).equals(exitStatus)) {
+            throw new MojoExecutionException(
+                    mojo.i18nContext().getText(
+                            "vivid.clojure-maven-plugin.error.vcmpe-2-command-exit-value",
+                            CLOJURE_MAIN,
+                            exitStatus
+                    )
+            );
+        }
+        return true;
+    }
+
+    /**
+     * @return the exit status of the {@code System.exit} that the throwable or one of its
+     *     causes stands for, otherwise {@code null}
+     */
+    private static Integer exitStatus(
+            final Throwable throwable
+    ) {
+        for (Throwable t = throwable; t != null; t = t.getCause()) {
+            if (t instanceof ExitException) {
+                return ((ExitException) t).status;
+            }
+        }
+        return null;
+    }
+
+    private static class ExitException extends SecurityException {
+
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        ExitException(final int status) {
+            super("System.exit(" + status + ") intercepted");
+            this.status = status;
+        }
+
+    }
+
+    /**
+     * Turns {@code System.exit} of in-process executions into an {@link ExitException} for as
+     * long as any is running, by way of a security manager that otherwise defers to the one it
+     * replaces, if any. Not to be had on JVMs that disallow security managers.
+     */
+    @SuppressWarnings("removal")
+    private static final class ExitInterception implements AutoCloseable {
+
+        private static final Object LOCK = new Object();
+        private static int running;
+        private static SecurityManager replaced;
+
+        /**
+         * @return the interception, or none when this JVM disallows it
+         */
+        static Option<ExitInterception> begin() {
+            synchronized (LOCK) {
+                if (running == 0) {
+                    final SecurityManager current = System.getSecurityManager();
+                    try {
+                        System.setSecurityManager(new ExitInterceptingSecurityManager(current));
+                    } catch (final UnsupportedOperationException | SecurityException e) {
+                        return Option.none();
+                    }
+                    replaced = current;
+                }
+                running++;
+                return Option.some(new ExitInterception());
+            }
+        }
+
+        @Override
+        public void close() {
+            synchronized (LOCK) {
+                if (--running == 0) {
+                    System.setSecurityManager(replaced);
+                    replaced = null;
+                }
+            }
+        }
+
+    }
+
+    @SuppressWarnings("removal")
+    private static final class ExitInterceptingSecurityManager extends SecurityManager {
+
+        private final SecurityManager replaced;
+
+        ExitInterceptingSecurityManager(final SecurityManager replaced) {
+            this.replaced = replaced;
+        }
+
+        @Override
+        public void checkExit(final int status) {
+            final AtomicReference<Integer> requestedExit = REQUESTED_EXIT.get();
+            if (requestedExit == null) {
+                // Not an in-process execution's, such as another module's in a parallel build
+                if (replaced != null) {
+                    replaced.checkExit(status);
+                }
+                return;
+            }
+            requestedExit.compareAndSet(null, status);
+            throw new ExitException(status);
+        }
+
+        @Override
+        public void checkPermission(final Permission perm) {
+            if (replaced != null) {
+                replaced.checkPermission(perm);
+            }
+        }
+
+        @Override
+        public void checkPermission(final Permission perm, final Object context) {
+            if (replaced != null) {
+                replaced.checkPermission(perm, context);
+            }
+        }
+
+    }
+
+    /**
+     * Relays each line written to it to Maven's log.
+     */
+    static final class LogWriter extends Writer {
+
+        private final Consumer<CharSequence> log;
+        private final BooleanSupplier discard;
+        private final StringBuilder line = new StringBuilder();
+
+        LogWriter(
+                final Consumer<CharSequence> log,
+                final BooleanSupplier discard
+        ) {
+            this.log = log;
+            this.discard = discard;
+        }
+
+        @Override
+        public synchronized void write(final char[] cbuf, final int off, final int len) {
+            if (discard.getAsBoolean()) {
+                return;
+            }
+            for (int i = off; i < off + len; i++) {
+                final char c = cbuf[i];
+                if (c == '\n') {
+                    emit();
+                } else if (c != '\r') {
+                    line.append(c);
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            // Lines are relayed once complete
+        }
+
+        @Override
+        public synchronized void close() {
+            if (line.length() > 0) {
+                emit();
+            }
+        }
+
+        private void emit() {
+            log.accept(line.toString());
+            line.setLength(0);
+        }
+
+    }
+
+}
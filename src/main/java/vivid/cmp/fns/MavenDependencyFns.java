@@ -14,63 +14,49 @@
 
 package vivid.cmp.fns;
 
-import io.vavr.collection.HashSet;
+import io.vavr.collection.LinkedHashSet;
 import io.vavr.collection.Set;
-import io.vavr.collection.Stream;
+import io.vavr.control.Either;
 import org.apache.maven.RepositoryUtils;
 import org.apache.maven.artifact.Artifact;
-import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.model.Dependency;
-import org.apache.maven.plugin.MojoFailureException;
-import org.apache.maven.project.DefaultProjectBuildingRequest;
-import org.apache.maven.project.ProjectBuildingRequest;
-import org.apache.maven.shared.transfer.artifact.resolve.ArtifactResult;
-import org.apache.maven.shared.transfer.dependencies.resolve.DependencyResolverException;
 import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.collection.CollectRequest;
+import org.eclipse.aether.collection.DependencyCollectionException;
+import org.eclipse.aether.graph.DependencyNode;
 import org.eclipse.aether.resolution.ArtifactRequest;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
+import org.eclipse.aether.resolution.ArtifactResult;
 import vivid.cmp.datatypes.ClasspathScope;
 import vivid.cmp.datatypes.ClojureMojoState;
+import vivid.cmp.datatypes.Timeline;
+import vivid.cmp.messages.Message;
+import vivid.cmp.messages.VCMPE5UnresolvableArtifact;
 import vivid.cmp.mojo.AbstractCMPMojo;
 
 import java.io.File;
-import java.util.Collections;
-import java.util.List;
 import java.util.Objects;
 import java.util.function.Predicate;
 
-import static org.apache.maven.shared.artifact.filter.resolve.ScopeFilter.including;
-
 public class MavenDependencyFns {
 
     private MavenDependencyFns() {
         // Hide the public constructor
     }
 
+    /**
+     * @return the project's dependencies in the classpath scope of {@param state}, in the
+     *     order of resolution, as resolved by Maven for the mojo's
+     *     {@code requiresDependencyResolution}
+     */
     public static Set<Artifact> getResolvedDependencies(
             final AbstractCMPMojo mojo,
             final ClojureMojoState state
     ) {
-        try {
-            final Iterable<ArtifactResult> dependencies =
-                    mojo.dependencyResolver().resolveDependencies(
-                            mojo.mavenSession().getProjectBuildingRequest(),
-                            mojo.mavenSession().getCurrentProject().getDependencies(),
-                            mojo.mavenSession().getCurrentProject().getDependencies(),
-                            including( state.classpathScope.effectiveScopesAsJavaArray() )
-                    );
-
-            return Stream
-                    .ofAll(dependencies)
-                    .map(ArtifactResult::getArtifact)
-                    .collect(HashSet.collector());
-        }
-        catch (final DependencyResolverException e) {
-            // TODO Convert to Either<Message, ...>
-            System.out.println(e.getLocalizedMessage());
-            System.exit(1);
-            return null;
-        }
+        return LinkedHashSet
+                .ofAll(mojo.mavenSession().getCurrentProject().getArtifacts())
+                .filter(artifact -> artifact.getArtifactHandler().isAddedToClasspath())
+                .filter(artifact -> state.classpathScope.effectiveScopes.contains(artifact.getScope()));
     }
 
     public static Predicate<Dependency> inScopeP(
@@ -91,73 +77,72 @@ public class MavenDependencyFns {
         return dependency;
     }
 
-    public static ProjectBuildingRequest newProjectBuildingRequest(
-            final ProjectBuildingRequest projectBuildingRequest,
-            final List<ArtifactRepository> remoteRepositories
-    ) {
-        final ProjectBuildingRequest request =
-                new DefaultProjectBuildingRequest(
-                        projectBuildingRequest
-                );
-        request.setRemoteRepositories(remoteRepositories);
-        return request;
-    }
-
-    public static org.eclipse.aether.resolution.ArtifactResult resolveArtifact(
+    /**
+     * Resolves a tool that isn't among the project's dependencies, such as eftest or
+     * Leiningen: its artifact followed by its dependencies in compile scope.
+     *
+     * The tool's dependency graph is collected once, and all of its artifacts are then
+     * resolved in a single batch, which Maven's repository connector downloads in parallel
+     * (see {@code aether.connector.basic.threads}) rather than one after another.
+     */
+    @SuppressWarnings("try")
+    public static Either<Message, io.vavr.collection.List<File>> resolveToFiles(
             final AbstractCMPMojo mojo,
             final Dependency dependency
-    ) throws ArtifactResolutionException {
-        final ArtifactRequest artifactRequest = new ArtifactRequest();
-
-        artifactRequest.setArtifact(toArtifact(dependency));
-        artifactRequest.setRepositories(RepositoryUtils.toRepos(mojo.remoteRepositories));
-
-        return mojo.repositorySystem.resolveArtifact(
-                mojo.repositorySystemSession,
-                artifactRequest
-        );
-    }
-
-    public static Iterable<ArtifactResult> resolveDependencies(
-            final AbstractCMPMojo mojo,
-            final Dependency dependency
-    ) throws DependencyResolverException, MojoFailureException {
-        mojo.getLog().debug("Resolving dependencies for: " + dependency);
-        final Iterable<ArtifactResult> dependencyArtifacts =
-                mojo.dependencyResolver.resolveDependencies(
-                        newProjectBuildingRequest(
-                                mojo.mavenSession.getProjectBuildingRequest(),
-                                mojo.remoteRepositories
-                        ),
-                        Collections.singletonList(dependency),
-                        Collections.singletonList(dependency),
-                        including( ClasspathScope.COMPILE.effectiveScopesAsJavaArray() )
-                );
-
-        if (dependencyArtifacts == null || !dependencyArtifacts.iterator().hasNext()) {
-            throw new MojoFailureException(
-                    "No dependencies were resolved for: " + dependency
-            );
-        }
-        for (final ArtifactResult artifactResult : dependencyArtifacts) {
-            mojo.getLog().debug(
-                    String.format(
-                            "Resolved dependency artifact: %s",
-                            artifactResult.getArtifact().getFile().toString()
-                    )
+    ) {
+        final DefaultArtifact artifact = toArtifact(dependency);
+        try (Timeline.Span ignored = mojo.timeline().span("resolve-tool", artifact.toString())) {
+            final CollectRequest collectRequest = new CollectRequest(
+                    new org.eclipse.aether.graph.Dependency(artifact, Artifact.SCOPE_COMPILE),
+                    RepositoryUtils.toRepos(mojo.remoteRepositories)
             );
+            final DependencyNode root;
+            try {
+                root = mojo.repositorySystem
+                        .collectDependencies(mojo.repositorySystemSession, collectRequest)
+                        .getRoot();
+            } catch (final DependencyCollectionException e) {
+                return Either.left(VCMPE5UnresolvableArtifact.message(artifact.toString(), e));
+            }
+
+            final java.util.List<ArtifactRequest> artifactRequests = inScope(root, ClasspathScope.COMPILE)
+                    .map(ArtifactRequest::new)
+                    .toJavaList();
+
+            final java.util.List<ArtifactResult> artifactResults;
+            try {
+                artifactResults = mojo.repositorySystem.resolveArtifacts(
+                        mojo.repositorySystemSession,
+                        artifactRequests
+                );
+            } catch (final ArtifactResolutionException e) {
+                return Either.left(VCMPE5UnresolvableArtifact.message(artifact.toString(), e));
+            }
+
+            final io.vavr.collection.List<File> files = io.vavr.collection.List
+                    .ofAll(artifactResults)
+                    .map(result -> result.getArtifact().getFile())
+                    .distinct();
+            files.forEach(file -> mojo.getLog().debug("Resolved tool artifact: " + file));
+            return Either.right(files);
         }
-
-        return dependencyArtifacts;
     }
 
-    public static io.vavr.collection.List<File> resolveToFiles(
-            final AbstractCMPMojo mojo,
-            final Dependency dependency
-    ) throws ArtifactResolutionException, DependencyResolverException, MojoFailureException {
-        return io.vavr.collection.List
-                .of(MavenDependencyFns.resolveArtifact(mojo, dependency).getArtifact().getFile())
-                .appendAll(io.vavr.collection.List.ofAll(MavenDependencyFns.resolveDependencies(mojo, dependency)).map(a -> a.getArtifact().getFile()));
+    /**
+     * @return the node and its descendants in the classpath scope, depth-first in the order
+     *     of the dependency graph
+     */
+    private static io.vavr.collection.List<DependencyNode> inScope(
+            final DependencyNode node,
+            final ClasspathScope classpathScope
+    ) {
+        if (!classpathScope.effectiveScopes.contains(node.getDependency().getScope())) {
+            return io.vavr.collection.List.empty();
+        }
+        return io.vavr.collection.List.of(node)
+                .appendAll(io.vavr.collection.List
+                        .ofAll(node.getChildren())
+                        .flatMap(child -> inScope(child, classpathScope)));
     }
 
     public static DefaultArtifact toArtifact(
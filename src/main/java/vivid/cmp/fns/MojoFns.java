@@ -23,6 +23,7 @@ import io.vavr.control.Option;
 import org.apache.maven.model.Plugin;
 import org.apache.maven.model.PluginExecution;
 import vivid.cmp.datatypes.ClojureMojoState;
+import vivid.cmp.datatypes.Timeline;
 import vivid.cmp.messages.Message;
 import vivid.cmp.mojo.AbstractCMPMojo;
 
@@ -74,6 +75,7 @@ public class MojoFns {
         };
     }
 
+    @SuppressWarnings("try")
     public static Either<Message, Map<String, ClojureMojoState>> myPluginExecutionConfigurations(
             final AbstractCMPMojo mojo,
             final String pluginLookupKey,
@@ -82,13 +84,15 @@ public class MojoFns {
         final Plugin myself = mojo.mavenSession.getCurrentProject().getPlugin(
                 pluginLookupKey
         );
-        return
-                Stream.ofAll(myself.getExecutions())
-                        .filter(hasGoalOfName(goalName))
-                        .foldLeft(
-                                Either.right(TreeMap.empty()),
-                                mappedPluginExecutionStateCombinator()
-                        );
+        try (Timeline.Span ignored = mojo.timeline().span("configuration", goalName)) {
+            return
+                    Stream.ofAll(myself.getExecutions())
+                            .filter(hasGoalOfName(goalName))
+                            .foldLeft(
+                                    Either.right(TreeMap.empty()),
+                                    mappedPluginExecutionStateCombinator()
+                            );
+        }
     }
 
 }
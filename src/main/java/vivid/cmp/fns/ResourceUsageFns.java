@@ -0,0 +1,140 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.fns;
+
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import org.apache.maven.plugin.logging.Log;
+import vivid.cmp.datatypes.ClojureMojoState;
+import vivid.cmp.datatypes.ResourceAccounting;
+import vivid.cmp.datatypes.ResourceUsage;
+import vivid.cmp.datatypes.Timeline;
+import vivid.cmp.messages.VCMPE1InternalError;
+import vivid.cmp.mojo.AbstractCMPMojo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accounting for the resources of {@code clojure} goal sub-processes, reported per execution
+ * in Maven's log and in {@code target/clojure-maven-plugin/resource-usage/<execution ID>.json}.
+ *
+ * @since 0.4.0
+ */
+public class ResourceUsageFns {
+
+    private static final String RESOURCE_USAGE_DIRECTORY_NAME = "resource-usage";
+    private static final String SCRIPT_RESOURCE = "vivid/cmp/resource_usage.clj";
+
+    private ResourceUsageFns() {
+        // Hide the public constructor
+    }
+
+    /**
+     * The accounting for a sub-process of the execution per the state: the limits, and
+     * whether to measure the resources used.
+     */
+    public static ResourceAccounting accounting(
+            final AbstractCMPMojo mojo,
+            final String executionId,
+            final ClojureMojoState state
+    ) {
+        final Option<Path> script = state.resourceUsage ?
+                script(mojo) :
+                Option.none();
+        return new ResourceAccounting(
+                TimeUnit.SECONDS.toMillis(state.timeout),
+                state.maxMemory * 1024L * 1024L,
+                script.map(s -> directory(mojo).resolve(executionId + ".properties")),
+                script.map(s -> List.of("-i", s.toString())).getOrElse(List.empty())
+        );
+    }
+
+    /**
+     * Logs the resources the execution used, and writes them to its JSON file.
+     */
+    @SuppressWarnings("try")
+    public static void report(
+            final AbstractCMPMojo mojo,
+            final String executionId,
+            final ResourceUsage usage,
+            final Log log
+    ) {
+        log.info(mojo.i18nContext().getText(
+                "vivid.clojure-maven-plugin.action.resource-usage",
+                executionId,
+                String.valueOf(usage.wallMillis),
+                usage.cpuMillis.map(String::valueOf).getOrElse("?"),
+                usage.peakRssBytes.map(bytes -> String.valueOf(bytes / (1024 * 1024))).getOrElse("?"),
+                usage.gcMillis.map(String::valueOf).getOrElse("?")
+        ));
+
+        final Path json = directory(mojo).resolve(executionId + ".json");
+        try (Timeline.Span ignored = mojo.timeline().span("report", json.getFileName().toString())) {
+            FileFns.writeFile(json, StandardCharsets.UTF_8, json(executionId, usage))
+                    .orElseRun(message -> log.warn(message.render(mojo)));
+        }
+    }
+
+    private static String json(
+            final String executionId,
+            final ResourceUsage usage
+    ) {
+        return List.of(
+                "\"executionId\": \"" + executionId.replace("\\", "\\\\").replace("\"", "\\\"") + "\"",
+                "\"wallMillis\": " + usage.wallMillis,
+                "\"cpuMillis\": " + usage.cpuMillis.map(String::valueOf).getOrElse("null"),
+                "\"peakRssBytes\": " + usage.peakRssBytes.map(String::valueOf).getOrElse("null"),
+                "\"gcMillis\": " + usage.gcMillis.map(String::valueOf).getOrElse("null")
+        ).mkString("{\n  ", ",\n  ", "\n}\n");
+    }
+
+    private static Path directory(
+            final AbstractCMPMojo mojo
+    ) {
+        return FileFns.pluginWorkDirectory(mojo).resolve(RESOURCE_USAGE_DIRECTORY_NAME);
+    }
+
+    /**
+     * The script making the sub-process' JVM account for itself, copied out of this plugin
+     * so that it needn't be on the sub-process' classpath.
+     */
+    private static Option<Path> script(
+            final AbstractCMPMojo mojo
+    ) {
+        final Path script = directory(mojo).resolve("resource_usage.clj");
+        // Copied aside then moved into place, so that concurrent executions never load a partial script
+        try (InputStream in = ResourceUsageFns.class.getClassLoader().getResourceAsStream(SCRIPT_RESOURCE)) {
+            if (in == null) {
+                throw new IOException("Missing resource " + SCRIPT_RESOURCE);
+            }
+            Files.createDirectories(script.getParent());
+            final Path temp = Files.createTempFile(script.getParent(), script.getFileName().toString(), ".tmp");
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            return Option.of(Files.move(temp, script, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE));
+        } catch (final IOException e) {
+            mojo.getLog().warn(
+                    VCMPE1InternalError.message("Could not account for the resources of the sub-process", e).render(mojo)
+            );
+            return Option.none();
+        }
+    }
+
+}
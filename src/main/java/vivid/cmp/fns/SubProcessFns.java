@@ -14,63 +14,277 @@
 
 package vivid.cmp.fns;
 
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
 import io.vavr.collection.Stream;
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
 import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.exec.ExecuteWatchdog;
 import org.apache.commons.exec.Executor;
+import org.apache.commons.exec.LogOutputStream;
 import org.apache.commons.exec.PumpStreamHandler;
 import org.apache.commons.exec.ShutdownHookProcessDestroyer;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import vivid.cmp.datatypes.OutputPipeline;
+import vivid.cmp.datatypes.ResourceAccounting;
+import vivid.cmp.datatypes.Timeline;
+import vivid.cmp.messages.VCMPE1InternalError;
 import vivid.cmp.mojo.AbstractCMPMojo;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class SubProcessFns {
 
+    // clojure.main's options are all lower case, those of the 'clojure' executable upper case
+    private static final String CLOJURE_OPTION_LETTERS = "ACJMOPRSTX";
+    private static final List<String> CLOJURE_OPTIONS_TAKING_VALUES = List.of("-Scp", "-Sdeps", "-Sthreads");
+
     private SubProcessFns() {
         // Hide the public constructor
     }
 
+    /**
+     * Runs the 'clojure' executable with the classpath, its output carried by the pipeline.
+     */
     public static void executeSubProcess(
             final AbstractCMPMojo mojo,
             final String clojureExecutable,
             final String args,
+            final List<String> jvmOptions,
             final Stream<String> classPath,
-            final Map<String, String> env
+            final Map<String, String> env,
+            final OutputPipeline output,
+            final ResourceAccounting accounting
     ) throws MojoExecutionException {
-        // Employ Apache's commons-exec to handle the sub-process
-        final Executor executor = new DefaultExecutor();
-
-        // stdin will not be connected to this process, implying no interactivity
-        executor.setStreamHandler(new PumpStreamHandler());
-
-        // The sub-process' working directory is set to the basedir of the Maven project
-        executor.setWorkingDirectory(mojo.mavenSession().getCurrentProject().getBasedir());
-
-        executor.setProcessDestroyer(new ShutdownHookProcessDestroyer());
-
         final CommandLine commandLine = new CommandLine(clojureExecutable);
 
+        for (final String jvmOption : jvmOptions.appendAll(accounting.jvmOptions())) {
+            commandLine.addArgument("-J" + jvmOption, false);
+        }
+
         // The Clojure sub-process utilizes Maven's classpath
         commandLine.addArgument("-Scp");
         commandLine.addArgument(
                 Stream.ofAll(classPath).mkString(":")
         );
 
+        // The 'clojure' executable stops taking options of its own at the first it doesn't
+        // know, so that clojure.main options go after those of the args
+        final List<String> argList = args == null ?
+                List.empty() :
+                List.of(new CommandLine(clojureExecutable).addArguments(args, false).getArguments());
+        final List<String> clojureOptions = argList.take(clojureOptionCount(argList));
+        clojureOptions.forEach(commandLine::addArgument);
+        // Exec mode runs a function rather than clojure.main
+        if (!clojureOptions.exists(option -> option.startsWith("-X") || option.startsWith("-T"))) {
+            for (final String option : accounting.clojureMainOptions()) {
+                commandLine.addArgument(option, false);
+            }
+        }
+        argList.drop(clojureOptions.size()).forEach(commandLine::addArgument);
+
+        try {
+            SubProcessFns.exec(
+                    mojo,
+                    subProcessExecutor(mojo, output, accounting),
+                    commandLine,
+                    env,
+                    accounting
+            );
+        } finally {
+            close(mojo, output);
+        }
+    }
+
+    /**
+     * @return the number of leading args that are options of the 'clojure' executable itself,
+     *     such as {@code -J-Xmx1g}, {@code -Sdeps '{...}'} and {@code -M:alias}, rather than
+     *     of {@code clojure.main}
+     */
+    static int clojureOptionCount(
+            final List<String> args
+    ) {
+        int count = 0;
+        while (count < args.size()) {
+            final String arg = args.get(count);
+            if (CLOJURE_OPTIONS_TAKING_VALUES.contains(arg)) {
+                count = Math.min(count + 2, args.size());
+            } else if (arg.length() > 1 && arg.charAt(0) == '-' && CLOJURE_OPTION_LETTERS.indexOf(arg.charAt(1)) >= 0) {
+                count++;
+            } else {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Runs {@code clojure.main} with the 'java' executable directly, without the 'clojure'
+     * executable, the classpath given by {@param classPathOptions} such as {@code -cp} or a
+     * Java {@code @argfile}, which the 'clojure' executable has no means of passing on to 'java'.
+     *
+     * @param argLine further JVM options as typed on a command line, if any
+     */
+    public static void executeJavaSubProcess(
+            final AbstractCMPMojo mojo,
+            final String javaExecutable,
+            final List<String> classPathOptions,
+            final String args,
+            final List<String> jvmOptions,
+            final String argLine,
+            final Map<String, String> env,
+            final OutputPipeline output,
+            final ResourceAccounting accounting
+    ) throws MojoExecutionException {
+        final CommandLine commandLine = new CommandLine(javaExecutable);
+        for (final String jvmOption : jvmOptions.appendAll(accounting.jvmOptions())) {
+            commandLine.addArgument(jvmOption, false);
+        }
+        if (argLine != null) {
+            commandLine.addArguments(argLine);
+        }
+        for (final String classPathOption : classPathOptions) {
+            commandLine.addArgument(classPathOption, false);
+        }
+        commandLine.addArgument("clojure.main");
+        for (final String option : accounting.clojureMainOptions()) {
+            commandLine.addArgument(option, false);
+        }
         if (args != null) {
             commandLine.addArguments(args);
         }
 
-        SubProcessFns.exec(
-                mojo,
-                executor,
-                commandLine,
-                env
-        );
+        try {
+            SubProcessFns.exec(
+                    mojo,
+                    subProcessExecutor(mojo, output, accounting),
+                    commandLine,
+                    env,
+                    accounting
+            );
+        } finally {
+            close(mojo, output);
+        }
+    }
+
+    private static Executor subProcessExecutor(
+            final AbstractCMPMojo mojo,
+            final OutputPipeline output,
+            final ResourceAccounting accounting
+    ) {
+        // Employ Apache's commons-exec to handle the sub-process,
+        // accounting for its resources from the moment it is launched
+        final Executor executor = new DefaultExecutor() {
+            @Override
+            protected Process launch(
+                    final CommandLine command,
+                    final Map<String, String> env,
+                    final File dir
+            ) throws IOException {
+                final Process process = super.launch(command, env, dir);
+                accounting.started(process);
+                return process;
+            }
+        };
+
+        // stdin will not be connected to this process, implying no interactivity
+        executor.setStreamHandler(new PumpStreamHandler(output.out(), output.err()));
+
+        // The sub-process' working directory is set to the basedir of the Maven project
+        executor.setWorkingDirectory(mojo.mavenSession().getCurrentProject().getBasedir());
+
+        executor.setProcessDestroyer(new ShutdownHookProcessDestroyer());
+
+        if (accounting.timeoutMillis() > 0) {
+            executor.setWatchdog(new ExecuteWatchdog(accounting.timeoutMillis()));
+        }
+
+        return executor;
+    }
+
+    /**
+     * Closes the pipeline once the sub-process has exited, reporting the lines it left
+     * unlogged and where it captured the output.
+     */
+    private static void close(
+            final AbstractCMPMojo mojo,
+            final OutputPipeline output
+    ) {
+        try {
+            output.close();
+        } catch (final IOException e) {
+            output.log().warn(
+                    VCMPE1InternalError.message("Could not capture output: " + output.captureFile().getOrNull(), e).render(mojo)
+            );
+        }
+        if (output.suppressedLines() > 0) {
+            output.log().info(
+                    mojo.i18nContext().getText(
+                            "vivid.clojure-maven-plugin.action.console-lines-suppressed",
+                            String.valueOf(output.suppressedLines())
+                    )
+            );
+        }
+        output.captureFile().forEach(file -> output.log().info(
+                mojo.i18nContext().getText(
+                        "vivid.clojure-maven-plugin.action.output-captured",
+                        file
+                )
+        ));
+    }
+
+    /**
+     * Runs the command line, telling apart failures due to the sub-process being stopped for
+     * exceeding its limits.
+     */
+    private static void exec(
+            final AbstractCMPMojo mojo,
+            final Executor exec,
+            final CommandLine commandLine,
+            final Map<String, String> environment,
+            final ResourceAccounting accounting
+    ) throws MojoExecutionException {
+        try {
+            exec(mojo, exec, commandLine, environment);
+        } catch (final MojoExecutionException e) {
+            accounting.finished();
+            if (exec.getWatchdog() != null && exec.getWatchdog().killedProcess()) {
+                throw new MojoExecutionException(
+                        mojo.i18nContext().getText(
+                                "vivid.clojure-maven-plugin.action.sub-process-timed-out",
+                                commandLine.getExecutable(),
+                                String.valueOf(TimeUnit.MILLISECONDS.toSeconds(accounting.timeoutMillis()))
+                        ),
+                        e
+                );
+            }
+            if (accounting.memoryExceeded()) {
+                throw new MojoExecutionException(
+                        mojo.i18nContext().getText(
+                                "vivid.clojure-maven-plugin.action.sub-process-memory-exceeded",
+                                commandLine.getExecutable(),
+                                String.valueOf(accounting.maxMemoryBytes() / (1024 * 1024))
+                        ),
+                        e
+                );
+            }
+            throw e;
+        } finally {
+            accounting.finished();
+        }
     }
 
+    @SuppressWarnings("try")
     private static void exec(
             final AbstractCMPMojo mojo,
             final Executor exec,
@@ -86,7 +300,7 @@ public class SubProcessFns {
 
         int exitValue;
         Exception failureException = null;
-        try {
+        try (Timeline.Span ignored = mojo.timeline().span("sub-process", commandLine.getExecutable())) {
             exitValue = exec.execute(commandLine, environment);
         } catch (final ExecuteException e) {
             exitValue = e.getExitValue();
@@ -108,4 +322,145 @@ public class SubProcessFns {
         }
     }
 
+    /**
+     * Runs each of the labelled command lines in its own sub-process, at most
+     * {@param parallelism} of them at a time. The output of each sub-process is
+     * relayed line by line to Maven's log, prefixed by its label.
+     *
+     * @return the exit value of each sub-process, in the same order as the command lines.
+     *     Non-zero exit values are left for the caller to interpret.
+     */
+    public static List<Integer> executeConcurrently(
+            final AbstractCMPMojo mojo,
+            final List<Tuple2<String, CommandLine>> labelledCommandLines,
+            final int parallelism,
+            final Map<String, String> env
+    ) throws MojoExecutionException {
+        final ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            final List<Future<Integer>> exitValues = labelledCommandLines.map(
+                    labelled -> pool.submit(() -> execLabelled(mojo, labelled._1, labelled._2, env))
+            );
+            List<Integer> results = List.empty();
+            for (final Future<Integer> exitValue : exitValues) {
+                results = results.append(exitValue.get());
+            }
+            return results;
+        } catch (final ExecutionException e) {
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Could not run sub-process").render(mojo),
+                    e.getCause()
+            );
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Interrupted while awaiting sub-processes").render(mojo),
+                    e
+            );
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @SuppressWarnings("try")
+    private static int execLabelled(
+            final AbstractCMPMojo mojo,
+            final String label,
+            final CommandLine commandLine,
+            final Map<String, String> environment
+    ) throws IOException {
+        final Executor executor = new DefaultExecutor();
+        final String prefix = "[" + label + "] ";
+        executor.setStreamHandler(new PumpStreamHandler(
+                new MavenLogOutputStream(mojo.getLog(), prefix, false),
+                new MavenLogOutputStream(mojo.getLog(), prefix, true)
+        ));
+        executor.setWorkingDirectory(mojo.mavenSession().getCurrentProject().getBasedir());
+        executor.setProcessDestroyer(new ShutdownHookProcessDestroyer());
+
+        // Any exit value is acceptable here; the caller decides what each one means.
+        executor.setExitValues(null);
+
+        mojo.getLog().debug(
+                String.format(
+                        "%sCommand line: %s",
+                        prefix,
+                        String.join(" ", commandLine.toStrings())
+                )
+        );
+        try (Timeline.Span ignored = mojo.timeline().span("sub-process", label)) {
+            return executor.execute(commandLine, environment);
+        }
+    }
+
+    /**
+     * Runs the command line in a sub-process to completion, its output discarded unless
+     * it fails.
+     *
+     * @return the wall-clock time the sub-process took, in nanoseconds
+     */
+    public static long executeTimed(
+            final AbstractCMPMojo mojo,
+            final CommandLine commandLine,
+            final Map<String, String> environment
+    ) throws MojoExecutionException {
+        final Executor executor = new DefaultExecutor();
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        executor.setStreamHandler(new PumpStreamHandler(output));
+        executor.setWorkingDirectory(mojo.mavenSession().getCurrentProject().getBasedir());
+        executor.setProcessDestroyer(new ShutdownHookProcessDestroyer());
+
+        final long start = System.nanoTime();
+        try {
+            exec(mojo, executor, commandLine, environment);
+        } catch (final MojoExecutionException e) {
+            mojo.getLog().error(output.toString());
+            throw e;
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * @return the 'java' executable of the JVM running Maven
+     */
+    public static String javaExecutable() {
+        return new File(
+                new File(System.getProperty("java.home"), "bin"),
+                "java"
+        ).getPath();
+    }
+
+    /**
+     * Relays each line written to it to Maven's log.
+     */
+    private static class MavenLogOutputStream extends LogOutputStream {
+
+        private final Log log;
+        private final String prefix;
+        private final boolean error;
+
+        MavenLogOutputStream(
+                final Log log,
+                final String prefix,
+                final boolean error
+        ) {
+            this.log = log;
+            this.prefix = prefix;
+            this.error = error;
+        }
+
+        @Override
+        protected void processLine(
+                final String line,
+                final int logLevel
+        ) {
+            if (error) {
+                log.error(prefix + line);
+            } else {
+                log.info(prefix + line);
+            }
+        }
+
+    }
+
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.messages;
+
+import io.vavr.control.Option;
+import vivid.cmp.mojo.AbstractCMPMojo;
+
+/**
+ * @since 0.4.0
+ */
+public class VCMPE5UnresolvableArtifact implements Message {
+
+    private static final String I18N_KEY = "vivid.clojure-maven-plugin.error.vcmpe-5-unresolvable-artifact";
+
+    private final String artifact;
+    private final Option<Exception> cause;
+    private final String reason;
+
+    private VCMPE5UnresolvableArtifact(
+            final String artifact,
+            final Option<Exception> cause,
+            final String reason
+    ) {
+        this.artifact = artifact;
+        this.cause = cause;
+        this.reason = reason;
+    }
+
+    public static Message message(
+            final String artifact,
+            final String reason
+    ) {
+        return new VCMPE5UnresolvableArtifact(
+                artifact,
+                Option.none(),
+                reason
+        );
+    }
+
+    public static Message message(
+            final String artifact,
+            final Exception e
+    ) {
+        return new VCMPE5UnresolvableArtifact(
+                artifact,
+                Option.of(e),
+                e.getLocalizedMessage()
+        );
+    }
+
+    /**
+     * For failures other than exceptions, such as a {@link LinkageError}, held as the cause
+     * wrapped in an exception.
+     */
+    public static Message message(
+            final String artifact,
+            final Throwable t
+    ) {
+        return t instanceof Exception ?
+                message(artifact, (Exception) t) :
+                new VCMPE5UnresolvableArtifact(
+                        artifact,
+                        Option.of(new Exception(t)),
+                        t.toString()
+                );
+    }
+
+    @Override
+    public Option<Exception> getCause() {
+        return cause;
+    }
+
+    @Override
+    public String render(
+            AbstractCMPMojo mojo
+    ) {
+        return mojo.i18nContext().getText(
+                I18N_KEY,
+                artifact,
+                reason
+        );
+    }
+
+}
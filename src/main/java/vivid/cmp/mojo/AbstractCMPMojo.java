@@ -14,9 +14,16 @@
 
 package vivid.cmp.mojo;
 
+import io.vavr.collection.Map;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
 import org.apache.maven.artifact.repository.ArtifactRepository;
 import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -24,9 +31,20 @@ import org.apache.maven.shared.transfer.dependencies.resolve.DependencyResolver;
 import org.codehaus.plexus.i18n.I18N;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
+import vivid.cmp.datatypes.ClojureMojoState;
+import vivid.cmp.datatypes.Timeline;
+import vivid.cmp.fns.ClassPathology;
+import vivid.cmp.fns.FileFns;
 import vivid.cmp.messages.I18nContext;
+import vivid.cmp.messages.Message;
+import vivid.cmp.messages.VCMPE3ItemNotFound;
+import vivid.cmp.messages.VCMPE4IndeterminateExecutionId;
 import vivid.polypara.annotation.Constant;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 
 public abstract class AbstractCMPMojo extends AbstractMojo {
@@ -41,11 +59,30 @@ public abstract class AbstractCMPMojo extends AbstractMojo {
     @Constant(rationale = DONT_MAKE_ME_THINK)
     static final String CLOJURE_MOJO_GOAL_NAME = "clojure";
     @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String CLOJURE_BENCH_MOJO_GOAL_NAME = "clojure.bench";
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String CLOJURE_CONCURRENT_MOJO_GOAL_NAME = "clojure-concurrent";
+    @Constant(rationale = DONT_MAKE_ME_THINK)
     static final String CLOJURE_TEST_MOJO_GOAL_NAME = "clojure.test";
     @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String COMPILE_MOJO_GOAL_NAME = "compile";
+    @Constant(rationale = DONT_MAKE_ME_THINK)
     static final String DEPS_EDN_MOJO_GOAL_NAME = "deps.edn";
     @Constant(rationale = DONT_MAKE_ME_THINK)
     static final String LEININGEN_GOAL_NAME = "leiningen";
+    @Constant(rationale = DONT_MAKE_ME_THINK)
+    static final String STARTUP_BENCHMARK_MOJO_GOAL_NAME = "startup-benchmark";
+
+    @Constant
+    static final String DAEMON_IDLE_TIMEOUT_PROPERTY_KEY = CLOJURE_MAVEN_PLUGIN_ID + ".daemonIdleTimeout";
+    @Constant
+    static final String MAX_DAEMONS_PROPERTY_KEY = CLOJURE_MAVEN_PLUGIN_ID + ".maxDaemons";
+    @Constant
+    private static final String REUSE_RUNTIME_PROPERTY_KEY = CLOJURE_MAVEN_PLUGIN_ID + ".reuseRuntime";
+    @Constant
+    private static final String TIMELINE_PROPERTY_KEY = CLOJURE_MAVEN_PLUGIN_ID + ".timeline";
+
+    private static final String TIMELINE_DIRECTORY_NAME = "timeline";
 
 
     //
@@ -63,6 +100,9 @@ public abstract class AbstractCMPMojo extends AbstractMojo {
     @Parameter(readonly = true, required = true, property = "session")
     public MavenSession mavenSession;
 
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+    protected MojoExecution mojoExecution;
+
     @Parameter(defaultValue = "${plugin}", readonly = true, required = true)
     public PluginDescriptor pluginDescriptor;
 
@@ -76,14 +116,134 @@ public abstract class AbstractCMPMojo extends AbstractMojo {
     public List<ArtifactRepository> remoteRepositories;
 
 
+    //
+    // User-provided configuration
+    //
+
+    /**
+     * When {@code true}, goals running Clojure within Maven's JVM, such as {@code clojure.test} and
+     * {@code leiningen}, load Clojure and their tools once per Maven session into a warm runtime
+     * that successive executions reuse, layering each project's classpath on top. Namespaces loaded
+     * by an execution are removed once it finishes, but global state that project code changes
+     * within the warm runtime, such as the spec registry, multimethods, protocol extensions and
+     * the roots of {@code clojure.core} vars, carries over to later executions. Hence opt-in, for
+     * projects known not to change such state; by default, everything is loaded afresh for each
+     * execution.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "false", property = REUSE_RUNTIME_PROPERTY_KEY)
+    protected boolean reuseRuntime;
+
+    /**
+     * When {@code true}, the time the goal execution spent in each of its phases, such as resolving
+     * dependencies, bootstrapping Clojure, requiring namespaces, running tests and running
+     * sub-processes, is written as a JSON timeline to
+     * {@code target/clojure-maven-plugin/timeline/<goal>-<execution ID>.json}. The same phases are
+     * Flight Recorder events named {@code vivid.cmp.Span} regardless, for JVMs that have it.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "false", property = TIMELINE_PROPERTY_KEY)
+    protected boolean timeline;
+
+    private Timeline executionTimeline = Timeline.NONE;
+
+
     /**
-     * Note: Until we learn a better way for AbstractCMPMojo to correctly initialize
-     * the i18nContext field (is via constructor safe?), sub-classes must call
-     * this method as soon as possible.
+     * Initializes the fields that Maven doesn't inject, begins resolving the goal's tools in the
+     * background, then executes the goal, timing it.
      */
-    protected void initialize() {
-        // TODO Find how to make this automatic so that sub-classers need not explicility invoke this.
+    @Override
+    @SuppressWarnings("try")
+    public final void execute() throws MojoExecutionException, MojoFailureException {
+        initialize();
+        ClassPathology.prefetchToolFiles(this, toolDependencies());
+        try {
+            try (Timeline.Span ignored = executionTimeline.span("goal", mojoExecution.getGoal())) {
+                executeGoal();
+            }
+        } finally {
+            if (timeline) {
+                writeTimeline();
+            }
+        }
+    }
+
+    /**
+     * Executes the goal, once the fields that Maven doesn't inject are initialized.
+     */
+    protected abstract void executeGoal() throws MojoExecutionException, MojoFailureException;
+
+    /**
+     * The tools, such as eftest or Leiningen, that the goal will resolve with
+     * {@link ClassPathology#resolveToolFiles(AbstractCMPMojo, Dependency)}, resolved in the
+     * background while the goal executes up to that point. None by default.
+     *
+     * @since 0.4.0
+     */
+    protected Iterable<Dependency> toolDependencies() {
+        return io.vavr.collection.List.empty();
+    }
+
+    private void initialize() {
         i18nContext = new I18nContext(i18n);
+        executionTimeline = new Timeline(
+                mavenSession.getCurrentProject().getId(),
+                mojoExecution.getGoal(),
+                mojoExecution.getExecutionId()
+        );
+    }
+
+    private void writeTimeline() {
+        final Path json = FileFns.pluginWorkDirectory(this)
+                .resolve(TIMELINE_DIRECTORY_NAME)
+                .resolve(mojoExecution.getGoal() + "-" + mojoExecution.getExecutionId() + ".json");
+        try {
+            Files.createDirectories(json.getParent());
+        } catch (final IOException e) {
+            // Reported by the write that follows
+        }
+        FileFns.writeFile(json, StandardCharsets.UTF_8, executionTimeline.toJson())
+                .peek(written -> getLog().debug("Wrote timeline: " + json))
+                .orElseRun(message -> getLog().warn(message.render(this)));
+    }
+
+
+    /**
+     * Selects the configuration of a 'clojure' goal execution for the goal: that of the execution
+     * ID if specified, the default if none are defined, the singular configuration if defined,
+     * otherwise gives up.
+     */
+    static Either<Message, ClojureMojoState> selectClojureMojoConfig(
+            final Map<String, ClojureMojoState> configs,
+            final String executionId,
+            final String executionIdParameterKey,
+            final String goalName
+    ) {
+        if (executionId != null) {
+            final Option<ClojureMojoState> a = configs.get(executionId);
+            return a.toEither(VCMPE3ItemNotFound.message(
+                    String.format(
+                            "'%s' goal execution ID '%s'",
+                            CLOJURE_MOJO_GOAL_NAME,
+                            executionId
+                    )
+            ));
+        }
+        if (configs.isEmpty()) {
+            return Either.right(ClojureMojoState.DEFAULT_STATE);
+        }
+        if (configs.size() == 1) {
+            return Either.right(configs.get()._2);
+        }
+        // At this point, configs.size() >= 2
+        return Either.left(VCMPE4IndeterminateExecutionId.message(
+                executionIdParameterKey,
+                goalName,
+                CLOJURE_MOJO_GOAL_NAME,
+                configs.keySet()
+        ));
     }
 
 
@@ -96,5 +256,8 @@ public abstract class AbstractCMPMojo extends AbstractMojo {
     public MavenSession mavenSession() {
         return mavenSession;
     }
+    public Timeline timeline() {
+        return executionTimeline;
+    }
 
 }
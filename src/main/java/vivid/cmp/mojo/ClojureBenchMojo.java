@@ -0,0 +1,522 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.mojo;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Either;
+import org.apache.commons.exec.CommandLine;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import vivid.cmp.datatypes.ClasspathScope;
+import vivid.cmp.datatypes.ClojureMojoState;
+import vivid.cmp.datatypes.ClojureRuntime;
+import vivid.cmp.datatypes.Timeline;
+import vivid.cmp.fns.ClassPathology;
+import vivid.cmp.fns.FileFns;
+import vivid.cmp.fns.MavenDependencyFns;
+import vivid.cmp.fns.MojoFns;
+import vivid.cmp.fns.SubProcessFns;
+import vivid.cmp.messages.Message;
+import vivid.cmp.messages.VCMPE1InternalError;
+import vivid.polypara.annotation.Constant;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * Runs the benchmarks found among the test paths, comparing their results against a
+ * baseline and failing the build when any of them regresses beyond a threshold.
+ *
+ * Benchmarks are the zero-argument public functions of namespaces having {@code :benchmark}
+ * metadata, and any functions having {@code :benchmark} metadata themselves. Each is called
+ * repeatedly for {@code warmupIterations} iterations whose times are discarded, then for
+ * {@code iterations} measured iterations. The median of the iterations' mean times per call
+ * is compared against that of the baseline.
+ *
+ * @since 0.4.0
+ */
+@Mojo(
+        name = AbstractCMPMojo.CLOJURE_BENCH_MOJO_GOAL_NAME,
+        defaultPhase = LifecyclePhase.VERIFY,
+        requiresDependencyResolution = ResolutionScope.TEST
+)
+public class ClojureBenchMojo extends AbstractCMPMojo {
+
+
+    @Constant
+    private static final String CLOJURE_BENCH_GOAL_PROPERTY_KEY_PREFIX =
+            CLOJURE_MAVEN_PLUGIN_ID + "." + CLOJURE_BENCH_MOJO_GOAL_NAME + ".";
+
+    @Constant
+    private static final String CLOJURE_BENCH_CLOJUREGOALEXECUTIONID_PARAMETER_KEY = "clojureGoalExecutionId";
+    @Constant
+    private static final String CLOJURE_BENCH_CLOJUREGOALEXECUTIONID_PROPERTY_KEY =
+            CLOJURE_BENCH_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_BENCH_CLOJUREGOALEXECUTIONID_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_BENCH_ARGLINE_PARAMETER_KEY = "argLine";
+    @Constant
+    private static final String CLOJURE_BENCH_ARGLINE_PROPERTY_KEY =
+            CLOJURE_BENCH_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_BENCH_ARGLINE_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_BENCH_BASELINEFILE_PARAMETER_KEY = "baselineFile";
+    @Constant
+    private static final String CLOJURE_BENCH_BASELINEFILE_PROPERTY_KEY =
+            CLOJURE_BENCH_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_BENCH_BASELINEFILE_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_BENCH_BENCHMARK_PARAMETER_KEY = "benchmark";
+    @Constant
+    private static final String CLOJURE_BENCH_BENCHMARK_PROPERTY_KEY =
+            CLOJURE_BENCH_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_BENCH_BENCHMARK_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_BENCH_FORK_PARAMETER_KEY = "fork";
+    @Constant
+    private static final String CLOJURE_BENCH_FORK_PROPERTY_KEY =
+            CLOJURE_BENCH_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_BENCH_FORK_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_BENCH_ITERATIONS_PARAMETER_KEY = "iterations";
+    @Constant
+    private static final String CLOJURE_BENCH_ITERATIONS_PROPERTY_KEY =
+            CLOJURE_BENCH_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_BENCH_ITERATIONS_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_BENCH_ITERATIONTIME_PARAMETER_KEY = "iterationTime";
+    @Constant
+    private static final String CLOJURE_BENCH_ITERATIONTIME_PROPERTY_KEY =
+            CLOJURE_BENCH_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_BENCH_ITERATIONTIME_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_BENCH_REGRESSIONTHRESHOLD_PARAMETER_KEY = "regressionThreshold";
+    @Constant
+    private static final String CLOJURE_BENCH_REGRESSIONTHRESHOLD_PROPERTY_KEY =
+            CLOJURE_BENCH_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_BENCH_REGRESSIONTHRESHOLD_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_BENCH_RESULTSFILE_PARAMETER_KEY = "resultsFile";
+    @Constant
+    private static final String CLOJURE_BENCH_RESULTSFILE_PROPERTY_KEY =
+            CLOJURE_BENCH_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_BENCH_RESULTSFILE_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_BENCH_SKIP_PARAMETER_KEY = "skip";
+    @Constant
+    private static final String CLOJURE_BENCH_SKIP_PROPERTY_KEY =
+            CLOJURE_BENCH_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_BENCH_SKIP_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_BENCH_UPDATEBASELINE_PARAMETER_KEY = "updateBaseline";
+    @Constant
+    private static final String CLOJURE_BENCH_UPDATEBASELINE_PROPERTY_KEY =
+            CLOJURE_BENCH_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_BENCH_UPDATEBASELINE_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_BENCH_WARMUPITERATIONS_PARAMETER_KEY = "warmupIterations";
+    @Constant
+    private static final String CLOJURE_BENCH_WARMUPITERATIONS_PROPERTY_KEY =
+            CLOJURE_BENCH_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_BENCH_WARMUPITERATIONS_PARAMETER_KEY;
+
+
+    //
+    // User-provided configuration
+    //
+
+    /**
+     * Runs benchmarks with the dependency and path settings of a specific {@code clojure}
+     * goal, specified by its execution ID.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_BENCH_CLOJUREGOALEXECUTIONID_PROPERTY_KEY)
+    private String clojureGoalExecutionId;
+
+    /**
+     * JVM options given to each forked JVM, such as heap and garbage collector settings.
+     * Only takes effect when {@code fork} is {@code true}.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_BENCH_ARGLINE_PROPERTY_KEY)
+    private String argLine;
+
+    /**
+     * The results of a prior run that the results of this run are compared against, typically
+     * committed alongside the sources. When absent, nothing is compared.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(
+            defaultValue = "${project.basedir}/clojure-bench-baseline.edn",
+            property = CLOJURE_BENCH_BASELINEFILE_PROPERTY_KEY
+    )
+    private File baselineFile;
+
+    /**
+     * Comma-separated patterns selecting the benchmarks to run, in the syntax of the
+     * {@code clojure.test} goal's {@code test} parameter, such as {@code my.app.*-bench} or
+     * {@code my.app.parser-bench/parse*}. Namespaces not matched are never loaded.
+     * All benchmarks are run by default.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_BENCH_BENCHMARK_PROPERTY_KEY)
+    private String benchmark;
+
+    /**
+     * When {@code true}, runs the benchmarks of each namespace in a fresh JVM of its own, one
+     * namespace after another, so that neither Maven's JVM nor other benchmarks influence how
+     * their code is compiled. By default, benchmarks run within Maven's own JVM.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "false", property = CLOJURE_BENCH_FORK_PROPERTY_KEY)
+    private boolean fork;
+
+    /**
+     * The number of measured iterations of each benchmark, at least 1.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "10", property = CLOJURE_BENCH_ITERATIONS_PROPERTY_KEY)
+    private int iterations;
+
+    /**
+     * The duration of each iteration in milliseconds, during which the benchmark is called
+     * as many times as it can be.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "1000", property = CLOJURE_BENCH_ITERATIONTIME_PROPERTY_KEY)
+    private int iterationTime;
+
+    /**
+     * The percentage by which the median time per call of a benchmark may exceed that of the
+     * baseline before the build fails.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "10", property = CLOJURE_BENCH_REGRESSIONTHRESHOLD_PROPERTY_KEY)
+    private double regressionThreshold;
+
+    /**
+     * The file into which the results of the benchmarks are written, in the form of the baseline.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(
+            defaultValue = "${project.build.directory}/clojure-maven-plugin/clojure-bench.edn",
+            property = CLOJURE_BENCH_RESULTSFILE_PROPERTY_KEY
+    )
+    private File resultsFile;
+
+    /**
+     * The benchmark run will be skipped when {@code true}.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "${maven.test.skip}", property = CLOJURE_BENCH_SKIP_PROPERTY_KEY)
+    private boolean skip;
+
+    /**
+     * When {@code true}, the results of this run become the new baseline rather than being
+     * compared against it.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "false", property = CLOJURE_BENCH_UPDATEBASELINE_PROPERTY_KEY)
+    private boolean updateBaseline;
+
+    /**
+     * The number of iterations of each benchmark run before those measured, giving the JVM
+     * the opportunity to compile the benchmark's code.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "5", property = CLOJURE_BENCH_WARMUPITERATIONS_PROPERTY_KEY)
+    private int warmupIterations;
+
+
+    private static final String CLOJURE_BENCH_RUNNER_NS = "vivid.cmp.clojure-bench-runner";
+
+    private static final Dependency toolsNamespaceDependency = MavenDependencyFns.newDependency(
+            "org.clojure",
+            "tools.namespace",
+            "1.0.0"
+    );
+
+
+    @Override
+    protected Iterable<Dependency> toolDependencies() {
+        return skip ? List.empty() : List.of(toolsNamespaceDependency);
+    }
+
+    @Override
+    @SuppressWarnings("try")
+    protected void executeGoal() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info(
+                    i18nContext.getText(
+                            "vivid.clojure-maven-plugin.action.skipping-execution-via-configuration",
+                            CLOJURE_BENCH_SKIP_PROPERTY_KEY
+                    )
+            );
+            return;
+        }
+        if (iterations < 1) {
+            throw new MojoFailureException(
+                    i18nContext.getText(
+                            "vivid.clojure-maven-plugin.action.parameter-below-minimum",
+                            CLOJURE_BENCH_ITERATIONS_PARAMETER_KEY,
+                            "1",
+                            String.valueOf(iterations)
+                    )
+            );
+        }
+        if (warmupIterations < 0) {
+            throw new MojoFailureException(
+                    i18nContext.getText(
+                            "vivid.clojure-maven-plugin.action.parameter-below-minimum",
+                            CLOJURE_BENCH_WARMUPITERATIONS_PARAMETER_KEY,
+                            "0",
+                            String.valueOf(warmupIterations)
+                    )
+            );
+        }
+
+        final Either<Message, ClojureMojoState> selectedConfig = MojoFns.myPluginExecutionConfigurations(
+                this,
+                pluginDescriptor.getPluginLookupKey(),
+                AbstractCMPMojo.CLOJURE_MOJO_GOAL_NAME
+        )
+                .flatMap(configs -> selectClojureMojoConfig(
+                        configs,
+                        clojureGoalExecutionId,
+                        CLOJURE_BENCH_CLOJUREGOALEXECUTIONID_PARAMETER_KEY,
+                        AbstractCMPMojo.CLOJURE_BENCH_MOJO_GOAL_NAME
+                ));
+        if (selectedConfig.isLeft()) {
+            throw new MojoFailureException(
+                    selectedConfig.getLeft().render(this)
+            );
+        }
+        final ClojureMojoState clojureMojoState = selectedConfig.get()
+                .setClasspathScope(ClasspathScope.TEST);
+
+        final List<File> projectClassPath;
+        try {
+            projectClassPath = List
+                    .ofAll(ClassPathology.getClassPathForScope(
+                            this,
+                            clojureMojoState,
+                            true,
+                            ClassPathology.PathStyle.ABSOLUTE
+                    ))
+                    .map(File::new);
+        } catch (final Exception e) {
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Unexpected exception while adding to classloader path").render(this),
+                    e
+            );
+        }
+
+        final Either<Message, List<File>> resolvedToolFiles = ClassPathology.resolveToolFiles(this, toolsNamespaceDependency);
+        if (resolvedToolFiles.isLeft()) {
+            throw new MojoFailureException(
+                    resolvedToolFiles.getLeft().render(this),
+                    resolvedToolFiles.getLeft().getCause().getOrNull()
+            );
+        }
+        final List<File> toolFiles = resolvedToolFiles.get();
+
+        final List<File> classPath = projectClassPath.appendAll(toolFiles);
+
+        final Path basedir = mavenSession.getCurrentProject().getBasedir().toPath();
+        final Map<String, Object> benchRunnerOptions = HashMap.<String, Object>empty()
+                .put("baseline-file", baselineFile.getAbsolutePath())
+                .put(CLOJURE_BENCH_BENCHMARK_PARAMETER_KEY, benchmark)
+                .put(CLOJURE_BENCH_ITERATIONS_PARAMETER_KEY, iterations)
+                .put("iteration-time", iterationTime)
+                .put("regression-threshold", regressionThreshold)
+                .put("results-file", resultsFile.getAbsolutePath())
+                .put("test-paths", clojureMojoState.testPaths
+                        .map(p -> basedir.resolve(p).toString())
+                        .toJavaList())
+                .put("update-baseline", updateBaseline)
+                .put("warmup-iterations", warmupIterations)
+                .put("work-directory", FileFns.pluginWorkDirectory(this).toString());
+
+        final ClojureRuntime clojureRuntime;
+        try {
+            clojureRuntime = ClassPathology.clojureRuntime(
+                    this,
+                    projectClassPath,
+                    toolFiles,
+                    CLOJURE_BENCH_RUNNER_NS,
+                    reuseRuntime
+            );
+        } catch (final Exception e) {
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Unexpected exception while adding to classloader path").render(this),
+                    e
+            );
+        }
+
+        final Either<Message, Object> res;
+        try (ClojureRuntime runtime = clojureRuntime;
+             Timeline.Span ignored = timeline().span("bench-run", fork ? "forked" : "in-process")) {
+            res = fork ?
+                    forkedClojureBenchRunner(this, runtime, benchRunnerOptions, argLine, classPath) :
+                    clojureBenchRunner(this, runtime, "run-benchmarks", this, benchRunnerOptions.toJavaMap());
+        } catch (final RuntimeException e) {
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Could not run the benchmarks").render(this),
+                    e
+            );
+        }
+        translateBenchResultToMaven(this, res);
+    }
+
+    private static Either<Message, Object> clojureBenchRunner(
+            final AbstractCMPMojo mojo,
+            final ClojureRuntime runtime,
+            final String fnName,
+            final Object... args
+    ) {
+        mojo.getLog().debug(
+                String.format(
+                        "Invoking %s/%s with: %s",
+                        CLOJURE_BENCH_RUNNER_NS,
+                        fnName,
+                        List.of(args).drop(1)
+                )
+        );
+        try {
+            return Either.right(
+                    runtime.invoke(CLOJURE_BENCH_RUNNER_NS, fnName, args)
+            );
+        } catch (final Exception e) {
+            return Either.left(VCMPE1InternalError.message(
+                    "Could not run benchmark runner",
+                    e
+            ));
+        }
+    }
+
+    /**
+     * Runs the benchmarks of each namespace in a forked JVM of its own, one at a time,
+     * then merges their results.
+     */
+    @SuppressWarnings("try")
+    private static Either<Message, Object> forkedClojureBenchRunner(
+            final ClojureBenchMojo mojo,
+            final ClojureRuntime runtime,
+            final Map<String, Object> benchRunnerOptions,
+            final String argLine,
+            final List<File> classPath
+    ) throws MojoExecutionException {
+        final Either<Message, Object> forks = clojureBenchRunner(mojo, runtime, "prepare-forks", mojo, benchRunnerOptions.toJavaMap());
+        if (forks.isLeft()) {
+            return forks;
+        }
+        final List<String> optionsPathnames = List.ofAll((Iterable<?>) forks.get()).map(Object::toString);
+        if (optionsPathnames.isEmpty()) {
+            return Either.right(Boolean.TRUE);
+        }
+
+        // Forks run with the test classpath, plus this plugin's own artifact that carries the
+        // benchmark runner, falling back to this plugin's Clojure when the project provides none.
+        final String forkClassPath = classPath
+                .appendAll(ClassPathology.pluginRuntimeFiles(mojo))
+                .map(File::getAbsolutePath)
+                .mkString(File.pathSeparator);
+
+        final List<Tuple2<String, CommandLine>> commandLines = optionsPathnames
+                .zipWithIndex()
+                .map(t -> {
+                    final CommandLine commandLine = new CommandLine(SubProcessFns.javaExecutable());
+                    if (argLine != null) {
+                        commandLine.addArguments(argLine);
+                    }
+                    commandLine.addArgument("-cp");
+                    commandLine.addArgument(forkClassPath, false);
+                    commandLine.addArgument("clojure.main");
+                    commandLine.addArgument("-m");
+                    commandLine.addArgument("vivid.cmp.clojure-bench-worker");
+                    commandLine.addArgument(t._1, false);
+                    return Tuple.of("fork-" + t._2, commandLine);
+                });
+
+        // One at a time, so that the benchmarks don't compete for processors
+        final List<Integer> exitValues = SubProcessFns.executeConcurrently(
+                mojo,
+                commandLines,
+                1,
+                System.getenv()
+        );
+
+        try (Timeline.Span ignored = mojo.timeline().span("report", "merge-fork-results")) {
+            return clojureBenchRunner(
+                    mojo,
+                    runtime,
+                    "merge-fork-results",
+                    mojo,
+                    benchRunnerOptions.toJavaMap(),
+                    exitValues.toJavaList()
+            );
+        }
+    }
+
+    private static void translateBenchResultToMaven(
+            final ClojureBenchMojo mojo,
+            final Either<Message, Object> benchResult
+    ) throws MojoExecutionException, MojoFailureException {
+        if (benchResult.isLeft()) {
+            throw new MojoFailureException(
+                    benchResult.getLeft().render(mojo),
+                    benchResult.getLeft().getCause().get()
+            );
+        }
+
+        final Object r = benchResult.get();
+        if (!(r instanceof Boolean)) {
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Unexpected result type returned from vivid/cmp/clojure_bench_runner.clj")
+                            .render(mojo)
+            );
+        }
+
+        if (!(Boolean) r) {
+            throw new MojoFailureException(
+                    mojo.i18nContext.getText(
+                            "vivid.clojure-maven-plugin.action.benchmark-regressions",
+                            mojo.resultsFile
+                    )
+            );
+        }
+    }
+
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.mojo;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Either;
+import io.vavr.control.Option;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import vivid.cmp.datatypes.BufferedLog;
+import vivid.cmp.datatypes.ClojureMojoState;
+import vivid.cmp.fns.ClojureExecutionFns;
+import vivid.cmp.fns.MojoFns;
+import vivid.cmp.messages.Message;
+import vivid.cmp.messages.VCMPE1InternalError;
+import vivid.cmp.messages.VCMPE3ItemNotFound;
+import vivid.polypara.annotation.Constant;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs several {@code clojure} goal executions of the project concurrently, rather than one
+ * after the other as Maven does. The output of each execution is held back until it finishes,
+ * then logged as one block. Held back are at most as many lines as the execution's
+ * {@code consoleLineLimit}, or {@value #DEFAULT_HELD_LINES} lines when it has none, further lines
+ * being counted but not logged. The goal fails once all of them finish should any of them fail.
+ *
+ * The executions run are typically not bound to a phase themselves, their {@code phase} being
+ * {@code none}, so that Maven doesn't run them again.
+ *
+ * @since 0.4.0
+ */
+@Mojo(
+        name = AbstractCMPMojo.CLOJURE_CONCURRENT_MOJO_GOAL_NAME,
+        requiresDependencyResolution = ResolutionScope.TEST
+)
+public class ClojureConcurrentMojo extends AbstractCMPMojo {
+
+    @Constant
+    private static final String CLOJURE_CONCURRENT_GOAL_PROPERTY_KEY_PREFIX =
+            CLOJURE_MAVEN_PLUGIN_ID + "." + CLOJURE_CONCURRENT_MOJO_GOAL_NAME + ".";
+
+    @Constant
+    private static final String CLOJURE_CONCURRENT_EXECUTIONIDS_PARAMETER_KEY = "executionIds";
+    @Constant
+    private static final String CLOJURE_CONCURRENT_EXECUTIONIDS_PROPERTY_KEY =
+            CLOJURE_CONCURRENT_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_CONCURRENT_EXECUTIONIDS_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_CONCURRENT_PARALLELISM_PARAMETER_KEY = "parallelism";
+    @Constant
+    private static final String CLOJURE_CONCURRENT_PARALLELISM_PROPERTY_KEY =
+            CLOJURE_CONCURRENT_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_CONCURRENT_PARALLELISM_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_CONCURRENT_SKIP_PARAMETER_KEY = "skip";
+    @Constant
+    private static final String CLOJURE_CONCURRENT_SKIP_PROPERTY_KEY =
+            CLOJURE_CONCURRENT_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_CONCURRENT_SKIP_PARAMETER_KEY;
+
+    @Constant(rationale = "Bounds the heap held by an execution whose output isn't limited otherwise")
+    private static final int DEFAULT_HELD_LINES = 10000;
+    @Constant(rationale = "Room for the heading and the plugin's own messages about the execution")
+    private static final int HELD_MESSAGE_LINES = 16;
+
+
+    //
+    // User-provided configuration
+    //
+
+    /**
+     * The number of minutes after which a daemon started by the {@code DAEMON} execution mode
+     * exits unless it runs anything meanwhile.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "30", property = DAEMON_IDLE_TIMEOUT_PROPERTY_KEY)
+    private int daemonIdleTimeout;
+
+    /**
+     * The IDs of the {@code clojure} goal executions to run. Defaults to all of them.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_CONCURRENT_EXECUTIONIDS_PROPERTY_KEY)
+    private java.util.List<String> executionIds = new ArrayList<>();
+
+    /**
+     * The most daemons of the {@code DAEMON} execution mode kept running for the user at once.
+     * Starting another shuts down the least recently used first.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "4", property = MAX_DAEMONS_PROPERTY_KEY)
+    private int maxDaemons;
+
+    /**
+     * The most executions running at once. Defaults to the number of available processors.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "0", property = CLOJURE_CONCURRENT_PARALLELISM_PROPERTY_KEY)
+    private int parallelism;
+
+    /**
+     * The executions will be skipped when {@code true}.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "false", property = CLOJURE_CONCURRENT_SKIP_PROPERTY_KEY)
+    private boolean skip;
+
+
+    @Override
+    protected void executeGoal() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info(
+                    i18nContext.getText(
+                            "vivid.clojure-maven-plugin.action.skipping-execution-via-configuration",
+                            CLOJURE_CONCURRENT_SKIP_PROPERTY_KEY
+                    )
+            );
+            return;
+        }
+
+        final Either<Message, Map<String, ClojureMojoState>> selected = MojoFns.myPluginExecutionConfigurations(
+                this,
+                pluginDescriptor.getPluginLookupKey(),
+                AbstractCMPMojo.CLOJURE_MOJO_GOAL_NAME
+        )
+                .flatMap(this::selectExecutions);
+        if (selected.isLeft()) {
+            throw new MojoFailureException(
+                    selected.getLeft().render(this)
+            );
+        }
+        final Map<String, ClojureMojoState> executions = selected.get();
+
+        final int threadCount = Math.max(1, Math.min(
+                executions.size(),
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors()
+        ));
+        getLog().debug(String.format(
+                "Running %d executions on %d threads: %s",
+                executions.size(),
+                threadCount,
+                executions.keySet().mkString(", ")
+        ));
+
+        final List<Tuple2<String, Option<Exception>>> outcomes = runConcurrently(executions, threadCount);
+
+        final List<Tuple2<String, Option<Exception>>> failures = outcomes.filter(outcome -> outcome._2.isDefined());
+        if (!failures.isEmpty()) {
+            throw new MojoExecutionException(
+                    i18nContext.getText(
+                            "vivid.clojure-maven-plugin.action.concurrent-executions-failed",
+                            failures.size(),
+                            outcomes.size(),
+                            failures.map(Tuple2::_1).mkString(", ")
+                    ),
+                    failures.head()._2.get()
+            );
+        }
+    }
+
+    /**
+     * The configurations of the executions named by {@code executionIds} in that order,
+     * otherwise of all executions.
+     */
+    private Either<Message, Map<String, ClojureMojoState>> selectExecutions(
+            final Map<String, ClojureMojoState> configs
+    ) {
+        if (executionIds.isEmpty()) {
+            return Either.right(configs);
+        }
+        return Either.sequenceRight(
+                List.ofAll(executionIds)
+                        .distinct()
+                        .map(id -> configs.get(id)
+                                .map(state -> Tuple.of(id, state))
+                                .toEither(VCMPE3ItemNotFound.message(
+                                        String.format(
+                                                "'%s' goal execution ID '%s'",
+                                                CLOJURE_MOJO_GOAL_NAME,
+                                                id
+                                        )
+                                )))
+        )
+                .map(entries -> LinkedHashMap.ofEntries(entries));
+    }
+
+    /**
+     * Runs the executions, each on a thread of its own as one becomes available, logging
+     * the output of each as a block as it finishes.
+     *
+     * @return the failure of each execution, if any, in the order of the executions
+     */
+    private List<Tuple2<String, Option<Exception>>> runConcurrently(
+            final Map<String, ClojureMojoState> executions,
+            final int threadCount
+    ) throws MojoExecutionException {
+        final ExecutorService pool = Executors.newFixedThreadPool(threadCount);
+        try {
+            final List<Tuple2<String, Future<Option<Exception>>>> futures = executions.toList().map(
+                    execution -> Tuple.of(
+                            execution._1,
+                            pool.submit(() -> runBuffered(execution._1, execution._2))
+                    )
+            );
+            List<Tuple2<String, Option<Exception>>> outcomes = List.empty();
+            for (final Tuple2<String, Future<Option<Exception>>> future : futures) {
+                outcomes = outcomes.append(Tuple.of(future._1, future._2.get()));
+            }
+            return outcomes;
+        } catch (final ExecutionException e) {
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Could not run concurrent executions").render(this),
+                    e.getCause()
+            );
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Interrupted while awaiting concurrent executions").render(this),
+                    e
+            );
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private Option<Exception> runBuffered(
+            final String executionId,
+            final ClojureMojoState state
+    ) {
+        final BufferedLog log = new BufferedLog(
+                getLog(),
+                (state.consoleLineLimit > 0 ? state.consoleLineLimit : DEFAULT_HELD_LINES) + HELD_MESSAGE_LINES
+        );
+        log.info(i18nContext.getText(
+                "vivid.clojure-maven-plugin.action.concurrent-execution",
+                CLOJURE_MOJO_GOAL_NAME,
+                executionId
+        ));
+        final long start = System.nanoTime();
+        Option<Exception> failure;
+        try {
+            ClojureExecutionFns.execute(this, executionId, state, daemonIdleTimeout, maxDaemons, reuseRuntime, Option.of(log));
+            failure = Option.none();
+        } catch (final MojoExecutionException | RuntimeException e) {
+            failure = Option.of(e);
+        }
+        final long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // The outcome follows the held lines regardless of how many were omitted
+        synchronized (getLog()) {
+            log.replay();
+            if (log.omitted() > 0) {
+                getLog().warn(i18nContext.getText(
+                        "vivid.clojure-maven-plugin.action.console-lines-suppressed",
+                        String.valueOf(log.omitted())
+                ));
+            }
+            failure.forEach(e -> getLog().error(e.getMessage()));
+            getLog().info(i18nContext.getText(
+                    failure.isEmpty() ?
+                            "vivid.clojure-maven-plugin.action.concurrent-execution-succeeded" :
+                            "vivid.clojure-maven-plugin.action.concurrent-execution-failed",
+                    executionId,
+                    String.valueOf(millis)
+            ));
+        }
+        return failure;
+    }
+
+}
@@ -19,21 +19,35 @@ import io.vavr.control.Option;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import vivid.cmp.datatypes.ClasspathDelivery;
 import vivid.cmp.datatypes.ClasspathScope;
 import vivid.cmp.datatypes.ClojureMojoState;
-import vivid.cmp.fns.ClassPathology;
-import vivid.cmp.fns.SubProcessFns;
+import vivid.cmp.datatypes.CompilerProfile;
+import vivid.cmp.datatypes.ExecutionMode;
+import vivid.cmp.fns.ClojureExecutionFns;
 import vivid.polypara.annotation.Constant;
 
 import java.util.ArrayList;
 
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_ARGLINE_PARAMETER_KEY;
 import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_ARGS_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_CAPTUREOUTPUT_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_CLASSDATASHARING_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_CLASSPATHDELIVERY_PARAMETER_KEY;
 import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_CLASSPATHSCOPE_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_COMPILERPROFILE_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_CONSOLELINELIMIT_PARAMETER_KEY;
 import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_EXECUTABLE_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_EXECUTIONMODE_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_JAVAEXECUTABLE_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_MAXMEMORY_PARAMETER_KEY;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_RESOURCEUSAGE_PARAMETER_KEY;
 import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_SOURCEPATHS_PARAMETER_KEY;
 import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_SOURCEPATHS_PROPERTY_DEFAULT_VALUE;
 import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_TESTPATHS_PARAMETER_KEY;
 import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_TESTPATHS_PROPERTY_DEFAULT_VALUE;
+import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_TIMEOUT_PARAMETER_KEY;
 
 /**
  * Executes 'clojure' as a sub-process with a variety of options.
@@ -43,7 +57,8 @@ import static vivid.cmp.datatypes.ClojureMojoState.CLOJURE_TESTPATHS_PROPERTY_DE
  * @since 0.2.0
  */
 @Mojo(
-        name = AbstractCMPMojo.CLOJURE_MOJO_GOAL_NAME
+        name = AbstractCMPMojo.CLOJURE_MOJO_GOAL_NAME,
+        requiresDependencyResolution = ResolutionScope.TEST
 )
 public class ClojureMojo extends AbstractCMPMojo {
 
@@ -52,18 +67,58 @@ public class ClojureMojo extends AbstractCMPMojo {
     private static final String CLOJURE_GOAL_PROPERTY_KEY_PREFIX =
             CLOJURE_MAVEN_PLUGIN_ID + "." + CLOJURE_MOJO_GOAL_NAME + ".";
 
+    @Constant
+    private static final String CLOJURE_ARGLINE_PROPERTY_KEY =
+            CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_ARGLINE_PARAMETER_KEY;
+
     @Constant
     private static final String CLOJURE_ARGS_PROPERTY_KEY =
             CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_ARGS_PARAMETER_KEY;
 
+    @Constant
+    private static final String CLOJURE_CAPTUREOUTPUT_PROPERTY_KEY =
+            CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_CAPTUREOUTPUT_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_CLASSDATASHARING_PROPERTY_KEY =
+            CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_CLASSDATASHARING_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_CLASSPATHDELIVERY_PROPERTY_KEY =
+            CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_CLASSPATHDELIVERY_PARAMETER_KEY;
+
     @Constant
     private static final String CLOJURE_CLASSPATHSCOPE_PROPERTY_KEY =
             CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_CLASSPATHSCOPE_PARAMETER_KEY;
 
+    @Constant
+    private static final String CLOJURE_COMPILERPROFILE_PROPERTY_KEY =
+            CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_COMPILERPROFILE_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_CONSOLELINELIMIT_PROPERTY_KEY =
+            CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_CONSOLELINELIMIT_PARAMETER_KEY;
+
     @Constant
     private static final String CLOJURE_EXECUTABLE_PROPERTY_KEY =
             CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_EXECUTABLE_PARAMETER_KEY;
 
+    @Constant
+    private static final String CLOJURE_EXECUTIONMODE_PROPERTY_KEY =
+            CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_EXECUTIONMODE_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_JAVAEXECUTABLE_PROPERTY_KEY =
+            CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_JAVAEXECUTABLE_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_MAXMEMORY_PROPERTY_KEY =
+            CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_MAXMEMORY_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_RESOURCEUSAGE_PROPERTY_KEY =
+            CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_RESOURCEUSAGE_PARAMETER_KEY;
+
     @Constant
     private static final String CLOJURE_SOURCEPATHS_PROPERTY_KEY =
             CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_SOURCEPATHS_PARAMETER_KEY;
@@ -72,17 +127,67 @@ public class ClojureMojo extends AbstractCMPMojo {
     private static final String CLOJURE_TESTPATHS_PROPERTY_KEY =
             CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TESTPATHS_PARAMETER_KEY;
 
+    @Constant
+    private static final String CLOJURE_TIMEOUT_PROPERTY_KEY =
+            CLOJURE_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TIMEOUT_PARAMETER_KEY;
+
 
     //
     // User-provided configuration
     //
 
+    /**
+     * JVM options of the 'java' executable when launched directly, with 'executionMode' 'JAVA'
+     * or 'classpathDelivery' 'ARGFILE', as typed on a command line.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_ARGLINE_PROPERTY_KEY)
+    private String argLine = ClojureMojoState.DEFAULT_STATE.argLine.getOrElse((String) null);
+
     /**
      * Arguments to 'clojure'. These are added to the arguments provided by this Maven plugin.
      */
     @Parameter(property = CLOJURE_ARGS_PROPERTY_KEY)
     private String args = ClojureMojoState.DEFAULT_STATE.args.getOrElse((String) null);
 
+    /**
+     * When {@code true}, the output of the 'clojure' sub-process is also written in full to
+     * 'target/clojure-maven-plugin/output/&lt;execution ID&gt;.log.gz', compressed with gzip,
+     * whatever the 'consoleLineLimit'.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_CAPTUREOUTPUT_PROPERTY_KEY)
+    private boolean captureOutput = ClojureMojoState.DEFAULT_STATE.captureOutput;
+
+    /**
+     * When {@code true}, the 'java' executable launched directly, with 'executionMode' 'JAVA'
+     * or 'classpathDelivery' 'ARGFILE', shares the class data of the classpath from an AppCDS
+     * archive, created by the first such run and kept in 'target/clojure-maven-plugin/cpcache/',
+     * sparing later runs much of the loading and verifying of classes. Requires the 'java'
+     * executable to be that of the JVM running Maven, and Java 13 or later.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_CLASSDATASHARING_PROPERTY_KEY)
+    private boolean classDataSharing = ClojureMojoState.DEFAULT_STATE.classDataSharing;
+
+    /**
+     * How the classpath is handed to the sub-process.
+     * 'ARGUMENT' passes it on the command line to 'clojure' with '-Scp', or to 'java' with '-cp'.
+     * 'PATHING_JAR' passes a jar whose manifest lists the classpath, keeping the command line
+     * short however many entries the classpath has.
+     * 'ARGFILE' writes the classpath to a Java argfile, and runs 'clojure.main' with the
+     * 'javaExecutable' rather than 'clojure', which can't pass argfiles on to 'java'.
+     * Pathing jars and argfiles are kept in 'target/clojure-maven-plugin/cpcache/' and
+     * reused for as long as the classpath doesn't change.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_CLASSPATHDELIVERY_PROPERTY_KEY)
+    private ClasspathDelivery classpathDelivery = ClojureMojoState.DEFAULT_STATE.classpathDelivery;
+
     /**
      * Specifies how to configure the run-time classpath in the 'clojure' sub-process,
      * according to Maven's notion of the current project's scoped elements.
@@ -94,6 +199,37 @@ public class ClojureMojo extends AbstractCMPMojo {
     @Parameter(property = CLOJURE_CLASSPATHSCOPE_PROPERTY_KEY)
     private ClasspathScope classpathScope = ClojureMojoState.DEFAULT_STATE.classpathScope;
 
+    /**
+     * The options of the Clojure compiler, for code compiled by 'clojure' as well as by the
+     * 'compile' goal when it uses this execution's configuration.
+     * 'DEFAULT' leaves Clojure's defaults.
+     * 'PRODUCTION' enables direct linking and elides the documentation and source location
+     * metadata of vars, for faster loading and running.
+     * 'DEBUG' disables locals clearing, for the benefit of debuggers.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_COMPILERPROFILE_PROPERTY_KEY)
+    private CompilerProfile compilerProfile = ClojureMojoState.DEFAULT_STATE.compilerProfile;
+
+    /**
+     * The most lines of the 'clojure' sub-process' output logged, each prefixed by the
+     * execution ID. Further lines are counted but not logged. 0, the default, logs all lines.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_CONSOLELINELIMIT_PROPERTY_KEY)
+    private int consoleLineLimit = ClojureMojoState.DEFAULT_STATE.consoleLineLimit;
+
+    /**
+     * The number of minutes after which a daemon started by the {@code DAEMON} execution mode
+     * exits unless it runs anything meanwhile.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "30", property = DAEMON_IDLE_TIMEOUT_PROPERTY_KEY)
+    private int daemonIdleTimeout;
+
     /**
      * The path to the 'clojure' executable. Without explicitly setting this parameter,
      * the plugin expects 'clojure' to be available on the path. A specific path to anything
@@ -102,6 +238,74 @@ public class ClojureMojo extends AbstractCMPMojo {
     @Parameter(property = CLOJURE_EXECUTABLE_PROPERTY_KEY)
     private String executable = ClojureMojoState.DEFAULT_STATE.executable;
 
+    /**
+     * Where Clojure runs.
+     * 'SUB_PROCESS' runs 'clojure' in a sub-process.
+     * 'JAVA' runs 'clojure.main' with the args in a sub-process launched by 'javaExecutable'
+     * directly, with the 'argLine' JVM options and the classpath resolved by Maven, needing
+     * neither 'clojure' nor a network connection. 'executable' doesn't apply.
+     * 'IN_PROCESS' runs 'clojure.main' with the args within Maven's JVM, sparing the start-up
+     * of a JVM and of Clojure, in a Clojure runtime isolated from those of other executions
+     * and reused per 'reuseRuntime'. Clojure's output is relayed to Maven's log, and
+     * 'System/exit' ends the run rather than Maven. The JVM options, 'executable', and
+     * 'classpathDelivery' don't apply, and relative paths are resolved against Maven's
+     * working directory rather than the project's. 'System/exit' is intercepted by way of a
+     * security manager, which Java 18 to 23 allow only when Maven is launched with
+     * '-Djava.security.manager=allow', such as in MAVEN_OPTS or '.mvn/jvm.config', and which
+     * Java 24 and later disallow entirely. On JVMs disallowing it, the execution runs in a
+     * sub-process instead.
+     * 'DAEMON' runs 'clojure.main' with the args in a warm JVM started by the 'java' executable
+     * of the JVM running Maven, which outlives Maven to serve later executions, of this and of
+     * later builds, having the same jars on their classpath. The namespaces of the classpath's
+     * jars stay loaded between runs, while those of its directories, such as the source paths,
+     * are loaded afresh each run. Clojure's output is relayed to Maven's log, and
+     * 'System/exit' ends the run rather than the daemon. The JVM options, 'executable', and
+     * 'classpathDelivery' don't apply. Should no daemon be reached or started, such as when
+     * the project's Clojure predates 1.10, the execution runs in a sub-process instead.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_EXECUTIONMODE_PROPERTY_KEY)
+    private ExecutionMode executionMode = ClojureMojoState.DEFAULT_STATE.executionMode;
+
+    /**
+     * The path to the 'java' executable launched directly, with 'executionMode' 'JAVA' or
+     * 'classpathDelivery' 'ARGFILE'. Defaults to that of the JVM running Maven.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_JAVAEXECUTABLE_PROPERTY_KEY)
+    private String javaExecutable = ClojureMojoState.DEFAULT_STATE.javaExecutable.getOrElse((String) null);
+
+    /**
+     * The most daemons of the {@code DAEMON} execution mode kept running for the user at once.
+     * Starting another shuts down the least recently used first.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "4", property = MAX_DAEMONS_PROPERTY_KEY)
+    private int maxDaemons;
+
+    /**
+     * The most memory, in MiB, the resident set of the sub-process may grow to before it is
+     * stopped, failing the execution. Measured on Linux only. 0, the default, imposes no limit.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_MAXMEMORY_PROPERTY_KEY)
+    private int maxMemory = ClojureMojoState.DEFAULT_STATE.maxMemory;
+
+    /**
+     * When {@code true}, the wall time, CPU time, peak resident set size, and garbage collection
+     * time of the sub-process are logged, and written to
+     * 'target/clojure-maven-plugin/resource-usage/&lt;execution ID&gt;.json'. The resident set
+     * size is measured on Linux only.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_RESOURCEUSAGE_PROPERTY_KEY)
+    private boolean resourceUsage = ClojureMojoState.DEFAULT_STATE.resourceUsage;
+
     /**
      * Specifies paths containing Clojure source code to be added to the
      * classpath for 'clojure'.
@@ -116,43 +320,47 @@ public class ClojureMojo extends AbstractCMPMojo {
     @Parameter(property = CLOJURE_TESTPATHS_PROPERTY_KEY, defaultValue = CLOJURE_TESTPATHS_PROPERTY_DEFAULT_VALUE)
     private java.util.List<String> testPaths = new ArrayList<>();
 
+    /**
+     * The most seconds the sub-process may run before it is stopped, failing the execution.
+     * 0, the default, imposes no limit.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_TIMEOUT_PROPERTY_KEY)
+    private int timeout = ClojureMojoState.DEFAULT_STATE.timeout;
+
 
     @SuppressWarnings("java:S5304")
     @Override
-    public void execute()
+    protected void executeGoal()
             throws MojoExecutionException {
-        super.initialize();
-
         final ClojureMojoState state = new ClojureMojoState(
                 Option.of(args),
                 executable,
+                executionMode,
+                Option.of(javaExecutable),
+                Option.of(argLine),
+                classpathDelivery,
                 classpathScope,
+                compilerProfile,
+                captureOutput,
+                consoleLineLimit,
+                classDataSharing,
+                resourceUsage,
+                timeout,
+                maxMemory,
                 List.ofAll(sourcePaths),
                 List.ofAll(testPaths)
         );
 
-        // Execute 'clojure'
-        SubProcessFns.executeSubProcess(
+        ClojureExecutionFns.execute(
                 this,
-
-                // User-overridable path to the `clojure' CLI executable
-                executable,
-
-                // User-provided arguments, if any
-                args,
-
-                // Calculated depending on the user-selectable Maven scope,
-                // 'compile' or 'test' for example
-                ClassPathology.getClassPathForScope(
-                        this,
-                        state,
-                        true,
-                        ClassPathology.PathStyle.RELATIVE
-                ),
-
-                // The sub-process inherits the same environment variables
-                // as the executing Maven process
-                System.getenv()
+                mojoExecution.getExecutionId(),
+                state,
+                daemonIdleTimeout,
+                maxDaemons,
+                reuseRuntime,
+                Option.none()
         );
     }
 
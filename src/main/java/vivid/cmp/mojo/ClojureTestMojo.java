@@ -14,33 +14,38 @@
 
 package vivid.cmp.mojo;
 
-import clojure.java.api.Clojure;
-import clojure.lang.RT;
-import clojure.lang.Symbol;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
 import io.vavr.collection.HashMap;
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
 import io.vavr.control.Either;
-import io.vavr.control.Option;
+import org.apache.commons.exec.CommandLine;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
 import vivid.cmp.datatypes.ClasspathScope;
 import vivid.cmp.datatypes.ClojureMojoState;
+import vivid.cmp.datatypes.ClojureRuntime;
+import vivid.cmp.datatypes.TestParallelism;
+import vivid.cmp.datatypes.TestRunOrder;
+import vivid.cmp.datatypes.Timeline;
 import vivid.cmp.fns.ClassPathology;
+import vivid.cmp.fns.FileFns;
 import vivid.cmp.fns.MavenDependencyFns;
 import vivid.cmp.fns.MojoFns;
+import vivid.cmp.fns.SubProcessFns;
 import vivid.cmp.messages.Message;
 import vivid.cmp.messages.VCMPE1InternalError;
-import vivid.cmp.messages.VCMPE3ItemNotFound;
-import vivid.cmp.messages.VCMPE4IndeterminateExecutionId;
 import vivid.polypara.annotation.Constant;
 
 import java.io.File;
-import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
 
 /**
  * Runs clojure.test tests and reports results with JUnit-compatible output,
@@ -50,7 +55,8 @@ import java.io.IOException;
  */
 @Mojo(
         name = AbstractCMPMojo.CLOJURE_TEST_MOJO_GOAL_NAME,
-        defaultPhase = LifecyclePhase.TEST
+        defaultPhase = LifecyclePhase.TEST,
+        requiresDependencyResolution = ResolutionScope.TEST
 )
 public class ClojureTestMojo extends AbstractCMPMojo {
 
@@ -65,18 +71,90 @@ public class ClojureTestMojo extends AbstractCMPMojo {
     private static final String CLOJURE_TEST_CLOJUREGOALEXECUTIONID_PROPERTY_KEY =
             CLOJURE_TEST_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TEST_CLOJUREGOALEXECUTIONID_PARAMETER_KEY;
 
+    @Constant
+    private static final String CLOJURE_TEST_ARGLINE_PARAMETER_KEY = "argLine";
+    @Constant
+    private static final String CLOJURE_TEST_ARGLINE_PROPERTY_KEY =
+            CLOJURE_TEST_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TEST_ARGLINE_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_TEST_EXCLUDEDGROUPS_PARAMETER_KEY = "excludedGroups";
+    @Constant
+    private static final String CLOJURE_TEST_EXCLUDEDGROUPS_PROPERTY_KEY =
+            CLOJURE_TEST_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TEST_EXCLUDEDGROUPS_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_TEST_FORKCOUNT_PARAMETER_KEY = "forkCount";
+    @Constant
+    private static final String CLOJURE_TEST_FORKCOUNT_PROPERTY_KEY =
+            CLOJURE_TEST_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TEST_FORKCOUNT_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_TEST_FULLRUN_PARAMETER_KEY = "fullRun";
+    @Constant
+    private static final String CLOJURE_TEST_FULLRUN_PROPERTY_KEY =
+            CLOJURE_TEST_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TEST_FULLRUN_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_TEST_GROUPS_PARAMETER_KEY = "groups";
+    @Constant
+    private static final String CLOJURE_TEST_GROUPS_PROPERTY_KEY =
+            CLOJURE_TEST_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TEST_GROUPS_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_TEST_INCREMENTAL_PARAMETER_KEY = "incremental";
+    @Constant
+    private static final String CLOJURE_TEST_INCREMENTAL_PROPERTY_KEY =
+            CLOJURE_TEST_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TEST_INCREMENTAL_PARAMETER_KEY;
+
     @Constant
     private static final String CLOJURE_TEST_MULTITHREAD_PARAMETER_KEY = "multithread";
     @Constant
     private static final String CLOJURE_TEST_MULTITHREAD_PROPERTY_KEY =
             CLOJURE_TEST_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TEST_MULTITHREAD_PARAMETER_KEY;
 
+    @Constant
+    private static final String CLOJURE_TEST_PARALLEL_PARAMETER_KEY = "parallel";
+    @Constant
+    private static final String CLOJURE_TEST_PARALLEL_PROPERTY_KEY =
+            CLOJURE_TEST_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TEST_PARALLEL_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_TEST_REPORTSDIRECTORY_PARAMETER_KEY = "reportsDirectory";
+    @Constant
+    private static final String CLOJURE_TEST_REPORTSDIRECTORY_PROPERTY_KEY =
+            CLOJURE_TEST_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TEST_REPORTSDIRECTORY_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_TEST_RUNORDER_PARAMETER_KEY = "runOrder";
+    @Constant
+    private static final String CLOJURE_TEST_RUNORDER_PROPERTY_KEY =
+            CLOJURE_TEST_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TEST_RUNORDER_PARAMETER_KEY;
+
     @Constant
     private static final String CLOJURE_TEST_SKIP_PARAMETER_KEY = "skip";
     @Constant
     private static final String CLOJURE_TEST_SKIP_PROPERTY_KEY =
             CLOJURE_TEST_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TEST_SKIP_PARAMETER_KEY;
 
+    @Constant
+    private static final String CLOJURE_TEST_THREADCOUNT_PARAMETER_KEY = "threadCount";
+    @Constant
+    private static final String CLOJURE_TEST_THREADCOUNT_PROPERTY_KEY =
+            CLOJURE_TEST_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TEST_THREADCOUNT_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_TEST_USEVIRTUALTHREADS_PARAMETER_KEY = "useVirtualThreads";
+    @Constant
+    private static final String CLOJURE_TEST_USEVIRTUALTHREADS_PROPERTY_KEY =
+            CLOJURE_TEST_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TEST_USEVIRTUALTHREADS_PARAMETER_KEY;
+
+    @Constant
+    private static final String CLOJURE_TEST_TEST_PARAMETER_KEY = "test";
+    @Constant
+    private static final String CLOJURE_TEST_TEST_PROPERTY_KEY =
+            CLOJURE_TEST_GOAL_PROPERTY_KEY_PREFIX + CLOJURE_TEST_TEST_PARAMETER_KEY;
+
     @Constant
     private static final String CLOJURE_TEST_TESTFAILUREIGNORE_PARAMETER_KEY = "testFailureIgnore";
     @Constant
@@ -98,15 +176,111 @@ public class ClojureTestMojo extends AbstractCMPMojo {
     private String clojureGoalExecutionId;
 
     /**
-     * Controls eftest's multithread setting. eftest by default runs tests in parallel,
-     * but this goal mimics maven-surefire-plugin's default setting of serial execution.
-     * Set to {@code true} to run your tests in parallel.
+     * JVM options given to each forked JVM, such as heap and garbage collector settings.
+     * Only takes effect when {@code forkCount} is greater than zero.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_TEST_ARGLINE_PROPERTY_KEY)
+    private String argLine;
+
+    /**
+     * Comma-separated metadata keys, such as {@code integration,slow}. Tests whose var or
+     * namespace has a truthy value for any of these are not run. Namespaces excluded by their
+     * {@code ns} form metadata are never loaded.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_TEST_EXCLUDEDGROUPS_PROPERTY_KEY)
+    private String excludedGroups;
+
+    /**
+     * The maximum number of JVMs to fork, each running a shard of the test namespaces
+     * concurrently with the others. Their JUnit reports and results are merged into
+     * one test result. The default of {@code 0} runs all tests within Maven's own JVM.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "0", property = CLOJURE_TEST_FORKCOUNT_PROPERTY_KEY)
+    private int forkCount;
+
+    /**
+     * When {@code true}, runs all test namespaces even when {@code incremental} is enabled,
+     * recording the outcome as the basis of subsequent incremental runs.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "false", property = CLOJURE_TEST_FULLRUN_PROPERTY_KEY)
+    private boolean fullRun;
+
+    /**
+     * Comma-separated metadata keys, such as {@code integration}. When set, only those tests
+     * whose var or namespace has a truthy value for any of these are run. Namespaces whose
+     * source doesn't mention any of these keys are never loaded.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_TEST_GROUPS_PROPERTY_KEY)
+    private String groups;
+
+    /**
+     * When {@code true}, runs only those test namespaces that depend, directly or transitively,
+     * on a source or test file that has changed since the last run, plus those test namespaces
+     * that failed in the last run. Dependencies are learned from {@code ns} forms without
+     * loading any code. A change to the classpath or to the test selection causes all tests to run.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "false", property = CLOJURE_TEST_INCREMENTAL_PROPERTY_KEY)
+    private boolean incremental;
+
+    /**
+     * Shorthand for a {@code parallel} setting of {@code ALL} when {@code true}. Like
+     * maven-surefire-plugin, this goal runs tests serially by default. Ignored when
+     * {@code parallel} is set.
      *
      * @since 0.3.0
      */
     @Parameter(defaultValue = "false", property = CLOJURE_TEST_MULTITHREAD_PROPERTY_KEY)
     private boolean multithread;
 
+    /**
+     * The granularity at which tests run in parallel: {@code NONE}, {@code NAMESPACES} to run
+     * test namespaces concurrently, {@code VARS} to run the test vars within each namespace
+     * concurrently, or {@code ALL} for both. Namespaces and vars having {@code :serial} or
+     * {@code :eftest/synchronized} metadata always run alone, with no other test var running
+     * meanwhile: such namespaces one at a time after all others have finished, such vars after
+     * the other vars of their namespace.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_TEST_PARALLEL_PROPERTY_KEY)
+    private TestParallelism parallel;
+
+    /**
+     * Directory into which a JUnit XML report named {@code TEST-<namespace>.xml} is written
+     * for each test namespace as soon as it finishes.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(
+            defaultValue = "${project.build.directory}/clojure-test-reports",
+            property = CLOJURE_TEST_REPORTSDIRECTORY_PROPERTY_KEY
+    )
+    private File reportsDirectory;
+
+    /**
+     * The order in which test namespaces and their test vars run: {@code FILESYSTEM} in the order
+     * they are found, {@code BALANCED} starting with those that took longest in prior runs, or
+     * {@code FAILEDFIRST} starting with those that failed in the prior run, then the longest.
+     * Durations and failures are kept in {@code target/clojure-maven-plugin/test-history.edn},
+     * which also serves to balance test namespaces across forked JVMs.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "BALANCED", property = CLOJURE_TEST_RUNORDER_PROPERTY_KEY)
+    private TestRunOrder runOrder;
+
     /**
      * The test run will be skipped when {@code true}.
      *
@@ -115,6 +289,38 @@ public class ClojureTestMojo extends AbstractCMPMojo {
     @Parameter(defaultValue = "${maven.test.skip}", property = CLOJURE_TEST_SKIP_PROPERTY_KEY)
     private boolean skip;
 
+    /**
+     * The number of threads running test namespaces, and separately the number running
+     * test vars, when tests run in parallel. The default of {@code 0} uses as many threads
+     * as there are available processors.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "0", property = CLOJURE_TEST_THREADCOUNT_PROPERTY_KEY)
+    private int threadCount;
+
+    /**
+     * When {@code true} and test vars run in parallel, runs each test var on its own virtual
+     * thread rather than on a pool of {@code threadCount} platform threads, which suits I/O-bound
+     * tests. Requires a JVM supporting virtual threads, otherwise platform threads are used.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "false", property = CLOJURE_TEST_USEVIRTUALTHREADS_PROPERTY_KEY)
+    private boolean useVirtualThreads;
+
+    /**
+     * Comma-separated patterns selecting the tests to run, such as {@code my.app.*-test} or
+     * {@code my.app.core-test/parse*}. Each is a glob of namespace names where {@code *} matches
+     * any run of characters and {@code ?} any one character, optionally followed by {@code /}
+     * and a glob of test var names. Patterns prefixed by {@code !} exclude the tests they match.
+     * Namespaces not matched are never loaded. All tests are run by default.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = CLOJURE_TEST_TEST_PROPERTY_KEY)
+    private String test;
+
     /**
      * When {@code true}, doesn't report failure back to Maven when not all tests pass.
      *
@@ -127,6 +333,8 @@ public class ClojureTestMojo extends AbstractCMPMojo {
     private boolean testFailureIgnore;
 
 
+    private static final String CLOJURE_DOT_TEST_RUNNER_NS = "vivid.cmp.clojure-dot-test-runner";
+
     private static final Dependency eftestDependency = MavenDependencyFns.newDependency(
             "eftest",
             "eftest",
@@ -134,43 +342,14 @@ public class ClojureTestMojo extends AbstractCMPMojo {
     );
 
 
-    /**
-     * Uses a 'clojure' goal execution ID if specified, uses the default if none are defined,
-     * use the singular configuration if defined, otherwise gives up.
-     */
-    private static Either<Message, ClojureMojoState> selectClojureMojoConfig(
-            final Map<String, ClojureMojoState> configs,
-            final String executionId
-    ) {
-        if (executionId != null) {
-            final Option<ClojureMojoState> a = configs.get(executionId);
-            return a.toEither(VCMPE3ItemNotFound.message(
-                    String.format(
-                            "'%s' goal execution ID '%s'",
-                            AbstractCMPMojo.CLOJURE_MOJO_GOAL_NAME,
-                            executionId
-                    )
-            ));
-        }
-        if (configs.isEmpty()) {
-            return Either.right(ClojureMojoState.DEFAULT_STATE);
-        }
-        if (configs.size() == 1) {
-            return Either.right(configs.get()._2);
-        }
-        // At this point, configs.size() >= 2
-        return Either.left(VCMPE4IndeterminateExecutionId.message(
-                CLOJURE_TEST_CLOJUREGOALEXECUTIONID_PARAMETER_KEY,
-                AbstractCMPMojo.CLOJURE_TEST_MOJO_GOAL_NAME,
-                AbstractCMPMojo.CLOJURE_MOJO_GOAL_NAME,
-                configs.keySet()
-        ));
+    @Override
+    protected Iterable<Dependency> toolDependencies() {
+        return skip ? List.empty() : List.of(eftestDependency);
     }
 
     @Override
-    public void execute() throws MojoExecutionException, MojoFailureException {
-        super.initialize();
-
+    @SuppressWarnings("try")
+    protected void executeGoal() throws MojoExecutionException, MojoFailureException {
         if (skip) {
             getLog().info(
                     i18nContext.getText(
@@ -186,7 +365,12 @@ public class ClojureTestMojo extends AbstractCMPMojo {
                 pluginDescriptor.getPluginLookupKey(),
                 AbstractCMPMojo.CLOJURE_MOJO_GOAL_NAME
         )
-                .flatMap(configs -> selectClojureMojoConfig(configs, clojureGoalExecutionId));
+                .flatMap(configs -> selectClojureMojoConfig(
+                        configs,
+                        clojureGoalExecutionId,
+                        CLOJURE_TEST_CLOJUREGOALEXECUTIONID_PARAMETER_KEY,
+                        AbstractCMPMojo.CLOJURE_TEST_MOJO_GOAL_NAME
+                ));
         if (selectedConfig.isLeft()) {
             throw new MojoFailureException(
                     selectedConfig.getLeft().render(this)
@@ -195,23 +379,67 @@ public class ClojureTestMojo extends AbstractCMPMojo {
         final ClojureMojoState clojureMojoState = selectedConfig.get()
                 .setClasspathScope(ClasspathScope.TEST);
 
-        final Map<String, Object> testRunnerOptions = HashMap.of(
-                "junit-report-filename", mavenSession.getCurrentProject().getBuild().getDirectory() + "/clojure-test-reports/all-tests.xml",
-                CLOJURE_TEST_MULTITHREAD_PARAMETER_KEY, multithread
-        );
+        final List<File> projectClassPath;
+        try {
+            projectClassPath = List
+                    .ofAll(ClassPathology.getClassPathForScope(
+                            this,
+                            clojureMojoState,
+                            true,
+                            ClassPathology.PathStyle.ABSOLUTE
+                    ))
+                    .map(File::new);
+        } catch (final Exception e) {
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Unexpected exception while adding to classloader path").render(this),
+                    e
+            );
+        }
 
+        final Either<Message, List<File>> resolvedToolFiles = ClassPathology.resolveToolFiles(this, eftestDependency);
+        if (resolvedToolFiles.isLeft()) {
+            throw new MojoFailureException(
+                    resolvedToolFiles.getLeft().render(this),
+                    resolvedToolFiles.getLeft().getCause().getOrNull()
+            );
+        }
+        final List<File> toolFiles = resolvedToolFiles.get();
+
+        final List<File> classPath = projectClassPath.appendAll(toolFiles);
+
+        final Path basedir = mavenSession.getCurrentProject().getBasedir().toPath();
+        final TestParallelism parallelism = parallel != null ?
+                parallel :
+                multithread ? TestParallelism.ALL : TestParallelism.NONE;
+        final Map<String, Object> testRunnerOptions = HashMap.<String, Object>empty()
+                .put("classpath", classPath.map(File::getPath).toJavaList())
+                .put("excluded-groups", excludedGroups)
+                .put("full-run", fullRun)
+                .put(CLOJURE_TEST_GROUPS_PARAMETER_KEY, groups)
+                .put(CLOJURE_TEST_INCREMENTAL_PARAMETER_KEY, incremental)
+                .put("parallel-namespaces", parallelism.namespaces)
+                .put("parallel-vars", parallelism.vars)
+                .put("reports-directory", reportsDirectory.getAbsolutePath())
+                .put("run-order", runOrder.name().toLowerCase(Locale.ROOT))
+                .put("source-paths", clojureMojoState.sourcePaths
+                        .map(p -> basedir.resolve(p).toString())
+                        .toJavaList())
+                .put("test-paths", clojureMojoState.testPaths
+                        .map(p -> basedir.resolve(p).toString())
+                        .toJavaList())
+                .put(CLOJURE_TEST_TEST_PARAMETER_KEY, test)
+                .put("thread-count", threadCount)
+                .put("virtual-threads", useVirtualThreads)
+                .put("work-directory", FileFns.pluginWorkDirectory(this).toString());
+
+        final ClojureRuntime clojureRuntime;
         try {
-            ClassPathology.addToClassLoader(
+            clojureRuntime = ClassPathology.clojureRuntime(
                     this,
-                    List
-                            .ofAll(ClassPathology.getClassPathForScope(
-                                    this,
-                                    clojureMojoState,
-                                    true,
-                                    ClassPathology.PathStyle.ABSOLUTE
-                            ))
-                            .map(File::new)
-                            .appendAll(MavenDependencyFns.resolveToFiles(this, eftestDependency))
+                    projectClassPath,
+                    toolFiles,
+                    CLOJURE_DOT_TEST_RUNNER_NS,
+                    reuseRuntime
             );
         } catch (final Exception e) {
             throw new MojoExecutionException(
@@ -220,34 +448,39 @@ public class ClojureTestMojo extends AbstractCMPMojo {
             );
         }
 
-        final Either<Message, Object> res = clojureDotTestRunner(this, testRunnerOptions);
+        final Either<Message, Object> res;
+        try (ClojureRuntime runtime = clojureRuntime;
+             Timeline.Span ignored = timeline().span("test-run", forkCount > 0 ? forkCount + " forks" : "in-process")) {
+            res = forkCount > 0 ?
+                    forkedClojureDotTestRunner(this, runtime, testRunnerOptions, forkCount, argLine, classPath) :
+                    clojureDotTestRunner(this, runtime, "run-tests", this, testRunnerOptions.toJavaMap());
+        } catch (final RuntimeException e) {
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Could not run the tests").render(this),
+                    e
+            );
+        }
         translateTestResultToMaven(this, res, testFailureIgnore, testRunnerOptions);
     }
 
     private static Either<Message, Object> clojureDotTestRunner(
             final AbstractCMPMojo mojo,
-            final Map<String, Object> eftestOptions
+            final ClojureRuntime runtime,
+            final String fnName,
+            final Object... args
     ) {
         mojo.getLog().debug(
                 String.format(
-                        "Running Clojure tests with eftest options: %s",
-                        eftestOptions
+                        "Invoking vivid.cmp.clojure-dot-test-runner/%s with: %s",
+                        fnName,
+                        List.of(args).drop(1)
                 )
         );
         try {
-            RT.loadResourceScript("vivid/cmp/clojure_dot_test_runner.clj");
-
-            Clojure.var("clojure.core", "require")
-                    .invoke(Symbol.intern("vivid.cmp.clojure-dot-test-runner"));
-            final Object response =
-                    Clojure.var("vivid.cmp.clojure-dot-test-runner", "run-tests")
-                            .invoke(
-                                    mojo,
-                                    eftestOptions.toJavaMap()
-                            );
-
-            return Either.right(response);
-        } catch (final IOException e) {
+            return Either.right(
+                    runtime.invoke(CLOJURE_DOT_TEST_RUNNER_NS, fnName, args)
+            );
+        } catch (final Exception e) {
             return Either.left(VCMPE1InternalError.message(
                     "Could not run test runner",
                     e
@@ -255,6 +488,74 @@ public class ClojureTestMojo extends AbstractCMPMojo {
         }
     }
 
+    /**
+     * Shards the test namespaces across forked JVMs that run concurrently,
+     * then merges their results.
+     */
+    @SuppressWarnings("try")
+    private static Either<Message, Object> forkedClojureDotTestRunner(
+            final ClojureTestMojo mojo,
+            final ClojureRuntime runtime,
+            final Map<String, Object> testRunnerOptions,
+            final int forkCount,
+            final String argLine,
+            final List<File> classPath
+    ) throws MojoExecutionException {
+        final Map<String, Object> options = testRunnerOptions
+                .put("fork-count", forkCount);
+        final Either<Message, Object> forks = clojureDotTestRunner(mojo, runtime, "prepare-forks", mojo, options.toJavaMap());
+        if (forks.isLeft()) {
+            return forks;
+        }
+        final List<String> optionsPathnames = List.ofAll((Iterable<?>) forks.get()).map(Object::toString);
+        if (optionsPathnames.isEmpty()) {
+            return Either.right(Boolean.TRUE);
+        }
+
+        // Forks run with the test classpath, plus this plugin's own artifact that carries the
+        // test runner, falling back to this plugin's Clojure when the project provides none.
+        final String forkClassPath = classPath
+                .appendAll(ClassPathology.pluginRuntimeFiles(mojo))
+                .map(File::getAbsolutePath)
+                .mkString(File.pathSeparator);
+
+        final List<Tuple2<String, CommandLine>> commandLines = optionsPathnames
+                .zipWithIndex()
+                .map(t -> {
+                    final CommandLine commandLine = new CommandLine(SubProcessFns.javaExecutable());
+                    if (argLine != null) {
+                        commandLine.addArguments(argLine);
+                    }
+                    commandLine.addArgument("-cp");
+                    commandLine.addArgument(forkClassPath, false);
+                    commandLine.addArgument("clojure.main");
+                    commandLine.addArgument("-m");
+                    commandLine.addArgument("vivid.cmp.clojure-dot-test-worker");
+                    commandLine.addArgument(t._1, false);
+                    return Tuple.of("fork-" + t._2, commandLine);
+                });
+
+        final long start = System.currentTimeMillis();
+        final List<Integer> exitValues = SubProcessFns.executeConcurrently(
+                mojo,
+                commandLines,
+                forkCount,
+                System.getenv()
+        );
+        final long duration = System.currentTimeMillis() - start;
+
+        try (Timeline.Span ignored = mojo.timeline().span("report", "merge-fork-results")) {
+            return clojureDotTestRunner(
+                    mojo,
+                    runtime,
+                    "merge-fork-results",
+                    mojo,
+                    options.put("duration", duration).toJavaMap(),
+                    exitValues.toJavaList()
+            );
+        }
+    }
+
     private static void translateTestResultToMaven(
             final ClojureTestMojo mojo,
             final Either<Message, Object> testResult,
@@ -284,7 +585,7 @@ public class ClojureTestMojo extends AbstractCMPMojo {
                 throw new MojoFailureException(
                         mojo.i18nContext.getText(
                                 "vivid.clojure-maven-plugin.action.test-failures",
-                                testRunnerOptions.getOrElse("junit-report-filename", "the build output directory")
+                                testRunnerOptions.getOrElse("reports-directory", "the build output directory")
                         )
                 );
             }
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.mojo;
+
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Either;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import vivid.cmp.datatypes.ClasspathScope;
+import vivid.cmp.datatypes.ClojureMojoState;
+import vivid.cmp.datatypes.ClojureRuntime;
+import vivid.cmp.fns.ClassPathology;
+import vivid.cmp.fns.FileFns;
+import vivid.cmp.fns.MojoFns;
+import vivid.cmp.messages.Message;
+import vivid.cmp.messages.VCMPE1InternalError;
+import vivid.polypara.annotation.Constant;
+
+import java.io.File;
+import java.nio.file.Path;
+
+/**
+ * Compiles Clojure namespaces ahead of time into the project's output directory.
+ *
+ * Namespaces are found in the source paths of a {@code clojure} goal execution. Those
+ * not depending on one another compile in parallel, each namespace compiling once the
+ * namespaces it depends on have compiled, as learned from their {@code ns} forms.
+ * Incrementally by default, only the namespaces whose sources changed since the last
+ * compilation, whose classes are missing, or that depend on such namespaces are compiled.
+ * The {@code compilerProfile} of the {@code clojure} goal execution selects the compiler options.
+ *
+ * @since 0.4.0
+ */
+@Mojo(
+        name = AbstractCMPMojo.COMPILE_MOJO_GOAL_NAME,
+        defaultPhase = LifecyclePhase.COMPILE,
+        requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME
+)
+public class CompileMojo extends AbstractCMPMojo {
+
+    static final String CLOJURE_COMPILER_NS = "vivid.cmp.clojure-compiler";
+
+
+    @Constant
+    private static final String COMPILE_GOAL_PROPERTY_KEY_PREFIX =
+            CLOJURE_MAVEN_PLUGIN_ID + "." + COMPILE_MOJO_GOAL_NAME + ".";
+
+    @Constant
+    private static final String COMPILE_CLOJUREGOALEXECUTIONID_PARAMETER_KEY = "clojureGoalExecutionId";
+    @Constant
+    private static final String COMPILE_CLOJUREGOALEXECUTIONID_PROPERTY_KEY =
+            COMPILE_GOAL_PROPERTY_KEY_PREFIX + COMPILE_CLOJUREGOALEXECUTIONID_PARAMETER_KEY;
+
+    @Constant
+    private static final String COMPILE_EXCLUDEDNAMESPACES_PARAMETER_KEY = "excludedNamespaces";
+    @Constant
+    private static final String COMPILE_EXCLUDEDNAMESPACES_PROPERTY_KEY =
+            COMPILE_GOAL_PROPERTY_KEY_PREFIX + COMPILE_EXCLUDEDNAMESPACES_PARAMETER_KEY;
+
+    @Constant
+    private static final String COMPILE_INCREMENTAL_PARAMETER_KEY = "incremental";
+    @Constant
+    private static final String COMPILE_INCREMENTAL_PROPERTY_KEY =
+            COMPILE_GOAL_PROPERTY_KEY_PREFIX + COMPILE_INCREMENTAL_PARAMETER_KEY;
+
+    @Constant
+    private static final String COMPILE_NAMESPACES_PARAMETER_KEY = "namespaces";
+    @Constant
+    private static final String COMPILE_NAMESPACES_PROPERTY_KEY =
+            COMPILE_GOAL_PROPERTY_KEY_PREFIX + COMPILE_NAMESPACES_PARAMETER_KEY;
+
+    @Constant
+    private static final String COMPILE_OUTPUTDIRECTORY_PARAMETER_KEY = "outputDirectory";
+    @Constant
+    private static final String COMPILE_OUTPUTDIRECTORY_PROPERTY_KEY =
+            COMPILE_GOAL_PROPERTY_KEY_PREFIX + COMPILE_OUTPUTDIRECTORY_PARAMETER_KEY;
+
+    @Constant
+    private static final String COMPILE_SKIP_PARAMETER_KEY = "skip";
+    @Constant
+    private static final String COMPILE_SKIP_PROPERTY_KEY =
+            COMPILE_GOAL_PROPERTY_KEY_PREFIX + COMPILE_SKIP_PARAMETER_KEY;
+
+    @Constant
+    private static final String COMPILE_THREADCOUNT_PARAMETER_KEY = "threadCount";
+    @Constant
+    private static final String COMPILE_THREADCOUNT_PROPERTY_KEY =
+            COMPILE_GOAL_PROPERTY_KEY_PREFIX + COMPILE_THREADCOUNT_PARAMETER_KEY;
+
+
+    //
+    // User-provided configuration
+    //
+
+    /**
+     * Compiles the namespaces found in the source paths of a specific {@code clojure} goal,
+     * specified by its execution ID.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = COMPILE_CLOJUREGOALEXECUTIONID_PROPERTY_KEY)
+    private String clojureGoalExecutionId;
+
+    /**
+     * Comma-separated globs of namespaces not to compile, such as {@code my.app.dev.*}, where
+     * {@code *} matches any run of characters and {@code ?} any one character. Excluded namespaces
+     * that compiled namespaces depend on are compiled nonetheless, as with {@code clojure.core/compile}.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = COMPILE_EXCLUDEDNAMESPACES_PROPERTY_KEY)
+    private String excludedNamespaces;
+
+    /**
+     * When {@code true}, compiles only those namespaces whose sources changed since the last
+     * compilation, whose classes are missing from the output directory, or that depend directly
+     * or transitively on such namespaces. A change to the classpath causes all namespaces to compile.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "true", property = COMPILE_INCREMENTAL_PROPERTY_KEY)
+    private boolean incremental;
+
+    /**
+     * Comma-separated globs of the namespaces to compile, such as {@code my.app.main,my.app.api.*}.
+     * The namespaces of the source paths they depend on are compiled as well. All namespaces found
+     * in the source paths are compiled by default.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = COMPILE_NAMESPACES_PROPERTY_KEY)
+    private String namespaces;
+
+    /**
+     * Directory into which classes are written.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(
+            defaultValue = "${project.build.outputDirectory}",
+            property = COMPILE_OUTPUTDIRECTORY_PROPERTY_KEY
+    )
+    private File outputDirectory;
+
+    /**
+     * Compilation will be skipped when {@code true}.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "false", property = COMPILE_SKIP_PROPERTY_KEY)
+    private boolean skip;
+
+    /**
+     * The number of namespaces compiling at once. The default of {@code 0} uses as many threads
+     * as there are available processors.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "0", property = COMPILE_THREADCOUNT_PROPERTY_KEY)
+    private int threadCount;
+
+
+    @Override
+    protected void executeGoal() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info(
+                    i18nContext.getText(
+                            "vivid.clojure-maven-plugin.action.skipping-execution-via-configuration",
+                            COMPILE_SKIP_PROPERTY_KEY
+                    )
+            );
+            return;
+        }
+
+        final Either<Message, ClojureMojoState> selectedConfig = MojoFns.myPluginExecutionConfigurations(
+                this,
+                pluginDescriptor.getPluginLookupKey(),
+                AbstractCMPMojo.CLOJURE_MOJO_GOAL_NAME
+        )
+                .flatMap(configs -> selectClojureMojoConfig(
+                        configs,
+                        clojureGoalExecutionId,
+                        COMPILE_CLOJUREGOALEXECUTIONID_PARAMETER_KEY,
+                        AbstractCMPMojo.COMPILE_MOJO_GOAL_NAME
+                ));
+        if (selectedConfig.isLeft()) {
+            throw new MojoFailureException(
+                    selectedConfig.getLeft().render(this)
+            );
+        }
+        final ClojureMojoState clojureMojoState = selectedConfig.get()
+                .setClasspathScope(ClasspathScope.COMPILE);
+
+        final List<File> classPath;
+        try {
+            // Classes already compiled into the output directory are loaded in place of their sources
+            classPath = List.of(outputDirectory)
+                    .appendAll(
+                            List.ofAll(ClassPathology.getClassPathForScope(
+                                    this,
+                                    clojureMojoState,
+                                    true,
+                                    ClassPathology.PathStyle.ABSOLUTE
+                            )).map(File::new)
+                    )
+                    .distinctBy(File::getAbsoluteFile);
+        } catch (final Exception e) {
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Unexpected exception while adding to classloader path").render(this),
+                    e
+            );
+        }
+
+        final Path basedir = mavenSession.getCurrentProject().getBasedir().toPath();
+        final Map<String, Object> compilerOptions = HashMap.<String, Object>empty()
+                .put("classpath", classPath.map(File::getPath).toJavaList())
+                .put("compiler-options", clojureMojoState.compilerProfile.edn())
+                .put("excluded-namespaces", excludedNamespaces)
+                .put(COMPILE_INCREMENTAL_PARAMETER_KEY, incremental)
+                .put(COMPILE_NAMESPACES_PARAMETER_KEY, namespaces)
+                .put("output-directory", outputDirectory.getAbsolutePath())
+                .put("source-paths", clojureMojoState.sourcePaths
+                        .map(p -> basedir.resolve(p).toString())
+                        .toJavaList())
+                .put("thread-count", threadCount)
+                .put("work-directory", FileFns.pluginWorkDirectory(this).toString());
+
+        final Object compiled;
+        try (ClojureRuntime runtime = ClassPathology.clojureRuntime(
+                this,
+                classPath,
+                List.empty(),
+                CLOJURE_COMPILER_NS,
+                reuseRuntime
+        )) {
+            getLog().debug(String.format("Invoking %s/compile-namespaces with: %s", CLOJURE_COMPILER_NS, compilerOptions));
+            compiled = runtime.invoke(CLOJURE_COMPILER_NS, "compile-namespaces", this, compilerOptions.toJavaMap());
+        } catch (final Exception e) {
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Could not compile", e).render(this),
+                    e
+            );
+        }
+
+        if (!Boolean.TRUE.equals(compiled)) {
+            throw new MojoFailureException(
+                    i18nContext.getText("vivid.clojure-maven-plugin.action.compilation-failure")
+            );
+        }
+    }
+
+}
@@ -19,6 +19,7 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
 import us.bpsm.edn.printer.Printers;
 import vivid.cmp.datatypes.DepsEdn;
 import vivid.cmp.fns.FileFns;
@@ -49,7 +50,8 @@ import java.nio.file.Paths;
  */
 @Mojo(
         defaultPhase = LifecyclePhase.GENERATE_RESOURCES,
-        name = AbstractCMPMojo.DEPS_EDN_MOJO_GOAL_NAME
+        name = AbstractCMPMojo.DEPS_EDN_MOJO_GOAL_NAME,
+        requiresDependencyResolution = ResolutionScope.NONE
 )
 public class DepsEdnMojo extends AbstractCMPMojo {
 
@@ -75,10 +77,8 @@ public class DepsEdnMojo extends AbstractCMPMojo {
 
 
     @Override
-    public void execute()
+    protected void executeGoal()
             throws MojoExecutionException {
-        super.initialize();
-
         // TODO Calculate the common :deps, :paths to reduce duplication in the :alias es
 
         final Either<Message, Object> result =
@@ -14,23 +14,21 @@
 
 package vivid.cmp.mojo;
 
-import clojure.java.api.Clojure;
-import clojure.lang.RT;
-import clojure.lang.Symbol;
 import io.vavr.Tuple;
 import io.vavr.collection.List;
+import io.vavr.control.Either;
 import org.apache.maven.model.Dependency;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import vivid.cmp.datatypes.ClojureRuntime;
 import vivid.cmp.fns.ClassPathology;
-import vivid.cmp.fns.FileFns;
 import vivid.cmp.fns.MavenDependencyFns;
+import vivid.cmp.messages.Message;
 import vivid.polypara.annotation.Constant;
 
-import java.io.Closeable;
-import java.io.IOException;
+import java.io.File;
 
 /**
  * Run Leiningen tasks in-process within Maven.
@@ -49,6 +47,11 @@ import java.io.IOException;
  *
  * Dirty details: Leiningen is run directly within Maven's JVM process, mostly
  * mitigating the time and space penalties of starting Lein in a new sub-process.
+ * Each execution runs Leiningen in a Clojure runtime isolated from those of concurrent
+ * executions, reusing one warmed by a prior execution when {@code reuseRuntime} allows,
+ * and tells Leiningen the project's directory rather than changing the
+ * JVM's working directory, so that parallel builds are safe. Requires a Leiningen
+ * version that honors {@code leiningen.core.main/*cwd*}.
  * Measures are taken to intercept Lein (System/exit) behavior for the purpose of
  * returning orderly control back to Maven.
  * A primary trade-off of this goal's design is that a catastrophic process-killing
@@ -98,24 +101,30 @@ public class LeiningenMojo extends AbstractCMPMojo {
 
 
     @Override
-    public void execute()
-            throws MojoExecutionException, MojoFailureException {
-        super.initialize();
+    protected Iterable<Dependency> toolDependencies() {
+        return List.of(leiningenDependency());
+    }
 
+    @Override
+    protected void executeGoal()
+            throws MojoExecutionException, MojoFailureException {
         final String cwd = mavenSession.getCurrentProject().getBasedir().getAbsolutePath();
 
-        final Dependency dependency = MavenDependencyFns.newDependency(
-                LEININGEN_LIB_DEPENDENCY_MAVEN_G_A,
-                LEININGEN_LIB_DEPENDENCY_MAVEN_G_A,
-                version
-        );
-
-        try {
-            ClassPathology.addToClassLoader(
-                    this,
-                    MavenDependencyFns.resolveToFiles(this, dependency)
+        final Either<Message, List<File>> toolFiles = ClassPathology.resolveToolFiles(this, leiningenDependency());
+        if (toolFiles.isLeft()) {
+            throw new MojoFailureException(
+                    toolFiles.getLeft().render(this),
+                    toolFiles.getLeft().getCause().getOrNull()
             );
+        }
 
+        try (ClojureRuntime runtime = ClassPathology.clojureRuntime(
+                this,
+                List.empty(),
+                toolFiles.get(),
+                VIVID_CMP_LEININGEN_NS,
+                reuseRuntime
+        )) {
             getLog().debug("Invoking Leiningen:");
             List.of(
                     Tuple.of("version", version),
@@ -126,13 +135,13 @@ public class LeiningenMojo extends AbstractCMPMojo {
                             String.format("  %s = %s", t._1, t._2)
                     ));
 
-            try (final Closeable ignored =
-                         new FileFns.UserDirSystemPropertyOverride(this, cwd)) {
-                lein(
-                        debug,
-                        args
-                );
-            }
+            runtime.invoke(
+                    VIVID_CMP_LEININGEN_NS,
+                    LEIN_MAIN_FN,
+                    debug,
+                    args,
+                    cwd
+            );
         } catch (final MojoFailureException e) {
             throw e;
         } catch (final Exception e) {
@@ -140,23 +149,12 @@ public class LeiningenMojo extends AbstractCMPMojo {
         }
     }
 
-    private static void lein(
-            final boolean debug,
-            final String args
-    ) throws IOException {
-        RT.loadResourceScript("vivid/cmp/leiningen.clj");
-
-        // Clojure code ..
-        //
-        // (clojure.core/require vivid.cmp.leiningen)
-        // (vivid.cmp.leiningen/lein-main task)
-
-        // .. expressed in Java:
-        //
-        Clojure.var("clojure.core", "require")
-                .invoke(Symbol.intern(VIVID_CMP_LEININGEN_NS));
-        Clojure.var(VIVID_CMP_LEININGEN_NS, LEIN_MAIN_FN)
-                .invoke(debug, args);
+    private Dependency leiningenDependency() {
+        return MavenDependencyFns.newDependency(
+                LEININGEN_LIB_DEPENDENCY_MAVEN_G_A,
+                LEININGEN_LIB_DEPENDENCY_MAVEN_G_A,
+                version
+        );
     }
 
 }
@@ -0,0 +1,416 @@
+/*
+ * Copyright 2020 The vivid:clojure-maven-plugin Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package vivid.cmp.mojo;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import io.vavr.control.Either;
+import org.apache.commons.exec.CommandLine;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import us.bpsm.edn.Keyword;
+import us.bpsm.edn.printer.Printers;
+import vivid.cmp.datatypes.ClasspathScope;
+import vivid.cmp.datatypes.ClojureMojoState;
+import vivid.cmp.datatypes.ClojureRuntime;
+import vivid.cmp.datatypes.CompilerProfile;
+import vivid.cmp.fns.ClassPathology;
+import vivid.cmp.fns.FileFns;
+import vivid.cmp.fns.MojoFns;
+import vivid.cmp.fns.SubProcessFns;
+import vivid.cmp.messages.Message;
+import vivid.cmp.messages.VCMPE1InternalError;
+import vivid.polypara.annotation.Constant;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how much a compiler profile shortens the start-up time of an application.
+ *
+ * The main namespace, and the namespaces of the source paths of a {@code clojure} goal
+ * execution it depends on, are compiled ahead of time twice: with Clojure's default
+ * compiler options, and with those of the {@code compilerProfile}. The main namespace
+ * is then launched {@code runs} times with each set of classes, alternately, each time
+ * in a new JVM. The percentiles of the wall-clock time taken by each launch, from start
+ * until the JVM exits, are logged and written to
+ * {@code target/clojure-maven-plugin/startup-benchmark.edn}.
+ *
+ * The main function is expected to exit promptly, for example given {@code args} that
+ * make it do no more than initialize the application.
+ *
+ * @since 0.4.0
+ */
+@Mojo(
+        name = AbstractCMPMojo.STARTUP_BENCHMARK_MOJO_GOAL_NAME,
+        requiresDependencyResolution = ResolutionScope.COMPILE_PLUS_RUNTIME
+)
+public class StartupBenchmarkMojo extends AbstractCMPMojo {
+
+    private static final String RESULTS_FILENAME = "startup-benchmark.edn";
+
+
+    @Constant
+    private static final String STARTUP_BENCHMARK_GOAL_PROPERTY_KEY_PREFIX =
+            CLOJURE_MAVEN_PLUGIN_ID + "." + STARTUP_BENCHMARK_MOJO_GOAL_NAME + ".";
+
+    @Constant
+    private static final String STARTUP_BENCHMARK_ARGS_PARAMETER_KEY = "args";
+    @Constant
+    private static final String STARTUP_BENCHMARK_ARGS_PROPERTY_KEY =
+            STARTUP_BENCHMARK_GOAL_PROPERTY_KEY_PREFIX + STARTUP_BENCHMARK_ARGS_PARAMETER_KEY;
+
+    @Constant
+    private static final String STARTUP_BENCHMARK_CLOJUREGOALEXECUTIONID_PARAMETER_KEY = "clojureGoalExecutionId";
+    @Constant
+    private static final String STARTUP_BENCHMARK_CLOJUREGOALEXECUTIONID_PROPERTY_KEY =
+            STARTUP_BENCHMARK_GOAL_PROPERTY_KEY_PREFIX + STARTUP_BENCHMARK_CLOJUREGOALEXECUTIONID_PARAMETER_KEY;
+
+    @Constant
+    private static final String STARTUP_BENCHMARK_COMPILERPROFILE_PARAMETER_KEY = "compilerProfile";
+    @Constant
+    private static final String STARTUP_BENCHMARK_COMPILERPROFILE_PROPERTY_KEY =
+            STARTUP_BENCHMARK_GOAL_PROPERTY_KEY_PREFIX + STARTUP_BENCHMARK_COMPILERPROFILE_PARAMETER_KEY;
+
+    @Constant
+    private static final String STARTUP_BENCHMARK_MAINNAMESPACE_PARAMETER_KEY = "mainNamespace";
+    @Constant
+    private static final String STARTUP_BENCHMARK_MAINNAMESPACE_PROPERTY_KEY =
+            STARTUP_BENCHMARK_GOAL_PROPERTY_KEY_PREFIX + STARTUP_BENCHMARK_MAINNAMESPACE_PARAMETER_KEY;
+
+    @Constant
+    private static final String STARTUP_BENCHMARK_RUNS_PARAMETER_KEY = "runs";
+    @Constant
+    private static final String STARTUP_BENCHMARK_RUNS_PROPERTY_KEY =
+            STARTUP_BENCHMARK_GOAL_PROPERTY_KEY_PREFIX + STARTUP_BENCHMARK_RUNS_PARAMETER_KEY;
+
+    @Constant
+    private static final String STARTUP_BENCHMARK_SKIP_PARAMETER_KEY = "skip";
+    @Constant
+    private static final String STARTUP_BENCHMARK_SKIP_PROPERTY_KEY =
+            STARTUP_BENCHMARK_GOAL_PROPERTY_KEY_PREFIX + STARTUP_BENCHMARK_SKIP_PARAMETER_KEY;
+
+    private static final List<Tuple2<String, Double>> PERCENTILES = List.of(
+            Tuple.of("p50", 50.0),
+            Tuple.of("p90", 90.0),
+            Tuple.of("p99", 99.0)
+    );
+
+
+    //
+    // User-provided configuration
+    //
+
+    /**
+     * Arguments given to the main function at each launch.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = STARTUP_BENCHMARK_ARGS_PROPERTY_KEY)
+    private String args;
+
+    /**
+     * Benchmarks the namespaces found in the source paths of a specific {@code clojure} goal,
+     * specified by its execution ID.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(property = STARTUP_BENCHMARK_CLOJUREGOALEXECUTIONID_PROPERTY_KEY)
+    private String clojureGoalExecutionId;
+
+    /**
+     * The compiler profile compared to Clojure's defaults: {@code PRODUCTION} or {@code DEBUG}.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "PRODUCTION", property = STARTUP_BENCHMARK_COMPILERPROFILE_PROPERTY_KEY)
+    private CompilerProfile compilerProfile;
+
+    /**
+     * The namespace whose {@code -main} function is launched.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(required = true, property = STARTUP_BENCHMARK_MAINNAMESPACE_PROPERTY_KEY)
+    private String mainNamespace;
+
+    /**
+     * The number of times the main namespace is launched with each compiler profile, at least 1.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "10", property = STARTUP_BENCHMARK_RUNS_PROPERTY_KEY)
+    private int runs;
+
+    /**
+     * The benchmark will be skipped when {@code true}.
+     *
+     * @since 0.4.0
+     */
+    @Parameter(defaultValue = "false", property = STARTUP_BENCHMARK_SKIP_PROPERTY_KEY)
+    private boolean skip;
+
+
+    @Override
+    protected void executeGoal() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info(
+                    i18nContext.getText(
+                            "vivid.clojure-maven-plugin.action.skipping-execution-via-configuration",
+                            STARTUP_BENCHMARK_SKIP_PROPERTY_KEY
+                    )
+            );
+            return;
+        }
+        if (runs < 1) {
+            throw new MojoFailureException(
+                    i18nContext.getText(
+                            "vivid.clojure-maven-plugin.action.parameter-below-minimum",
+                            STARTUP_BENCHMARK_RUNS_PARAMETER_KEY,
+                            "1",
+                            String.valueOf(runs)
+                    )
+            );
+        }
+
+        final Either<Message, ClojureMojoState> selectedConfig = MojoFns.myPluginExecutionConfigurations(
+                this,
+                pluginDescriptor.getPluginLookupKey(),
+                AbstractCMPMojo.CLOJURE_MOJO_GOAL_NAME
+        )
+                .flatMap(configs -> selectClojureMojoConfig(
+                        configs,
+                        clojureGoalExecutionId,
+                        STARTUP_BENCHMARK_CLOJUREGOALEXECUTIONID_PARAMETER_KEY,
+                        AbstractCMPMojo.STARTUP_BENCHMARK_MOJO_GOAL_NAME
+                ));
+        if (selectedConfig.isLeft()) {
+            throw new MojoFailureException(
+                    selectedConfig.getLeft().render(this)
+            );
+        }
+        final ClojureMojoState clojureMojoState = selectedConfig.get()
+                .setClasspathScope(ClasspathScope.COMPILE);
+
+        // The project's output directory is left out: classes compiled into it earlier,
+        // possibly with other compiler options, would be loaded in place of the sources.
+        final File projectOutputDirectory =
+                new File(mavenSession.getCurrentProject().getBuild().getOutputDirectory()).getAbsoluteFile();
+        final List<File> classPath = List.ofAll(ClassPathology.getClassPathForScope(
+                this,
+                clojureMojoState,
+                true,
+                ClassPathology.PathStyle.ABSOLUTE
+        ))
+                .map(File::new)
+                .filter(f -> !f.getAbsoluteFile().equals(projectOutputDirectory));
+
+        final Path benchmarkDirectory = FileFns.pluginWorkDirectory(this).resolve(STARTUP_BENCHMARK_MOJO_GOAL_NAME);
+        final List<CompilerProfile> profiles = List.of(CompilerProfile.DEFAULT, compilerProfile).distinct();
+        final Map<CompilerProfile, File> classesDirectories = profiles.toLinkedMap(
+                profile -> Tuple.of(
+                        profile,
+                        benchmarkDirectory.resolve(profileName(profile)).resolve("classes").toFile()
+                )
+        );
+
+        for (final CompilerProfile profile : profiles) {
+            compile(clojureMojoState, profile, classesDirectories.get(profile).get(), classPath);
+        }
+
+        final Map<CompilerProfile, CommandLine> commandLines = classesDirectories.mapValues(
+                classes -> launchCommandLine(classes, classPath.append(projectOutputDirectory))
+        );
+
+        // Launching once beforehand warms the file system cache, leaving the JVM itself cold.
+        // The profiles are then launched alternately, so that a drift in the machine's load
+        // affects each alike.
+        for (final CommandLine commandLine : commandLines.values()) {
+            SubProcessFns.executeTimed(this, commandLine, Collections.emptyMap());
+        }
+        Map<CompilerProfile, List<Long>> times = profiles.toLinkedMap(profile -> Tuple.of(profile, List.empty()));
+        for (int run = 0; run < runs; run++) {
+            for (final CompilerProfile profile : profiles) {
+                final long elapsed = SubProcessFns.executeTimed(
+                        this,
+                        commandLines.get(profile).get(),
+                        Collections.emptyMap()
+                );
+                times = times.put(profile, times.get(profile).get().append(elapsed));
+            }
+        }
+
+        final Map<CompilerProfile, Map<String, Long>> results = times.mapValues(StartupBenchmarkMojo::summarize);
+        results.forEach((profile, summary) -> getLog().info(
+                i18nContext.getText(
+                        "vivid.clojure-maven-plugin.action.startup-benchmark-summary",
+                        mainNamespace,
+                        profileName(profile),
+                        String.valueOf(summary.get("p50").get()),
+                        String.valueOf(summary.get("p90").get()),
+                        String.valueOf(summary.get("p99").get())
+                )
+        ));
+
+        writeResults(benchmarkDirectory.resolveSibling(RESULTS_FILENAME), results);
+    }
+
+    private void compile(
+            final ClojureMojoState clojureMojoState,
+            final CompilerProfile profile,
+            final File classesDirectory,
+            final List<File> classPath
+    ) throws MojoExecutionException, MojoFailureException {
+        final Path basedir = mavenSession.getCurrentProject().getBasedir().toPath();
+        final List<File> compileClassPath = classPath.prepend(classesDirectory);
+        final Map<String, Object> options = HashMap.<String, Object>empty()
+                .put("classpath", compileClassPath.map(File::getPath).toJavaList())
+                .put("compiler-options", profile.edn())
+                .put("incremental", true)
+                .put("namespaces", mainNamespace)
+                .put("output-directory", classesDirectory.getAbsolutePath())
+                .put("source-paths", clojureMojoState.sourcePaths
+                        .map(p -> basedir.resolve(p).toString())
+                        .toJavaList())
+                .put("thread-count", 0)
+                .put("work-directory", classesDirectory.getParent());
+
+        final Object compiled;
+        try (ClojureRuntime runtime = ClassPathology.clojureRuntime(
+                this,
+                compileClassPath,
+                List.empty(),
+                CompileMojo.CLOJURE_COMPILER_NS,
+                reuseRuntime
+        )) {
+            getLog().debug(String.format("Invoking %s/compile-namespaces with: %s", CompileMojo.CLOJURE_COMPILER_NS, options));
+            compiled = runtime.invoke(CompileMojo.CLOJURE_COMPILER_NS, "compile-namespaces", this, options.toJavaMap());
+        } catch (final Exception e) {
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Could not compile", e).render(this),
+                    e
+            );
+        }
+
+        if (!Boolean.TRUE.equals(compiled)) {
+            throw new MojoFailureException(
+                    i18nContext.getText("vivid.clojure-maven-plugin.action.compilation-failure")
+            );
+        }
+    }
+
+    private CommandLine launchCommandLine(
+            final File classesDirectory,
+            final List<File> classPath
+    ) {
+        final CommandLine commandLine = new CommandLine(SubProcessFns.javaExecutable());
+        commandLine.addArgument("-cp");
+        commandLine.addArgument(
+                classPath.prepend(classesDirectory).map(File::getPath).mkString(File.pathSeparator),
+                false
+        );
+        commandLine.addArgument("clojure.main");
+        commandLine.addArgument("-m");
+        commandLine.addArgument(mainNamespace);
+        if (args != null) {
+            commandLine.addArguments(args);
+        }
+        return commandLine;
+    }
+
+    /**
+     * The minimum, maximum, mean and percentiles of the times, in milliseconds.
+     * Percentiles are by the nearest-rank method.
+     */
+    static Map<String, Long> summarize(
+            final List<Long> nanos
+    ) {
+        final List<Long> sorted = nanos.sorted();
+        final int n = sorted.size();
+        final Map<String, Long> summary = LinkedHashMap.of(
+                "min", sorted.head(),
+                "mean", (long) sorted.average().get().doubleValue(),
+                "max", sorted.last()
+        );
+        return PERCENTILES
+                .foldLeft(summary, (acc, p) -> acc.put(
+                        p._1,
+                        sorted.get(Math.max(0, (int) Math.ceil(p._2 / 100.0 * n) - 1))
+                ))
+                .mapValues(TimeUnit.NANOSECONDS::toMillis);
+    }
+
+    private void writeResults(
+            final Path path,
+            final Map<CompilerProfile, Map<String, Long>> results
+    ) throws MojoExecutionException {
+        final java.util.Map<Keyword, Object> edn = LinkedHashMap.<Keyword, Object>of(
+                Keyword.newKeyword("main-namespace"), mainNamespace,
+                Keyword.newKeyword("runs"), (long) runs,
+                Keyword.newKeyword("unit"), Keyword.newKeyword("milliseconds"),
+                Keyword.newKeyword("profiles"), results
+                        .toLinkedMap(t -> Tuple.of(
+                                Keyword.newKeyword(profileName(t._1)),
+                                t._2.toLinkedMap(s -> Tuple.of(Keyword.newKeyword(s._1), s._2)).toJavaMap()
+                        ))
+                        .toJavaMap()
+        ).toJavaMap();
+
+        final Either<Message, Void> written;
+        try {
+            Files.createDirectories(path.getParent());
+            written = FileFns.writeFile(
+                    path,
+                    StandardCharsets.UTF_8,
+                    Printers.printString(Printers.prettyPrinterProtocol(), edn) + '\n'
+            );
+        } catch (final Exception e) {
+            throw new MojoExecutionException(
+                    VCMPE1InternalError.message("Could not write file: " + path, e).render(this),
+                    e
+            );
+        }
+        if (written.isLeft()) {
+            throw new MojoExecutionException(
+                    written.getLeft().render(this)
+            );
+        }
+        getLog().info(
+                i18nContext.getText(
+                        "vivid.clojure-maven-plugin.action.wrote",
+                        path
+                )
+        );
+    }
+
+    private static String profileName(
+            final CompilerProfile profile
+    ) {
+        return profile.name().toLowerCase(Locale.ROOT);
+    }
+
+}